@@ -1,4 +1,4 @@
-import axios from 'axios'
+import axios, { AxiosResponse } from 'axios'
 
 const apiClient = axios.create({
   baseURL: import.meta.env.VITE_API_URL || '/api/v1',
@@ -29,5 +29,23 @@ apiClient.interceptors.response.use(
   }
 )
 
+export interface Page<T> {
+  items: T[]
+  nextCursor?: string
+  hasMore: boolean
+}
+
+// Follow nextCursor until the last page; the response carries every item
+export const allPages = async <T>(fetchPage: (cursor?: string) => Promise<AxiosResponse<Page<T>>>) => {
+  const first = await fetchPage()
+  const items = [...first.data.items]
+  let page = first.data
+  while (page.hasMore && page.nextCursor) {
+    page = (await fetchPage(page.nextCursor)).data
+    items.push(...page.items)
+  }
+  return { ...first, data: items }
+}
+
 export default apiClient
 
@@ -1,4 +1,4 @@
-import apiClient from './client'
+import apiClient, { allPages, Page } from './client'
 
 export interface Cluster {
   clusterId: string
@@ -10,10 +10,28 @@ export interface Cluster {
   executorMemory: string
   executorCores: number
   executorCount: number
+  minExecutors?: number
+  maxExecutors?: number
+  activeExecutors?: number
   sparkUiUrl?: string
   createdAt: string
   startedAt?: string
   lastActivityAt?: string
+  // Returned by create: poll getOperation until it finishes
+  operationId?: string
+}
+
+export interface ClusterOperation {
+  operationId: string
+  clusterId: string
+  operationType: 'CREATE' | 'TERMINATE'
+  status: 'PENDING' | 'RUNNING' | 'SUCCEEDED' | 'FAILED' | 'CANCELLED'
+  attempts: number
+  nextAttemptAt?: string
+  lastError?: string
+  completedAt?: string
+  createdAt: string
+  updatedAt: string
 }
 
 export interface CreateClusterRequest {
@@ -24,16 +42,23 @@ export interface CreateClusterRequest {
   executorMemory: string
   executorCores: number
   executorCount: number
+  minExecutors: number
+  maxExecutors: number
 }
 
 export const clustersApi = {
-  list: () => apiClient.get<Cluster[]>('/clusters'),
+  // Every cluster, across pages
+  list: () =>
+    allPages((cursor) => apiClient.get<Page<Cluster>>('/clusters', { params: { cursor } })),
   
   get: (clusterId: string) => apiClient.get<Cluster>(`/clusters/${clusterId}`),
   
   create: (data: CreateClusterRequest) => apiClient.post<Cluster>('/clusters', data),
   
-  terminate: (clusterId: string) => apiClient.delete(`/clusters/${clusterId}`),
+  terminate: (clusterId: string) => apiClient.delete<ClusterOperation>(`/clusters/${clusterId}`),
+  
+  getOperation: (operationId: string) =>
+    apiClient.get<ClusterOperation>(`/clusters/operations/${operationId}`),
   
   updateActivity: (clusterId: string) => apiClient.post(`/clusters/${clusterId}/activity`)
 }
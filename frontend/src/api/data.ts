@@ -1,4 +1,4 @@
-import apiClient from './client'
+import apiClient, { allPages, Page } from './client'
 
 export interface Dataset {
   datasetId: string
@@ -7,7 +7,24 @@ export interface Dataset {
   format: string
   rowCount: number
   sizeBytes: number
+  description?: string
   createdAt: string
+  updatedAt: string
+}
+
+export interface ColumnProfile {
+  name: string
+  type: string
+  nullCount: number
+  min?: string
+  max?: string
+  approxDistinct?: number
+}
+
+export interface DatasetProfile {
+  rowCount: number
+  columns: ColumnProfile[]
+  profiledAt: string
 }
 
 export interface QueryResult {
@@ -28,12 +45,17 @@ export const dataApi = {
   createDatabase: (databaseName: string) => 
     apiClient.post('/data/databases', null, { params: { databaseName } }),
   
-  listDatasets: (database?: string) => 
-    apiClient.get<Dataset[]>('/data/datasets', { params: { database } }),
+  // Every dataset, across pages
+  listDatasets: (database?: string) =>
+    allPages((cursor) =>
+      apiClient.get<Page<Dataset>>('/data/datasets', { params: { database, cursor } })),
   
   getDataset: (database: string, table: string) => 
     apiClient.get<Dataset>(`/data/datasets/${database}/${table}`),
   
+  getDatasetProfile: (database: string, table: string) => 
+    apiClient.get<DatasetProfile>(`/data/datasets/${database}/${table}/profile`),
+  
   deleteDataset: (database: string, table: string) => 
     apiClient.delete(`/data/datasets/${database}/${table}`),
   
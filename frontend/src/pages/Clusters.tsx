@@ -41,6 +41,8 @@ export default function Clusters() {
     executorMemory: '2g',
     executorCores: 1,
     executorCount: 2,
+    minExecutors: 0,
+    maxExecutors: 4,
   })
 
   const queryClient = useQueryClient()
@@ -124,7 +126,9 @@ export default function Clusters() {
                     />
                   </TableCell>
                   <TableCell>
-                    {cluster.executorCount} executors ({cluster.executorCores} cores, {cluster.executorMemory} each)
+                    {cluster.maxExecutors != null
+                      ? `${cluster.minExecutors}-${cluster.maxExecutors}`
+                      : cluster.executorCount} executors ({cluster.executorCores} cores, {cluster.executorMemory} each)
                   </TableCell>
                   <TableCell>
                     {new Date(cluster.createdAt).toLocaleString()}
@@ -201,10 +205,26 @@ export default function Clusters() {
             fullWidth
             margin="normal"
             type="number"
-            label="Executor Count"
+            label="Initial Executors"
             value={form.executorCount}
             onChange={(e) => setForm({ ...form, executorCount: Number(e.target.value) })}
           />
+          <TextField
+            fullWidth
+            margin="normal"
+            type="number"
+            label="Min Executors"
+            value={form.minExecutors}
+            onChange={(e) => setForm({ ...form, minExecutors: Number(e.target.value) })}
+          />
+          <TextField
+            fullWidth
+            margin="normal"
+            type="number"
+            label="Max Executors"
+            value={form.maxExecutors}
+            onChange={(e) => setForm({ ...form, maxExecutors: Number(e.target.value) })}
+          />
         </DialogContent>
         <DialogActions>
           <Button onClick={() => setOpen(false)}>Cancel</Button>
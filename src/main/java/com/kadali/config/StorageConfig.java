@@ -0,0 +1,33 @@
+package com.kadali.config;
+
+import io.minio.MinioClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "kadali.storage.type", havingValue = "minio", matchIfMissing = true)
+@Slf4j
+public class StorageConfig {
+    
+    @Value("${kadali.storage.endpoint}")
+    private String storageEndpoint;
+    
+    @Value("${kadali.storage.access-key}")
+    private String accessKey;
+    
+    @Value("${kadali.storage.secret-key}")
+    private String secretKey;
+    
+    @Bean
+    public MinioClient minioClient() {
+        log.info("Initializing MinIO client for endpoint: {}", storageEndpoint);
+        
+        return MinioClient.builder()
+                .endpoint(storageEndpoint)
+                .credentials(accessKey, secretKey)
+                .build();
+    }
+}
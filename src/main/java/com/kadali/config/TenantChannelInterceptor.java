@@ -0,0 +1,59 @@
+package com.kadali.config;
+
+import com.kadali.repository.NotebookRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tenant check for STOMP clients: CONNECT must carry an X-Tenant-ID header,
+ * and the session may then only subscribe and send to notebooks of that tenant
+ */
+@RequiredArgsConstructor
+public class TenantChannelInterceptor implements ChannelInterceptor {
+    
+    private static final String TENANT_HEADER = "X-Tenant-ID";
+    
+    private static final Pattern NOTEBOOK_DESTINATION = Pattern.compile("^/(?:topic|app)/notebooks/([^/]+)(?:/.*)?$");
+    
+    private final NotebookRepository notebookRepository;
+    
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        Map<String, Object> session = accessor.getSessionAttributes();
+        
+        switch (accessor.getCommand()) {
+            case CONNECT -> {
+                String tenantId = accessor.getFirstNativeHeader(TENANT_HEADER);
+                if (tenantId == null || tenantId.isBlank() || session == null) {
+                    throw new MessageDeliveryException("Missing " + TENANT_HEADER + " header");
+                }
+                session.put(TENANT_HEADER, tenantId);
+            }
+            case SUBSCRIBE, SEND -> {
+                Object tenantId = session != null ? session.get(TENANT_HEADER) : null;
+                String destination = accessor.getDestination();
+                Matcher matcher = NOTEBOOK_DESTINATION.matcher(destination != null ? destination : "");
+                if (tenantId == null || !matcher.matches() || !notebookRepository.findTenantIdByNotebookId(matcher.group(1))
+                        .map(tenantId::equals).orElse(false)) {
+                    throw new MessageDeliveryException("Access denied to " + destination);
+                }
+            }
+            default -> {
+            }
+        }
+        return message;
+    }
+}
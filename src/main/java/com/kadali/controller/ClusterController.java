@@ -2,17 +2,19 @@ package com.kadali.controller;
 
 import com.kadali.dto.ClusterCreateRequest;
 import com.kadali.dto.ClusterResponse;
+import com.kadali.dto.PageResponse;
+import com.kadali.entity.ClusterOperation;
 import com.kadali.entity.SparkCluster;
+import com.kadali.repository.KeysetPageRequest;
 import com.kadali.service.SparkClusterService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.net.URI;
 
 @RestController
 @RequestMapping("/api/v1/clusters")
@@ -22,37 +24,59 @@ public class ClusterController {
     
     private final SparkClusterService clusterService;
     
+    /**
+     * Accepts the cluster and provisions it in the background: poll the
+     * Location (the CREATE operation) or the cluster until it is RUNNING.
+     * Retries with the same Idempotency-Key return the first cluster.
+     */
     @PostMapping
     public ResponseEntity<ClusterResponse> createCluster(
             @RequestHeader("X-Tenant-ID") String tenantId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody ClusterCreateRequest request) {
         
         log.info("Creating cluster for tenant: {}", tenantId);
         
-        SparkCluster cluster = clusterService.createCluster(
-                tenantId,
-                request.getName(),
-                SparkCluster.ClusterType.valueOf(request.getType().toUpperCase()),
-                request.getDriverMemory(),
-                request.getDriverCores(),
-                request.getExecutorMemory(),
-                request.getExecutorCores(),
-                request.getExecutorCount()
-        );
+        ClusterOperation operation;
+        try {
+            operation = clusterService.createCluster(
+                    tenantId,
+                    request.getName(),
+                    SparkCluster.ClusterType.valueOf(request.getType().toUpperCase()),
+                    request.getDriverMemory(),
+                    request.getDriverCores(),
+                    request.getExecutorMemory(),
+                    request.getExecutorCores(),
+                    request.getExecutorCount(),
+                    request.getMinExecutors(),
+                    request.getMaxExecutors(),
+                    idempotencyKey
+            );
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key got there first; replay its operation
+            if (idempotencyKey == null) {
+                throw e;
+            }
+            operation = clusterService.findOperation(tenantId, idempotencyKey).orElseThrow(() -> e);
+        }
         
-        return ResponseEntity.status(HttpStatus.CREATED).body(toResponse(cluster));
+        ClusterResponse response = toResponse(clusterService.getCluster(operation.getClusterId()));
+        response.setOperationId(operation.getOperationId());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/clusters/operations/" + operation.getOperationId()))
+                .body(response);
     }
     
     @GetMapping
-    public ResponseEntity<List<ClusterResponse>> listClusters(
-            @RequestHeader("X-Tenant-ID") String tenantId) {
-        
-        List<SparkCluster> clusters = clusterService.getClustersByTenant(tenantId);
-        List<ClusterResponse> response = clusters.stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    public ResponseEntity<PageResponse<ClusterResponse>> listClusters(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "created") String sort,
+            @RequestParam(defaultValue = "desc") String order) {
         
-        return ResponseEntity.ok(response);
+        KeysetPageRequest page = KeysetPageRequest.of(cursor, limit, sort, order, "name");
+        return ResponseEntity.ok(clusterService.listClusterSummaries(tenantId, page));
     }
     
     @GetMapping("/{clusterId}")
@@ -60,16 +84,27 @@ public class ClusterController {
             @PathVariable String clusterId) {
         
         SparkCluster cluster = clusterService.getCluster(clusterId);
-        return ResponseEntity.ok(toResponse(cluster));
+        ClusterResponse response = toResponse(cluster);
+        response.setActiveExecutors(clusterService.getActiveExecutors(cluster));
+        return ResponseEntity.ok(response);
     }
     
     @DeleteMapping("/{clusterId}")
-    public ResponseEntity<Void> terminateCluster(
+    public ResponseEntity<ClusterOperation> terminateCluster(
             @PathVariable String clusterId) {
         
         log.info("Terminating cluster: {}", clusterId);
-        clusterService.terminateCluster(clusterId);
-        return ResponseEntity.noContent().build();
+        ClusterOperation operation = clusterService.terminateCluster(clusterId);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/clusters/operations/" + operation.getOperationId()))
+                .body(operation);
+    }
+    
+    @GetMapping("/operations/{operationId}")
+    public ResponseEntity<ClusterOperation> getOperation(
+            @PathVariable String operationId) {
+        
+        return ResponseEntity.ok(clusterService.getOperation(operationId));
     }
     
     @PostMapping("/{clusterId}/activity")
@@ -91,6 +126,8 @@ public class ClusterController {
                 .executorMemory(cluster.getExecutorMemory())
                 .executorCores(cluster.getExecutorCores())
                 .executorCount(cluster.getExecutorCount())
+                .minExecutors(cluster.getMinExecutors())
+                .maxExecutors(cluster.getMaxExecutors())
                 .sparkUiUrl(cluster.getSparkUiUrl())
                 .createdAt(cluster.getCreatedAt())
                 .startedAt(cluster.getStartedAt())
@@ -1,18 +1,33 @@
 package com.kadali.controller;
 
 import com.kadali.dto.DatabaseSyncRequest;
+import com.kadali.dto.SchemaHintRequest;
+import com.kadali.dto.SchemaSyncRequest;
+import com.kadali.dto.UploadInitRequest;
+import com.kadali.entity.IngestedFile;
+import com.kadali.entity.SchemaHint;
+import com.kadali.entity.SyncJob;
+import com.kadali.service.ChunkedUploadService;
+import com.kadali.service.CsvPreviewService;
 import com.kadali.service.DataCatalogService;
 import com.kadali.service.DataConnectorService;
+import com.kadali.service.IngestionManifestService;
+import com.kadali.service.SchemaRegistryService;
+import com.kadali.service.SchemaSyncService;
+import com.kadali.service.SyncJobService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.spark.sql.Dataset;
-import org.apache.spark.sql.Row;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -23,23 +38,36 @@ public class DataConnectorController {
     
     private final DataConnectorService connectorService;
     private final DataCatalogService catalogService;
+    private final SyncJobService syncJobService;
+    private final ChunkedUploadService uploadService;
+    private final SchemaRegistryService schemaRegistry;
+    private final CsvPreviewService csvPreviewService;
+    private final SchemaSyncService schemaSyncService;
+    private final IngestionManifestService ingestionManifest;
     
     @PostMapping("/upload")
-    public ResponseEntity<Map<String, String>> uploadFile(
+    public ResponseEntity<Map<String, Object>> uploadFile(
             @RequestHeader("X-Tenant-ID") String tenantId,
             @RequestParam("file") MultipartFile file,
             @RequestParam String database,
             @RequestParam String tableName,
-            @RequestParam(defaultValue = "csv") String format) {
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean force) {
         
         try {
-            String uploadId = connectorService.uploadFileAndSaveToDelta(
-                    file, tenantId, database, tableName, format);
+            IngestionManifestService.IngestResult result = connectorService.uploadFileAndSaveToDelta(
+                    file, tenantId, database, tableName, format, force);
             
-            Map<String, String> response = new HashMap<>();
-            response.put("uploadId", uploadId);
-            response.put("message", "File uploaded successfully");
+            Map<String, Object> response = new HashMap<>();
+            response.put("uploadId", result.getUploadId());
+            response.put("message", result.isSkipped()
+                    ? "File already ingested, skipped" : "File uploaded successfully");
             response.put("table", database + "." + tableName);
+            response.put("contentHash", result.getContentHash());
+            response.put("skipped", result.isSkipped());
+            if (result.getPrevious() != null) {
+                response.put("previousIngestion", result.getPrevious());
+            }
             
             return ResponseEntity.ok(response);
             
@@ -49,13 +77,81 @@ public class DataConnectorController {
         }
     }
     
+    // Chunked, resumable uploads: init, PUT parts (in parallel), complete
+    @PostMapping("/uploads")
+    public ResponseEntity<ChunkedUploadService.UploadSession> createUpload(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @Valid @RequestBody UploadInitRequest request) {
+        
+        ChunkedUploadService.UploadSession session = uploadService.createSession(tenantId, request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(session);
+    }
+    
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<ChunkedUploadService.UploadSession> getUpload(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @PathVariable String uploadId) {
+        
+        return ResponseEntity.ok(uploadService.getSession(tenantId, uploadId));
+    }
+    
+    @PutMapping("/uploads/{uploadId}/parts/{partNumber}")
+    public ResponseEntity<Void> uploadPart(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @PathVariable String uploadId,
+            @PathVariable int partNumber,
+            HttpServletRequest request) throws IOException {
+        
+        // Raw body is streamed through to storage, never buffered by the servlet container
+        uploadService.uploadPart(tenantId, uploadId, partNumber,
+                request.getInputStream(), request.getContentLengthLong());
+        return ResponseEntity.noContent().build();
+    }
+    
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<Map<String, Object>> completeUpload(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @PathVariable String uploadId) {
+        
+        try {
+            ChunkedUploadService.UploadSession session = uploadService.complete(tenantId, uploadId);
+            
+            boolean skipped = "SKIPPED".equals(session.getStatus());
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("uploadId", uploadId);
+            response.put("message", skipped ? "File already ingested, skipped" : "File uploaded successfully");
+            response.put("table", session.getDatabase() + "." + session.getTableName());
+            response.put("contentHash", session.getContentHash());
+            response.put("skipped", skipped);
+            if (session.getDuplicateOf() != null) {
+                response.put("previousIngestion", session.getDuplicateOf());
+            }
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            log.error("Completing upload {} failed", uploadId, e);
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> abortUpload(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @PathVariable String uploadId) {
+        
+        uploadService.abort(tenantId, uploadId);
+        return ResponseEntity.noContent().build();
+    }
+    
     @PostMapping("/sync-database")
-    public ResponseEntity<Map<String, String>> syncDatabase(
+    public ResponseEntity<Map<String, Object>> syncDatabase(
             @RequestHeader("X-Tenant-ID") String tenantId,
             @Valid @RequestBody DatabaseSyncRequest request) {
         
         try {
-            connectorService.syncDatabaseTableToDelta(
+            DataConnectorService.PushdownReport report = connectorService.syncDatabaseTableToDelta(
                     request.getSourceType(),
                     request.getJdbcUrl(),
                     request.getUsername(),
@@ -63,12 +159,19 @@ public class DataConnectorController {
                     request.getSourceTable(),
                     tenantId,
                     request.getTargetDatabase(),
-                    request.getTargetTable()
+                    request.getTargetTable(),
+                    request.getPartitionColumn(),
+                    request.getMaxPartitions(),
+                    request.getColumns(),
+                    request.getFilter()
             );
             
-            Map<String, String> response = new HashMap<>();
+            Map<String, Object> response = new HashMap<>();
             response.put("message", "Database sync completed");
             response.put("table", request.getTargetDatabase() + "." + request.getTargetTable());
+            response.put("rowsRead", report.getRowsRead());
+            response.put("estimatedBytesTransferred", report.getEstimatedBytesTransferred());
+            response.put("pushdown", report);
             
             return ResponseEntity.ok(response);
             
@@ -78,22 +181,151 @@ public class DataConnectorController {
         }
     }
     
+    // Whole-schema sync: runs in the background, poll the run for per-table progress
+    @PostMapping("/schema-syncs")
+    public ResponseEntity<SchemaSyncService.SchemaSyncRun> startSchemaSync(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @Valid @RequestBody SchemaSyncRequest request) {
+        
+        SchemaSyncService.SchemaSyncRun run = schemaSyncService.start(tenantId, request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(run);
+    }
+    
+    @GetMapping("/schema-syncs")
+    public ResponseEntity<List<SchemaSyncService.SchemaSyncRun>> listSchemaSyncs(
+            @RequestHeader("X-Tenant-ID") String tenantId) {
+        
+        return ResponseEntity.ok(schemaSyncService.listRuns(tenantId));
+    }
+    
+    @GetMapping("/schema-syncs/{runId}")
+    public ResponseEntity<SchemaSyncService.SchemaSyncRun> getSchemaSync(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @PathVariable String runId) {
+        
+        return ResponseEntity.ok(schemaSyncService.getRun(tenantId, runId));
+    }
+    
+    @PostMapping("/schema-syncs/{runId}/cancel")
+    public ResponseEntity<SchemaSyncService.SchemaSyncRun> cancelSchemaSync(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @PathVariable String runId) {
+        
+        return ResponseEntity.ok(schemaSyncService.cancel(tenantId, runId));
+    }
+    
+    @PostMapping("/sync-jobs")
+    public ResponseEntity<SyncJob> createSyncJob(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @Valid @RequestBody DatabaseSyncRequest request) {
+        
+        SyncJob job = syncJobService.createJob(tenantId, request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(job);
+    }
+    
+    @GetMapping("/sync-jobs")
+    public ResponseEntity<List<SyncJob>> listSyncJobs(
+            @RequestHeader("X-Tenant-ID") String tenantId) {
+        
+        return ResponseEntity.ok(syncJobService.listJobs(tenantId));
+    }
+    
+    @GetMapping("/sync-jobs/{jobId}")
+    public ResponseEntity<SyncJob> getSyncJob(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @PathVariable String jobId) {
+        
+        return ResponseEntity.ok(syncJobService.getJob(tenantId, jobId));
+    }
+    
+    // Runs in the background, poll the job for its outcome
+    @PostMapping("/sync-jobs/{jobId}/run")
+    public ResponseEntity<SyncJob> runSyncJob(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @PathVariable String jobId) {
+        
+        SyncJob job = syncJobService.runJob(tenantId, jobId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+    
+    @DeleteMapping("/sync-jobs/{jobId}")
+    public ResponseEntity<Void> deleteSyncJob(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @PathVariable String jobId) {
+        
+        syncJobService.deleteJob(tenantId, jobId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @GetMapping("/ingested-files")
+    public ResponseEntity<List<IngestedFile>> listIngestedFiles(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @RequestParam(required = false) String contentHash) {
+        
+        return ResponseEntity.ok(ingestionManifest.listFiles(tenantId, contentHash));
+    }
+    
+    // Forget an entry so the next delivery of that content is ingested again
+    @DeleteMapping("/ingested-files/{id}")
+    public ResponseEntity<Void> deleteIngestedFile(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @PathVariable Long id) {
+        
+        ingestionManifest.deleteFile(tenantId, id);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @GetMapping("/schema-hints")
+    public ResponseEntity<List<SchemaHint>> listSchemaHints(
+            @RequestHeader("X-Tenant-ID") String tenantId) {
+        
+        return ResponseEntity.ok(schemaRegistry.listHints(tenantId));
+    }
+    
+    @PutMapping("/schema-hints")
+    public ResponseEntity<SchemaHint> saveSchemaHint(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @Valid @RequestBody SchemaHintRequest request) {
+        
+        return ResponseEntity.ok(schemaRegistry.saveHint(tenantId, request));
+    }
+    
+    @PostMapping("/schema-hints/{hintId}/confirm")
+    public ResponseEntity<SchemaHint> confirmSchemaHint(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @PathVariable Long hintId) {
+        
+        return ResponseEntity.ok(schemaRegistry.confirmHint(tenantId, hintId));
+    }
+    
+    @DeleteMapping("/schema-hints/{hintId}")
+    public ResponseEntity<Void> deleteSchemaHint(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @PathVariable Long hintId) {
+        
+        schemaRegistry.deleteHint(tenantId, hintId);
+        return ResponseEntity.noContent().build();
+    }
+    
     @PostMapping("/preview-csv")
     public ResponseEntity<Map<String, Object>> previewCsv(
             @RequestParam("file") MultipartFile file,
-            @RequestParam(defaultValue = "true") boolean header) {
+            @RequestParam(required = false) Boolean header) {
         
-        try {
-            // Save temporarily and preview
-            String tempPath = System.getProperty("java.io.tmpdir") + "/" + file.getOriginalFilename();
-            file.transferTo(new java.io.File(tempPath));
-            
-            Dataset<Row> data = connectorService.loadCsvFile(tempPath, header, ",");
+        // Reads only the head of the upload; no temp file and no Spark job
+        try (InputStream input = file.getInputStream()) {
+            CsvPreviewService.CsvPreview preview = csvPreviewService.preview(input, file.getSize(), header);
             
             Map<String, Object> response = new HashMap<>();
-            response.put("schema", data.schema().treeString());
-            response.put("rowCount", data.count());
-            response.put("columns", data.columns());
+            response.put("schema", preview.getSchema());
+            response.put("rowCount", preview.getRowCount());
+            response.put("rowCountEstimated", preview.isRowCountEstimated());
+            response.put("columns", preview.getColumns());
+            response.put("types", preview.getTypes());
+            response.put("delimiter", preview.getDelimiter());
+            response.put("quote", preview.getQuote());
+            response.put("header", preview.isHeader());
+            response.put("sampleRows", preview.getSampleRows());
             
             return ResponseEntity.ok(response);
             
@@ -1,8 +1,13 @@
 package com.kadali.controller;
 
+import com.kadali.dto.DatasetSummary;
+import com.kadali.dto.PageResponse;
 import com.kadali.dto.QueryRequest;
 import com.kadali.entity.Dataset;
+import com.kadali.repository.KeysetPageRequest;
+import com.kadali.service.CatalogSearchService;
 import com.kadali.service.DataCatalogService;
+import com.kadali.service.IngestProfiler;
 import com.kadali.service.SqlQueryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +24,8 @@ import java.util.UUID;
 @Slf4j
 public class DataController {
     
+    private static final int MAX_SEARCH_LIMIT = 200;
+    
     private final DataCatalogService catalogService;
     private final SqlQueryService queryService;
     
@@ -42,17 +49,28 @@ public class DataController {
     
     // Dataset operations
     @GetMapping("/datasets")
-    public ResponseEntity<List<Dataset>> listDatasets(
+    public ResponseEntity<PageResponse<DatasetSummary>> listDatasets(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @RequestParam(required = false) String database,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "created") String sort,
+            @RequestParam(defaultValue = "desc") String order) {
+        
+        KeysetPageRequest page = KeysetPageRequest.of(cursor, limit, sort, order, "tableName");
+        return ResponseEntity.ok(catalogService.listDatasetSummaries(tenantId, database, page));
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<List<CatalogSearchService.SearchResult>> search(
             @RequestHeader("X-Tenant-ID") String tenantId,
-            @RequestParam(required = false) String database) {
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
         
-        List<Dataset> datasets;
-        if (database != null) {
-            datasets = catalogService.listDatasetsByDatabase(tenantId, database);
-        } else {
-            datasets = catalogService.listDatasets(tenantId);
-        }
-        return ResponseEntity.ok(datasets);
+        int boundedLimit = Math.min(Math.max(limit, 1), MAX_SEARCH_LIMIT);
+        List<CatalogSearchService.SearchResult> results =
+                catalogService.searchDatasets(tenantId, q, boundedLimit);
+        return ResponseEntity.ok(results);
     }
     
     @GetMapping("/datasets/{database}/{table}")
@@ -65,6 +83,16 @@ public class DataController {
         return ResponseEntity.ok(dataset);
     }
     
+    @GetMapping("/datasets/{database}/{table}/profile")
+    public ResponseEntity<IngestProfiler.DatasetProfile> getDatasetProfile(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @PathVariable String database,
+            @PathVariable String table) {
+        
+        IngestProfiler.DatasetProfile profile = catalogService.getDatasetProfile(tenantId, database, table);
+        return profile != null ? ResponseEntity.ok(profile) : ResponseEntity.noContent().build();
+    }
+    
     @DeleteMapping("/datasets/{database}/{table}")
     public ResponseEntity<Void> deleteDataset(
             @RequestHeader("X-Tenant-ID") String tenantId,
@@ -83,7 +111,7 @@ public class DataController {
         
         String queryId = "query-" + UUID.randomUUID().toString().substring(0, 8);
         SqlQueryService.QueryResult result = queryService.executeQuery(
-                queryId, tenantId, request.getSql(), request.getLimit());
+                queryId, tenantId, request.getClusterId(), request.getSql(), request.getLimit());
         
         return ResponseEntity.ok(result);
     }
@@ -1,17 +1,33 @@
 package com.kadali.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.kadali.dto.NotebookCreateRequest;
 import com.kadali.dto.CellExecutionRequest;
+import com.kadali.dto.CellStreamRequest;
+import com.kadali.dto.NotebookPatchRequest;
+import com.kadali.dto.NotebookSummary;
+import com.kadali.dto.PageResponse;
 import com.kadali.entity.Notebook;
+import com.kadali.repository.KeysetPageRequest;
+import com.kadali.service.NotebookContentService;
+import com.kadali.service.NotebookRunService;
 import com.kadali.service.NotebookService;
+import com.kadali.service.NotebookSessionManager;
+import com.kadali.service.NotebookStreamService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/v1/notebooks")
@@ -20,6 +36,10 @@ import java.util.List;
 public class NotebookController {
     
     private final NotebookService notebookService;
+    private final NotebookSessionManager sessionManager;
+    private final NotebookContentService contentService;
+    private final NotebookRunService runService;
+    private final NotebookStreamService streamService;
     
     @PostMapping
     public ResponseEntity<Notebook> createNotebook(
@@ -33,11 +53,20 @@ public class NotebookController {
     }
     
     @GetMapping
-    public ResponseEntity<List<Notebook>> listNotebooks(
-            @RequestHeader("X-Tenant-ID") String tenantId) {
+    public ResponseEntity<PageResponse<NotebookSummary>> listNotebooks(
+            @RequestHeader("X-Tenant-ID") String tenantId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "created") String sort,
+            @RequestParam(defaultValue = "desc") String order) {
         
-        List<Notebook> notebooks = notebookService.listNotebooks(tenantId);
-        return ResponseEntity.ok(notebooks);
+        KeysetPageRequest page = KeysetPageRequest.of(cursor, limit, sort, order, "name");
+        return ResponseEntity.ok(notebookService.listNotebookSummaries(tenantId, page));
+    }
+    
+    @GetMapping("/sessions")
+    public ResponseEntity<List<NotebookSessionManager.SessionInfo>> listSessions() {
+        return ResponseEntity.ok(sessionManager.listSessions());
     }
     
     @GetMapping("/{notebookId}")
@@ -48,13 +77,49 @@ public class NotebookController {
         return ResponseEntity.ok(notebook);
     }
     
+    /**
+     * The full document (metadata and cells); the ETag is the version to send back on save
+     */
+    @GetMapping("/{notebookId}/content")
+    public ResponseEntity<JsonNode> getContent(
+            @PathVariable String notebookId) {
+        
+        NotebookContentService.NotebookDocument document = contentService.getDocument(notebookId);
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(document.version()))
+                .body(document.content());
+    }
+    
     @PutMapping("/{notebookId}/content")
     public ResponseEntity<Notebook> updateContent(
             @PathVariable String notebookId,
+            @RequestParam(required = false) Integer baseVersion,
             @RequestBody String content) {
         
-        Notebook notebook = notebookService.updateNotebookContent(notebookId, content);
-        return ResponseEntity.ok(notebook);
+        try {
+            Notebook notebook = notebookService.updateNotebookContent(notebookId, content, baseVersion);
+            return ResponseEntity.ok(notebook);
+        } catch (OptimisticLockingFailureException e) {
+            log.info("Rejected stale save: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+    
+    /**
+     * Per-cell edits (upsert, move, delete) against the version the client last saw
+     */
+    @PatchMapping("/{notebookId}/cells")
+    public ResponseEntity<Notebook> patchCells(
+            @PathVariable String notebookId,
+            @Valid @RequestBody NotebookPatchRequest request) {
+        
+        try {
+            Notebook notebook = contentService.patchCells(notebookId, request);
+            return ResponseEntity.ok(notebook);
+        } catch (OptimisticLockingFailureException e) {
+            log.info("Rejected stale patch: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
     
     @PostMapping("/{notebookId}/attach-cluster")
@@ -86,6 +151,93 @@ public class NotebookController {
         return ResponseEntity.ok(result);
     }
     
+    /**
+     * Run a cell without holding the request; progress and rows go to the
+     * notebook's WebSocket topic /topic/notebooks/{notebookId}
+     */
+    @PostMapping("/{notebookId}/executions")
+    public ResponseEntity<Map<String, String>> streamCell(
+            @PathVariable String notebookId,
+            @Valid @RequestBody CellStreamRequest request) {
+        
+        String executionId = streamService.submit(notebookId, request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("executionId", executionId));
+    }
+    
+    @PostMapping("/{notebookId}/executions/{executionId}/cancel")
+    public ResponseEntity<Void> cancelCell(
+            @PathVariable String notebookId,
+            @PathVariable String executionId) {
+        
+        streamService.cancel(notebookId, executionId);
+        return ResponseEntity.accepted().build();
+    }
+    
+    /**
+     * Run every cell, independent cells concurrently; poll the run or stream its events
+     */
+    @PostMapping("/{notebookId}/run-all")
+    public ResponseEntity<NotebookRunService.NotebookRun> runAll(
+            @PathVariable String notebookId,
+            @RequestParam(required = false) Integer parallelism) {
+        
+        NotebookRunService.NotebookRun run = runService.start(notebookId, parallelism);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(run);
+    }
+    
+    @GetMapping("/{notebookId}/runs/{runId}")
+    public ResponseEntity<NotebookRunService.NotebookRun> getRun(
+            @PathVariable String notebookId,
+            @PathVariable String runId) {
+        
+        return ResponseEntity.ok(runService.getRun(notebookId, runId));
+    }
+    
+    @PostMapping("/{notebookId}/runs/{runId}/cancel")
+    public ResponseEntity<NotebookRunService.NotebookRun> cancelRun(
+            @PathVariable String notebookId,
+            @PathVariable String runId) {
+        
+        return ResponseEntity.ok(runService.cancel(notebookId, runId));
+    }
+    
+    /**
+     * Server-sent events: one "cell" event per cell state change, then "run" when finished
+     */
+    @GetMapping(value = "/{notebookId}/runs/{runId}/events", produces = "text/event-stream")
+    public SseEmitter streamRun(
+            @PathVariable String notebookId,
+            @PathVariable String runId) {
+        
+        SseEmitter emitter = new SseEmitter(0L);
+        Consumer<NotebookRunService.RunEvent> listener = event -> {
+            try {
+                emitter.send(SseEmitter.event().name(event.getType()).data(event));
+                if ("run".equals(event.getType())) {
+                    emitter.complete();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        emitter.onCompletion(() -> runService.unsubscribe(notebookId, runId, listener));
+        emitter.onTimeout(emitter::complete);
+        runService.subscribe(notebookId, runId, listener);
+        return emitter;
+    }
+    
+    /**
+     * Restart the notebook's Spark session, dropping its temp views, cache and SQL conf
+     */
+    @DeleteMapping("/{notebookId}/session")
+    public ResponseEntity<Void> resetSession(
+            @PathVariable String notebookId) {
+        
+        notebookService.getNotebook(notebookId);
+        sessionManager.release(notebookId);
+        return ResponseEntity.noContent().build();
+    }
+    
     @DeleteMapping("/{notebookId}")
     public ResponseEntity<Void> deleteNotebook(
             @PathVariable String notebookId) {
@@ -0,0 +1,41 @@
+package com.kadali.controller;
+
+import com.kadali.dto.CellStreamRequest;
+import com.kadali.service.NotebookStreamService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+
+/**
+ * STOMP entry points for streamed cell execution. Clients subscribe to
+ * /topic/notebooks/{notebookId}, then send to /app/notebooks/{notebookId}/execute
+ * and /app/notebooks/{notebookId}/cancel/{executionId}.
+ */
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+public class NotebookStreamController {
+    
+    private final NotebookStreamService streamService;
+    
+    @MessageMapping("/notebooks/{notebookId}/execute")
+    public void execute(
+            @DestinationVariable String notebookId,
+            @Valid @Payload CellStreamRequest request) {
+        
+        String executionId = streamService.submit(notebookId, request);
+        log.debug("Streaming cell {} of notebook {} as {}", request.getCellId(), notebookId, executionId);
+    }
+    
+    @MessageMapping("/notebooks/{notebookId}/cancel/{executionId}")
+    public void cancel(
+            @DestinationVariable String notebookId,
+            @DestinationVariable String executionId) {
+        
+        streamService.cancel(notebookId, executionId);
+    }
+}
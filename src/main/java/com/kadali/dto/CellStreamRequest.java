@@ -0,0 +1,18 @@
+package com.kadali.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+@Data
+public class CellStreamRequest {
+    
+    @NotBlank(message = "Code is required")
+    private String code;
+    
+    @Pattern(regexp = "sql|python", message = "Language must be sql or python")
+    private String language = "sql";
+    
+    // Echoed back on every message so the client can route output to the cell
+    private String cellId;
+}
@@ -25,7 +25,14 @@ public class ClusterCreateRequest {
     @Min(value = 1, message = "Executor cores must be at least 1")
     private int executorCores = 1;
     
-    @Min(value = 1, message = "Executor count must be at least 1")
+    // Initial executors; dynamic allocation scales between min and max
+    @Min(value = 0, message = "Executor count must not be negative")
     private int executorCount = 2;
+    
+    @Min(value = 0, message = "Min executors must not be negative")
+    private int minExecutors = 0;
+    
+    @Min(value = 1, message = "Max executors must be at least 1")
+    private int maxExecutors = 4;
 }
 
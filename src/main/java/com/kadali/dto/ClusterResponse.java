@@ -21,9 +21,15 @@ public class ClusterResponse {
     private String executorMemory;
     private Integer executorCores;
     private Integer executorCount;
+    private Integer minExecutors;
+    private Integer maxExecutors;
+    // Live, from the cluster; only set for single-cluster reads
+    private Integer activeExecutors;
     private String sparkUiUrl;
     private LocalDateTime createdAt;
     private LocalDateTime startedAt;
     private LocalDateTime lastActivityAt;
+    // Set when the cluster was just requested: poll /clusters/operations/{operationId}
+    private String operationId;
 }
 
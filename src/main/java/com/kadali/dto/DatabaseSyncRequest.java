@@ -1,14 +1,18 @@
 package com.kadali.dto;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class DatabaseSyncRequest {
     
-    @NotBlank(message = "Source type is required (postgres, mysql)")
+    @NotBlank(message = "Source type is required (postgres, mysql, mongodb)")
     private String sourceType;
     
+    // For mongodb: the connection string, with sourceTable named database.collection
     @NotBlank(message = "JDBC URL is required")
     private String jdbcUrl;
     
@@ -26,5 +30,24 @@ public class DatabaseSyncRequest {
     
     @NotBlank(message = "Target table is required")
     private String targetTable;
+    
+    // Optional split column for parallel reads, defaults to the primary key
+    private String partitionColumn;
+    
+    // Optional cap on concurrent source connections for this sync
+    @Min(value = 1, message = "Max partitions must be at least 1")
+    private Integer maxPartitions;
+    
+    // Optional pushdown: only these columns, and only rows matching the SQL expression
+    // (for mongodb a $match document, e.g. {"region": "EU"})
+    private List<String> columns;
+    private String filter; // e.g. region = 'EU' AND created_at >= DATE '2024-01-01'
+    
+    // Incremental sync jobs: rows with watermark above the last run are merged on keyColumns
+    private String watermarkColumn; // e.g. updated_at or a monotonically increasing id
+    private List<String> keyColumns;
+    
+    @Min(value = 1, message = "Schedule interval must be at least 1 minute")
+    private Integer scheduleIntervalMinutes;
 }
 
@@ -0,0 +1,24 @@
+package com.kadali.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatasetSummary {
+    private String datasetId;
+    private String databaseName;
+    private String tableName;
+    private String format;
+    private Long rowCount;
+    private Long sizeBytes;
+    private String description;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,45 @@
+package com.kadali.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class NotebookPatchRequest {
+    
+    // Version the client edited; the patch is rejected if the notebook has moved on
+    @NotNull(message = "Base version is required")
+    private Integer baseVersion;
+    
+    @Valid
+    private List<CellOperation> operations;
+    
+    // Replaces the document-level metadata when present
+    private JsonNode metadata;
+    
+    @Data
+    public static class CellOperation {
+        
+        @NotBlank(message = "Operation is required")
+        @Pattern(regexp = "upsert|delete", message = "Operation must be upsert or delete")
+        private String op;
+        
+        // Required for delete; a new id is generated when an upsert omits it
+        private String cellId;
+        
+        // Target index; new cells default to the end, existing cells stay put
+        private Integer position;
+        
+        // Upsert fields; null leaves the stored value unchanged
+        private String cellType;
+        private String source;
+        private JsonNode metadata;
+        private JsonNode outputs;
+        private Integer executionCount;
+    }
+}
@@ -0,0 +1,26 @@
+package com.kadali.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotebookSummary {
+    private String notebookId;
+    private String name;
+    private String path;
+    private String language;
+    private String kernelType;
+    private Integer version;
+    private String clusterId;
+    private Integer executionCount;
+    private LocalDateTime lastExecutedAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
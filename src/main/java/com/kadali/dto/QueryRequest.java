@@ -12,5 +12,8 @@ public class QueryRequest {
     
     @Min(value = 1, message = "Limit must be at least 1")
     private int limit = 1000;
+    
+    // Run on this cluster instead of the shared embedded session
+    private String clusterId;
 }
 
@@ -0,0 +1,19 @@
+package com.kadali.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+@Data
+public class SchemaHintRequest {
+    
+    @NotBlank(message = "Source pattern is required (e.g. sales_*.csv)")
+    private String sourcePattern;
+    
+    @Pattern(regexp = "(?i)csv|json", message = "Format must be csv or json")
+    private String format = "csv";
+    
+    // Spark schema as JSON (StructType.json()) or DDL ("id BIGINT, name STRING")
+    @NotBlank(message = "Schema is required")
+    private String schema;
+}
@@ -0,0 +1,41 @@
+package com.kadali.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SchemaSyncRequest {
+    
+    @NotBlank(message = "Source type is required (postgres, mysql)")
+    private String sourceType;
+    
+    @NotBlank(message = "JDBC URL is required")
+    private String jdbcUrl;
+    
+    @NotBlank(message = "Username is required")
+    private String username;
+    
+    @NotBlank(message = "Password is required")
+    private String password;
+    
+    // Source schema (Postgres) or database (MySQL); defaults to the connection's
+    private String sourceSchema;
+    
+    @NotBlank(message = "Target database is required")
+    private String targetDatabase;
+    
+    // Table name globs, e.g. ["orders*", "customers"]; empty includes every table
+    private List<String> include;
+    private List<String> exclude;
+    
+    // Tables synced at once; lowered to fit the source connection budget
+    @Min(value = 1, message = "Max concurrent tables must be at least 1")
+    private Integer maxConcurrentTables;
+    
+    // Total connections this sync may open against the source
+    @Min(value = 1, message = "Max source connections must be at least 1")
+    private Integer maxSourceConnections;
+}
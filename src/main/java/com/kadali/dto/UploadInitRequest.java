@@ -0,0 +1,29 @@
+package com.kadali.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+@Data
+public class UploadInitRequest {
+    
+    @NotBlank(message = "File name is required")
+    private String fileName;
+    
+    @NotBlank(message = "Database is required")
+    private String database;
+    
+    @NotBlank(message = "Table name is required")
+    private String tableName;
+    
+    @Pattern(regexp = "(?i)csv|json|parquet", message = "Format must be csv, json, or parquet")
+    private String format = "csv";
+    
+    // Optional; lets the server size parts and verify the upload on completion
+    @Min(value = 1, message = "Total size must be positive")
+    private Long totalSize;
+    
+    // Append even if identical content was already loaded into the table
+    private boolean force;
+}
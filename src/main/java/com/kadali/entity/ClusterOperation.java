@@ -0,0 +1,85 @@
+package com.kadali.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "cluster_operations")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClusterOperation {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(unique = true, nullable = false)
+    private String operationId;
+    
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tenant_id", nullable = false)
+    private Tenant tenant;
+    
+    @Column(nullable = false)
+    private String clusterId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OperationType operationType;
+    
+    @JsonIgnore
+    private String idempotencyKey;
+    
+    // Execution
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private OperationStatus status = OperationStatus.PENDING;
+    
+    @Builder.Default
+    private Integer attempts = 0;
+    
+    private LocalDateTime nextAttemptAt;
+    
+    @JsonIgnore
+    private LocalDateTime lockedUntil;
+    
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+    
+    private LocalDateTime completedAt;
+    
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    public enum OperationType {
+        CREATE, TERMINATE
+    }
+    
+    public enum OperationStatus {
+        PENDING, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+}
@@ -45,6 +45,10 @@ public class Dataset {
     private Long rowCount;
     private Long sizeBytes;
     
+    // Column statistics observed while the data was written (IngestProfiler)
+    @Column(columnDefinition = "TEXT")
+    private String profileJson;
+    
     private String description;
     
     @ManyToOne(fetch = FetchType.LAZY)
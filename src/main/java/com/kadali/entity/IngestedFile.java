@@ -0,0 +1,62 @@
+package com.kadali.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ingested_files", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"tenant_id", "content_hash", "database_name", "table_name"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestedFile {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tenant_id", nullable = false)
+    private Tenant tenant;
+    
+    // SHA-256, hex; fixed width, stored as char(64)
+    @Column(nullable = false, columnDefinition = "char(64)")
+    private String contentHash;
+    
+    @Column(nullable = false)
+    private String fileName;
+    
+    @Column(nullable = false)
+    private Long sizeBytes;
+    
+    @Column(nullable = false)
+    private String databaseName;
+    
+    @Column(nullable = false)
+    private String tableName;
+    
+    @Column(nullable = false)
+    private String format;
+    
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer ingestCount = 1;
+    
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime firstIngestedAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime lastIngestedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        firstIngestedAt = LocalDateTime.now();
+        lastIngestedAt = LocalDateTime.now();
+    }
+}
@@ -2,10 +2,12 @@ package com.kadali.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "notebooks")
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -38,7 +40,7 @@ public class Notebook {
     private String language = "python";
     
     @Column(columnDefinition = "TEXT")
-    private String content; // JSON format
+    private String content; // JSON format, document metadata; cells live in notebook_cells
     
     @Builder.Default
     private Integer version = 1;
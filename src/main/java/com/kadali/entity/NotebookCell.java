@@ -0,0 +1,66 @@
+package com.kadali.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
+import java.time.LocalDateTime;
+
+/**
+ * One cell of a notebook. Cells are stored as rows so an edit rewrites only the
+ * cells (and columns) that changed, not the whole document.
+ */
+@Entity
+@Table(name = "notebook_cells", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"notebook_id", "cell_id"})
+})
+@DynamicUpdate
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotebookCell {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "notebook_id", nullable = false)
+    private Notebook notebook;
+    
+    @Column(nullable = false)
+    private String cellId;
+    
+    @Column(nullable = false)
+    private Integer position;
+    
+    @Column(nullable = false)
+    @Builder.Default
+    private String cellType = "code";
+    
+    @Column(columnDefinition = "TEXT")
+    private String source;
+    
+    @Column(columnDefinition = "TEXT")
+    private String metadata; // JSON format
+    
+    // JSON outputs, gzip-compressed when large
+    @Column(columnDefinition = "BYTEA")
+    private byte[] outputs;
+    
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean outputsCompressed = false;
+    
+    private Integer executionCount;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
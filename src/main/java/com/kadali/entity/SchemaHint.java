@@ -0,0 +1,57 @@
+package com.kadali.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "schema_hints", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"tenant_id", "format", "source_pattern"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SchemaHint {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tenant_id", nullable = false)
+    private Tenant tenant;
+    
+    @Column(nullable = false)
+    private String sourcePattern;
+    
+    @Column(nullable = false)
+    private String format;
+    
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String schemaJson;
+    
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean inferred = true;
+    
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
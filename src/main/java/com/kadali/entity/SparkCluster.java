@@ -40,7 +40,9 @@ public class SparkCluster {
     private Integer driverCores;
     private String executorMemory;
     private Integer executorCores;
-    private Integer executorCount;
+    private Integer executorCount; // initial; dynamic allocation scales within min/max
+    private Integer minExecutors;
+    private Integer maxExecutors;
     
     // Kubernetes details
     private String namespace;
@@ -0,0 +1,113 @@
+package com.kadali.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "sync_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(unique = true, nullable = false)
+    private String jobId;
+    
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tenant_id", nullable = false)
+    private Tenant tenant;
+    
+    // Source
+    @Column(nullable = false)
+    private String sourceType;
+    
+    @Column(nullable = false)
+    private String jdbcUrl;
+    
+    @Column(nullable = false)
+    private String username;
+    
+    @JsonIgnore
+    @Column(nullable = false)
+    private String password;
+    
+    @Column(nullable = false)
+    private String sourceTable;
+    
+    private String partitionColumn;
+    private Integer maxPartitions;
+    
+    private String columns; // comma-separated projection, empty means all columns
+    
+    @Column(columnDefinition = "TEXT")
+    private String sourceFilter;
+    
+    // Target
+    @Column(nullable = false)
+    private String targetDatabase;
+    
+    @Column(nullable = false)
+    private String targetTable;
+    
+    // Incremental state
+    @Column(nullable = false)
+    private String watermarkColumn;
+    
+    private String keyColumns; // comma-separated, empty means append-only
+    
+    private String highWatermark;
+    
+    // Scheduling
+    private Integer scheduleIntervalMinutes;
+    
+    @Builder.Default
+    private Boolean enabled = true;
+    
+    private LocalDateTime nextRunAt;
+    
+    // Last run
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private SyncStatus status = SyncStatus.IDLE;
+    
+    private LocalDateTime lastRunAt;
+    private Long lastRowCount;
+    
+    // Lease of the running instance, renewed while it runs
+    @JsonIgnore
+    private LocalDateTime lockedUntil;
+    
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+    
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    public enum SyncStatus {
+        IDLE, RUNNING, SUCCEEDED, FAILED
+    }
+}
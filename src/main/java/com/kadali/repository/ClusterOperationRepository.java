@@ -0,0 +1,60 @@
+package com.kadali.repository;
+
+import com.kadali.entity.ClusterOperation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ClusterOperationRepository extends JpaRepository<ClusterOperation, Long> {
+    Optional<ClusterOperation> findByOperationId(String operationId);
+    Optional<ClusterOperation> findByTenant_TenantIdAndIdempotencyKey(String tenantId, String idempotencyKey);
+    
+    /**
+     * Unfinished operation of this type for the cluster, if any
+     */
+    @Query("SELECT o FROM ClusterOperation o WHERE o.clusterId = :clusterId AND o.operationType = :type " +
+           "AND o.status IN ('PENDING', 'RUNNING')")
+    Optional<ClusterOperation> findActive(String clusterId, ClusterOperation.OperationType type);
+    
+    /**
+     * Cancel queued operations of this type for the cluster, e.g. its CREATE once it is terminated
+     */
+    @Modifying
+    @Query("UPDATE ClusterOperation o SET o.status = 'CANCELLED', o.completedAt = :now, o.updatedAt = :now " +
+           "WHERE o.clusterId = :clusterId AND o.operationType = :type AND o.status = 'PENDING'")
+    int cancelPending(String clusterId, ClusterOperation.OperationType type, LocalDateTime now);
+    
+    /**
+     * Operations ready to run: pending and due, or running under an expired lease
+     */
+    @Query("SELECT o.operationId FROM ClusterOperation o WHERE " +
+           "(o.status = 'PENDING' AND o.nextAttemptAt <= :now) OR (o.status = 'RUNNING' AND o.lockedUntil < :now) " +
+           "ORDER BY o.nextAttemptAt")
+    List<String> findDue(LocalDateTime now, Pageable page);
+    
+    /**
+     * Atomically take an operation for one attempt; returns 0 if another worker holds it
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ClusterOperation o SET o.status = 'RUNNING', o.lockedUntil = :lockedUntil, " +
+           "o.attempts = o.attempts + 1, o.updatedAt = :now WHERE o.operationId = :operationId AND " +
+           "((o.status = 'PENDING' AND o.nextAttemptAt <= :now) OR (o.status = 'RUNNING' AND o.lockedUntil < :now))")
+    int claim(String operationId, LocalDateTime now, LocalDateTime lockedUntil);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE ClusterOperation o SET o.status = :status, o.lastError = :error, o.nextAttemptAt = :nextAttemptAt, " +
+           "o.lockedUntil = null, o.completedAt = :completedAt, o.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE o.operationId = :operationId")
+    int finish(String operationId, ClusterOperation.OperationStatus status, String error,
+               LocalDateTime nextAttemptAt, LocalDateTime completedAt);
+}
@@ -2,6 +2,7 @@ package com.kadali.repository;
 
 import com.kadali.entity.Dataset;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,5 +15,8 @@ public interface DatasetRepository extends JpaRepository<Dataset, Long> {
     List<Dataset> findByTenant_TenantIdAndDatabaseName(String tenantId, String databaseName);
     Optional<Dataset> findByTenant_TenantIdAndDatabaseNameAndTableName(
         String tenantId, String databaseName, String tableName);
+
+    @Query("SELECT d FROM Dataset d JOIN FETCH d.tenant")
+    List<Dataset> findAllWithTenant();
 }
 
@@ -0,0 +1,16 @@
+package com.kadali.repository;
+
+import com.kadali.entity.IngestedFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface IngestedFileRepository extends JpaRepository<IngestedFile, Long> {
+    Optional<IngestedFile> findByTenant_TenantIdAndContentHashAndDatabaseNameAndTableName(
+        String tenantId, String contentHash, String databaseName, String tableName);
+    List<IngestedFile> findByTenant_TenantIdOrderByLastIngestedAtDesc(String tenantId);
+    List<IngestedFile> findByTenant_TenantIdAndContentHash(String tenantId, String contentHash);
+}
@@ -0,0 +1,99 @@
+package com.kadali.repository;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Seek-pagination request over (tenant_id, id), optionally ordered by a name column.
+ *
+ * Cursors are opaque base64 tokens carrying the sort key of the last row served,
+ * so the next page is an index range scan instead of an OFFSET.
+ */
+@Getter
+public class KeysetPageRequest {
+    
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+    
+    private static final String ID_ATTRIBUTE = "id";
+    
+    private final String sort;
+    private final String sortAttribute;
+    private final boolean ascending;
+    private final int limit;
+    private final Long lastId;
+    private final String lastSortValue;
+    
+    private KeysetPageRequest(String sort, String sortAttribute, boolean ascending, int limit,
+                              Long lastId, String lastSortValue) {
+        this.sort = sort;
+        this.sortAttribute = sortAttribute;
+        this.ascending = ascending;
+        this.limit = limit;
+        this.lastId = lastId;
+        this.lastSortValue = lastSortValue;
+    }
+    
+    /**
+     * @param sort          "created" (id order) or "name"
+     * @param order         "asc" or "desc"
+     * @param nameAttribute entity attribute backing the "name" sort
+     */
+    public static KeysetPageRequest of(String cursor, int limit, String sort, String order,
+                                       String nameAttribute) {
+        String sortAttribute = switch (sort.toLowerCase()) {
+            case "created" -> ID_ATTRIBUTE;
+            case "name" -> nameAttribute;
+            default -> throw new IllegalArgumentException("Unsupported sort: " + sort);
+        };
+        
+        boolean ascending = switch (order.toLowerCase()) {
+            case "asc" -> true;
+            case "desc" -> false;
+            default -> throw new IllegalArgumentException("Unsupported order: " + order);
+        };
+        
+        int pageSize = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        String sortKey = sort.toLowerCase() + ":" + (ascending ? "asc" : "desc");
+        
+        if (cursor == null || cursor.isBlank()) {
+            return new KeysetPageRequest(sortKey, sortAttribute, ascending, pageSize, null, null);
+        }
+        
+        // Cursor layout: <sort>:<order>|<id>|<sort value>
+        String[] parts;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            parts = decoded.split("\\|", 3);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        
+        if (parts.length != 3 || !parts[0].equals(sortKey)) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort order");
+        }
+        
+        try {
+            return new KeysetPageRequest(sortKey, sortAttribute, ascending, pageSize,
+                    Long.parseLong(parts[1]), parts[2]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+    
+    public boolean isSortedById() {
+        return ID_ATTRIBUTE.equals(sortAttribute);
+    }
+    
+    public boolean isFirstPage() {
+        return lastId == null;
+    }
+    
+    String nextCursor(Long id, Object sortValue) {
+        String raw = sort + "|" + id + "|" + (sortValue == null ? "" : sortValue);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
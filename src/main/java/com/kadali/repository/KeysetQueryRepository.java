@@ -0,0 +1,136 @@
+package com.kadali.repository;
+
+import com.kadali.dto.PageResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Tenant-scoped list queries that select only the requested columns and page
+ * with a keyset on (tenant_id, [sort column,] id).
+ */
+@Repository
+@RequiredArgsConstructor
+public class KeysetQueryRepository {
+    
+    private static final String KEYSET_ID = "keysetId";
+    private static final String KEYSET_VALUE = "keysetValue";
+    
+    private final EntityManager entityManager;
+    
+    /**
+     * @param filters equality filters on entity attributes, null values are ignored
+     * @param columns attribute paths to select; "assoc.attr" is left-joined and
+     *                exposed in the tuple under its last segment
+     * @param mapper  converts each selected tuple into the response type
+     */
+    public <E, T> PageResponse<T> findPage(Class<E> entityClass, String tenantId,
+                                           Map<String, Object> filters,
+                                           KeysetPageRequest page,
+                                           List<String> columns,
+                                           Function<Tuple, T> mapper) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<E> root = query.from(entityClass);
+        
+        Path<Long> id = root.get("id");
+        Path<String> sortValue = root.get(page.getSortAttribute());
+        
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String column : columns) {
+            selections.add(path(root, column).alias(lastSegment(column)));
+        }
+        selections.add(id.alias(KEYSET_ID));
+        if (!page.isSortedById()) {
+            selections.add(sortValue.alias(KEYSET_VALUE));
+        }
+        query.multiselect(selections);
+        
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(root.get("tenant").get("tenantId"), tenantId));
+        filters.forEach((attribute, value) -> {
+            if (value != null) {
+                predicates.add(cb.equal(root.get(attribute), value));
+            }
+        });
+        if (!page.isFirstPage()) {
+            predicates.add(seekPredicate(cb, page, id, sortValue));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        
+        List<Order> orders = new ArrayList<>();
+        if (!page.isSortedById()) {
+            orders.add(page.isAscending() ? cb.asc(sortValue) : cb.desc(sortValue));
+        }
+        orders.add(page.isAscending() ? cb.asc(id) : cb.desc(id));
+        query.orderBy(orders);
+        
+        // Fetch one extra row to learn whether another page exists
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setMaxResults(page.getLimit() + 1)
+                .getResultList();
+        
+        boolean hasMore = rows.size() > page.getLimit();
+        if (hasMore) {
+            rows = rows.subList(0, page.getLimit());
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            Tuple last = rows.get(rows.size() - 1);
+            nextCursor = page.nextCursor(
+                    last.get(KEYSET_ID, Long.class),
+                    page.isSortedById() ? null : last.get(KEYSET_VALUE));
+        }
+        
+        return PageResponse.<T>builder()
+                .items(rows.stream().map(mapper).toList())
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+    
+    private Predicate seekPredicate(CriteriaBuilder cb, KeysetPageRequest page,
+                                    Path<Long> id, Path<String> sortValue) {
+        if (page.isSortedById()) {
+            return page.isAscending()
+                    ? cb.greaterThan(id, page.getLastId())
+                    : cb.lessThan(id, page.getLastId());
+        }
+        
+        // The redundant range conjunct bounds an index range scan on (sort, id); the OR alone cannot
+        String lastValue = page.getLastSortValue();
+        if (page.isAscending()) {
+            return cb.and(
+                    cb.greaterThanOrEqualTo(sortValue, lastValue),
+                    cb.or(
+                            cb.greaterThan(sortValue, lastValue),
+                            cb.and(cb.equal(sortValue, lastValue), cb.greaterThan(id, page.getLastId()))));
+        }
+        return cb.and(
+                cb.lessThanOrEqualTo(sortValue, lastValue),
+                cb.or(
+                        cb.lessThan(sortValue, lastValue),
+                        cb.and(cb.equal(sortValue, lastValue), cb.lessThan(id, page.getLastId()))));
+    }
+    
+    private Path<?> path(Root<?> root, String column) {
+        int dot = column.indexOf('.');
+        if (dot < 0) {
+            return root.get(column);
+        }
+        Join<?, ?> join = root.join(column.substring(0, dot), JoinType.LEFT);
+        return join.get(column.substring(dot + 1));
+    }
+    
+    private String lastSegment(String column) {
+        return column.substring(column.lastIndexOf('.') + 1);
+    }
+}
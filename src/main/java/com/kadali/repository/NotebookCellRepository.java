@@ -0,0 +1,12 @@
+package com.kadali.repository;
+
+import com.kadali.entity.NotebookCell;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NotebookCellRepository extends JpaRepository<NotebookCell, Long> {
+    List<NotebookCell> findByNotebook_IdOrderByPosition(Long notebookId);
+}
@@ -1,7 +1,10 @@
 package com.kadali.repository;
 
 import com.kadali.entity.Notebook;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,5 +15,14 @@ public interface NotebookRepository extends JpaRepository<Notebook, Long> {
     Optional<Notebook> findByNotebookId(String notebookId);
     List<Notebook> findByTenant_TenantId(String tenantId);
     List<Notebook> findByCluster_ClusterId(String clusterId);
+    
+    @Query("SELECT t.tenantId FROM Notebook n JOIN n.tenant t WHERE n.notebookId = :notebookId")
+    Optional<String> findTenantIdByNotebookId(String notebookId);
+    
+    /**
+     * Row-locked read, so concurrent saves check and bump the version one at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n FROM Notebook n WHERE n.notebookId = :notebookId")
+    Optional<Notebook> findForUpdate(String notebookId);
 }
-
@@ -0,0 +1,15 @@
+package com.kadali.repository;
+
+import com.kadali.entity.SchemaHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SchemaHintRepository extends JpaRepository<SchemaHint, Long> {
+    List<SchemaHint> findByTenant_TenantId(String tenantId);
+    Optional<SchemaHint> findByTenant_TenantIdAndFormatAndSourcePattern(
+        String tenantId, String format, String sourcePattern);
+}
@@ -2,8 +2,10 @@ package com.kadali.repository;
 
 import com.kadali.entity.SparkCluster;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -12,10 +14,58 @@ import java.util.Optional;
 @Repository
 public interface SparkClusterRepository extends JpaRepository<SparkCluster, Long> {
     Optional<SparkCluster> findByClusterId(String clusterId);
+    boolean existsByClusterId(String clusterId);
     List<SparkCluster> findByTenant_TenantId(String tenantId);
     List<SparkCluster> findByStatus(SparkCluster.ClusterStatus status);
     
-    @Query("SELECT c FROM SparkCluster c WHERE c.status = 'RUNNING' AND c.lastActivityAt < :threshold")
-    List<SparkCluster> findIdleClusters(LocalDateTime threshold);
+    @Query("SELECT c FROM SparkCluster c JOIN FETCH c.tenant WHERE c.id = :id")
+    Optional<SparkCluster> findWithTenant(Long id);
+    
+    @Query("SELECT c FROM SparkCluster c JOIN FETCH c.tenant WHERE c.clusterId = :clusterId")
+    Optional<SparkCluster> findByClusterIdWithTenant(String clusterId);
+    
+    /**
+     * Record the driver of a cluster being created and the executors it started
+     * with; returns 0 if it was terminated meanwhile
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SparkCluster c SET c.driverPodName = :podName, c.namespace = :namespace, " +
+           "c.executorCount = :executorCount " +
+           "WHERE c.clusterId = :clusterId AND c.status = 'CREATING'")
+    int recordDriver(String clusterId, String podName, String namespace, Integer executorCount);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE SparkCluster c SET c.status = 'TERMINATED', c.terminatedAt = :terminatedAt " +
+           "WHERE c.clusterId = :clusterId")
+    int markTerminated(String clusterId, LocalDateTime terminatedAt);
+    
+    /**
+     * A cluster whose provisioning or termination gave up
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SparkCluster c SET c.status = 'ERROR' " +
+           "WHERE c.clusterId = :clusterId AND c.status IN ('CREATING', 'TERMINATING')")
+    int markFailed(String clusterId);
+    
+    /**
+     * Running clusters idle for longer than their own auto-terminate minutes;
+     * a cluster that took long to start counts as active from its start
+     */
+    @Query(value = "SELECT * FROM spark_clusters WHERE status = 'RUNNING' AND auto_terminate_minutes > 0 " +
+           "AND GREATEST(last_activity_at, started_at, created_at) " +
+           "< CAST(:now AS TIMESTAMP) - auto_terminate_minutes * INTERVAL '1 minute'", nativeQuery = true)
+    List<SparkCluster> findIdleClusters(LocalDateTime now);
+    
+    /**
+     * Move an idle cluster to TERMINATING; returns 0 if it was used or left RUNNING meanwhile
+     */
+    @Modifying
+    @Query(value = "UPDATE spark_clusters SET status = 'TERMINATING' WHERE cluster_id = :clusterId " +
+           "AND status = 'RUNNING' AND GREATEST(last_activity_at, started_at, created_at) " +
+           "< CAST(:now AS TIMESTAMP) - auto_terminate_minutes * INTERVAL '1 minute'", nativeQuery = true)
+    int markIdleTerminating(String clusterId, LocalDateTime now);
 }
 
@@ -0,0 +1,45 @@
+package com.kadali.repository;
+
+import com.kadali.entity.SyncJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SyncJobRepository extends JpaRepository<SyncJob, Long> {
+    Optional<SyncJob> findByTenant_TenantIdAndJobId(String tenantId, String jobId);
+    List<SyncJob> findByTenant_TenantId(String tenantId);
+    
+    @Query("SELECT j FROM SyncJob j JOIN FETCH j.tenant WHERE j.jobId = :jobId")
+    Optional<SyncJob> findWithTenantByJobId(String jobId);
+    
+    @Query("SELECT j FROM SyncJob j JOIN FETCH j.tenant WHERE j.enabled = true " +
+           "AND j.nextRunAt <= :now AND (j.status <> 'RUNNING' OR j.lockedUntil < :now) ORDER BY j.nextRunAt")
+    List<SyncJob> findDueJobs(LocalDateTime now, Pageable page);
+    
+    /**
+     * Atomically claim a job for a run, taking over a run whose lease expired;
+     * returns 0 if another run holds it
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SyncJob j SET j.status = 'RUNNING', j.lastRunAt = :now, j.lockedUntil = :lockedUntil " +
+           "WHERE j.jobId = :jobId AND (j.status <> 'RUNNING' OR j.lockedUntil < :now)")
+    int claim(String jobId, LocalDateTime now, LocalDateTime lockedUntil);
+    
+    /**
+     * Extend the leases of runs still in progress on this instance
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SyncJob j SET j.lockedUntil = :lockedUntil WHERE j.jobId IN :jobIds AND j.status = 'RUNNING'")
+    int renewLeases(Collection<String> jobIds, LocalDateTime lockedUntil);
+}
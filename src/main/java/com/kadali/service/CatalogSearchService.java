@@ -0,0 +1,331 @@
+package com.kadali.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kadali.entity.Dataset;
+import com.kadali.repository.DatasetRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory search index over the data catalog.
+ *
+ * Keeps one inverted index per tenant, keyed by sorted terms so prefix lookups
+ * are a range scan. Database, table and column names (parsed from the Spark
+ * schema JSON) and descriptions are indexed with per-field weights.
+ *
+ * Catalog changes reach the index only once their transaction commits, so a
+ * rolled-back register or delete leaves it untouched. A rebuild fills a new
+ * index and swaps it in; searches keep using the old one meanwhile.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogSearchService {
+    
+    private static final int TABLE_WEIGHT = 10;
+    private static final int DATABASE_WEIGHT = 4;
+    private static final int COLUMN_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    
+    private final DatasetRepository datasetRepository;
+    private final ObjectMapper objectMapper;
+    
+    private volatile Map<String, TenantIndex> indexes = new ConcurrentHashMap<>();
+    
+    // Changes applied while a rebuild runs, replayed onto the new index before the swap
+    private List<Consumer<Map<String, TenantIndex>>> changesDuringRebuild;
+    
+    /**
+     * Rebuild all tenant indexes from Postgres once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildIndex() {
+        log.info("Rebuilding catalog search index");
+        long start = System.currentTimeMillis();
+        
+        synchronized (this) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+        Map<String, TenantIndex> rebuilt = new ConcurrentHashMap<>();
+        int count = 0;
+        try {
+            for (Dataset dataset : datasetRepository.findAllWithTenant()) {
+                put(rebuilt, dataset.getTenant().getTenantId(), entryOf(dataset));
+                count++;
+            }
+            synchronized (this) {
+                changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+                indexes = rebuilt;
+            }
+        } finally {
+            synchronized (this) {
+                changesDuringRebuild = null;
+            }
+        }
+        
+        log.info("Catalog search index rebuilt: {} datasets in {} ms",
+                count, System.currentTimeMillis() - start);
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDatasetSaved(DatasetSaved event) {
+        IndexEntry entry = entryOf(event.dataset());
+        apply(index -> put(index, event.tenantId(), entry));
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDatasetDeleted(DatasetDeleted event) {
+        apply(index -> {
+            TenantIndex tenantIndex = index.get(event.tenantId());
+            if (tenantIndex != null) {
+                tenantIndex.remove(event.datasetId());
+            }
+        });
+    }
+    
+    private synchronized void apply(Consumer<Map<String, TenantIndex>> change) {
+        change.accept(indexes);
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(change);
+        }
+    }
+    
+    private static void put(Map<String, TenantIndex> index, String tenantId, IndexEntry entry) {
+        index.computeIfAbsent(tenantId, id -> new TenantIndex()).put(entry);
+    }
+    
+    private IndexEntry entryOf(Dataset dataset) {
+        return new IndexEntry(
+                dataset.getDatasetId(),
+                dataset.getDatabaseName(),
+                dataset.getTableName(),
+                parseColumnNames(dataset.getSchemaJson()),
+                dataset.getDescription());
+    }
+    
+    public List<SearchResult> search(String tenantId, String query, int limit) {
+        TenantIndex index = indexes.get(tenantId);
+        List<String> terms = tokenize(query);
+        if (index == null || terms.isEmpty()) {
+            return List.of();
+        }
+        return index.search(terms, query.trim().toLowerCase(Locale.ROOT), limit);
+    }
+    
+    private List<String> parseColumnNames(String schemaJson) {
+        if (schemaJson == null || schemaJson.isBlank()) {
+            return List.of();
+        }
+        
+        try {
+            List<String> columns = new ArrayList<>();
+            collectFieldNames(objectMapper.readTree(schemaJson), "", columns);
+            return columns;
+        } catch (Exception e) {
+            log.warn("Failed to parse schema JSON for search index", e);
+            return List.of();
+        }
+    }
+    
+    private void collectFieldNames(JsonNode struct, String prefix, List<String> columns) {
+        for (JsonNode field : struct.path("fields")) {
+            String name = prefix + field.path("name").asText();
+            columns.add(name);
+            
+            JsonNode type = field.path("type");
+            if (type.isObject() && "struct".equals(type.path("type").asText())) {
+                collectFieldNames(type, name + ".", columns);
+            }
+        }
+    }
+    
+    /**
+     * Split identifiers and free text into lowercase terms, breaking on
+     * punctuation, underscores and camelCase boundaries
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        
+        String spaced = text.replaceAll("([a-z0-9])([A-Z])", "$1 $2");
+        List<String> terms = new ArrayList<>();
+        for (String term : spaced.toLowerCase(Locale.ROOT).split("[^a-z0-9]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+    
+    private record IndexEntry(String datasetId, String databaseName, String tableName,
+                              List<String> columns, String description) {
+        
+        Map<String, Integer> termWeights() {
+            Map<String, Integer> weights = new HashMap<>();
+            addTerms(weights, databaseName, DATABASE_WEIGHT);
+            addTerms(weights, tableName, TABLE_WEIGHT);
+            columns.forEach(column -> addTerms(weights, column, COLUMN_WEIGHT));
+            addTerms(weights, description, DESCRIPTION_WEIGHT);
+            return weights;
+        }
+        
+        private static void addTerms(Map<String, Integer> weights, String text, int weight) {
+            if (text == null) {
+                return;
+            }
+            for (String term : tokenize(text)) {
+                weights.merge(term, weight, Math::max);
+            }
+        }
+    }
+    
+    private static class TenantIndex {
+        
+        private final Map<String, IndexEntry> entries = new ConcurrentHashMap<>();
+        private final Map<String, Map<String, Integer>> entryTerms = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Map<String, Integer>> postings =
+                new ConcurrentSkipListMap<>();
+        
+        synchronized void put(IndexEntry entry) {
+            remove(entry.datasetId());
+            
+            Map<String, Integer> weights = entry.termWeights();
+            weights.forEach((term, weight) -> postings
+                    .computeIfAbsent(term, t -> new ConcurrentHashMap<>())
+                    .put(entry.datasetId(), weight));
+            
+            entries.put(entry.datasetId(), entry);
+            entryTerms.put(entry.datasetId(), weights);
+        }
+        
+        synchronized void remove(String datasetId) {
+            Map<String, Integer> weights = entryTerms.remove(datasetId);
+            entries.remove(datasetId);
+            if (weights == null) {
+                return;
+            }
+            
+            for (String term : weights.keySet()) {
+                Map<String, Integer> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(datasetId);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+        
+        List<SearchResult> search(List<String> terms, String rawQuery, int limit) {
+            Map<String, Integer> scores = null;
+            
+            // Every query term must prefix-match some indexed term (AND semantics)
+            for (String term : terms) {
+                Map<String, Integer> termScores = new HashMap<>();
+                for (Map.Entry<String, Map<String, Integer>> posting :
+                        postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                    int exactBonus = posting.getKey().equals(term) ? 2 : 1;
+                    posting.getValue().forEach((datasetId, weight) ->
+                            termScores.merge(datasetId, weight * exactBonus, Math::max));
+                }
+                
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((datasetId, score) -> score + termScores.get(datasetId));
+                }
+                
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            
+            // Keep only the best `limit` candidates; broad prefixes can match every table
+            int capacity = Math.max(limit, 1);
+            PriorityQueue<Hit> top = new PriorityQueue<>(
+                    Math.min(capacity, scores.size()) + 1, Comparator.comparingInt(Hit::score));
+            for (Map.Entry<String, Integer> candidate : scores.entrySet()) {
+                IndexEntry entry = entries.get(candidate.getKey());
+                if (entry == null) {
+                    continue;
+                }
+                int score = candidate.getValue();
+                if (entry.tableName().equalsIgnoreCase(rawQuery)) {
+                    score += 100;
+                }
+                // Keep the entry itself; a concurrent removal must not null it out below
+                top.offer(new Hit(entry, score));
+                if (top.size() > capacity) {
+                    top.poll();
+                }
+            }
+            
+            List<SearchResult> results = new ArrayList<>(top.size());
+            for (Hit hit : top) {
+                IndexEntry entry = hit.entry();
+                results.add(SearchResult.builder()
+                        .datasetId(entry.datasetId())
+                        .databaseName(entry.databaseName())
+                        .tableName(entry.tableName())
+                        .description(entry.description())
+                        .matchedColumns(matchingColumns(entry, terms))
+                        .score(hit.score())
+                        .build());
+            }
+            
+            results.sort(Comparator.comparingInt(SearchResult::getScore).reversed()
+                    .thenComparing(SearchResult::getTableName));
+            return results;
+        }
+        
+        private record Hit(IndexEntry entry, int score) {
+        }
+        
+        private List<String> matchingColumns(IndexEntry entry, List<String> terms) {
+            return entry.columns().stream()
+                    .filter(column -> tokenize(column).stream()
+                            .anyMatch(part -> terms.stream().anyMatch(part::startsWith)))
+                    .toList();
+        }
+    }
+    
+    @lombok.Data
+    @lombok.Builder
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class SearchResult {
+        private String datasetId;
+        private String databaseName;
+        private String tableName;
+        private String description;
+        private List<String> matchedColumns;
+        private int score;
+    }
+    
+    /**
+     * Published when a catalog entry is created or changed; indexed after commit
+     */
+    public record DatasetSaved(String tenantId, Dataset dataset) {
+    }
+    
+    /**
+     * Published when a catalog entry is deleted; removed from the index after commit
+     */
+    public record DatasetDeleted(String tenantId, String datasetId) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.kadali.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.catalyst.expressions.CurrentDate;
+import org.apache.spark.sql.catalyst.expressions.CurrentTimestampLike;
+import org.apache.spark.sql.catalyst.expressions.Expression;
+import org.apache.spark.sql.catalyst.expressions.LocalTimestamp;
+import org.apache.spark.sql.catalyst.expressions.SubqueryExpression;
+import org.apache.spark.sql.catalyst.plans.logical.LocalRelation;
+import org.apache.spark.sql.catalyst.plans.logical.LogicalPlan;
+import org.apache.spark.sql.catalyst.plans.logical.OneRowRelation;
+import org.apache.spark.sql.catalyst.plans.logical.Range;
+import org.apache.spark.sql.delta.files.TahoeFileIndex;
+import org.apache.spark.sql.execution.datasources.HadoopFsRelation;
+import org.apache.spark.sql.execution.datasources.LogicalRelation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import scala.collection.JavaConverters;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Results of notebook query cells, reused while nothing they read has changed.
+ *
+ * The key covers the canonicalized analyzed plan (so formatting and view
+ * indirection don't matter), the session's SQL conf and the Delta version of
+ * every table read. A new commit to any input changes the key, so entries are
+ * never served stale. Queries over anything without a version (JDBC, plain
+ * files, Hive tables) or with non-deterministic expressions are not cached.
+ * Each tenant has a byte budget, evicted least-recently-used.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CellResultCache {
+    
+    private final ObjectMapper objectMapper;
+    
+    private final Map<Long, TenantCache> tenants = new ConcurrentHashMap<>();
+    
+    @Value("${kadali.notebooks.result-cache.tenant-max-bytes:67108864}")
+    private long tenantMaxBytes;
+    
+    @Value("${kadali.notebooks.result-cache.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * Cache key of an analyzed query, or null when its result cannot be cached
+     */
+    public String key(SparkSession session, Dataset<Row> query) {
+        if (!enabled) {
+            return null;
+        }
+        
+        LogicalPlan plan = query.queryExecution().analyzed();
+        List<String> inputs = new ArrayList<>();
+        if (!collectInputs(plan, inputs)) {
+            return null;
+        }
+        Collections.sort(inputs);
+        
+        MessageDigest digest = IngestionManifestService.sha256();
+        // Canonicalization drops aliases, so the output schema (names included) is hashed too;
+        // the plan is printed without the maxToStringFields cut-off
+        digest.update(query.schema().json().getBytes(StandardCharsets.UTF_8));
+        digest.update(plan.canonicalized().treeString(true, false, Integer.MAX_VALUE, false)
+                .getBytes(StandardCharsets.UTF_8));
+        inputs.forEach(input -> digest.update(("\n" + input).getBytes(StandardCharsets.UTF_8)));
+        new TreeMap<>(JavaConverters.mapAsJavaMap(session.conf().getAll())).forEach((name, value) -> {
+            if (name.startsWith("spark.sql.")) {
+                digest.update(("\n" + name + "=" + value).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        return IngestionManifestService.hex(digest);
+    }
+    
+    public Optional<CachedResult> get(Long tenantKey, String key) {
+        TenantCache cache = tenants.get(tenantKey);
+        return cache == null ? Optional.empty() : Optional.ofNullable(cache.get(key));
+    }
+    
+    public void put(Long tenantKey, String key, List<Map<String, Object>> rows) {
+        long bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(rows).length;
+        } catch (Exception e) {
+            log.debug("Result not cacheable, it does not serialize", e);
+            return;
+        }
+        if (bytes > tenantMaxBytes / 4) {
+            return; // one result must not flush the tenant's whole cache
+        }
+        tenants.computeIfAbsent(tenantKey, id -> new TenantCache())
+                .put(key, new CachedResult(rows, bytes, LocalDateTime.now()), tenantMaxBytes);
+    }
+    
+    /**
+     * Walks the plan and its subqueries, recording versioned inputs; false if
+     * anything read is unversioned or an expression is not deterministic
+     */
+    private boolean collectInputs(LogicalPlan plan, List<String> inputs) {
+        for (Expression expression : JavaConverters.seqAsJavaList(plan.expressions())) {
+            if (!cacheable(expression, inputs)) {
+                return false;
+            }
+        }
+        
+        List<LogicalPlan> children = JavaConverters.seqAsJavaList(plan.children());
+        if (children.isEmpty()) {
+            if (plan instanceof LogicalRelation relation
+                    && relation.relation() instanceof HadoopFsRelation fsRelation
+                    && fsRelation.location() instanceof TahoeFileIndex delta) {
+                inputs.add("delta:" + delta.path() + "@" + delta.version());
+                return true;
+            }
+            if (plan instanceof LocalRelation || plan instanceof Range || plan instanceof OneRowRelation) {
+                inputs.add("local:" + plan.semanticHash());
+                return true;
+            }
+            return false;
+        }
+        
+        for (LogicalPlan child : children) {
+            if (!collectInputs(child, inputs)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean cacheable(Expression expression, List<String> inputs) {
+        if (!expression.deterministic() || expression instanceof CurrentTimestampLike
+                || expression instanceof CurrentDate || expression instanceof LocalTimestamp) {
+            return false;
+        }
+        if (expression instanceof SubqueryExpression subquery && !collectInputs(subquery.plan(), inputs)) {
+            return false;
+        }
+        for (Expression child : JavaConverters.seqAsJavaList(expression.children())) {
+            if (!cacheable(child, inputs)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public record CachedResult(List<Map<String, Object>> rows, long bytes, LocalDateTime cachedAt) {
+    }
+    
+    /**
+     * One tenant's entries in access order, trimmed to the byte budget
+     */
+    private static class TenantCache {
+        
+        private final LinkedHashMap<String, CachedResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+        
+        synchronized CachedResult get(String key) {
+            return entries.get(key);
+        }
+        
+        synchronized void put(String key, CachedResult result, long maxBytes) {
+            CachedResult previous = entries.put(key, result);
+            bytes += result.bytes() - (previous != null ? previous.bytes() : 0);
+            
+            Iterator<CachedResult> it = entries.values().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                bytes -= it.next().bytes();
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.kadali.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kadali.dto.UploadInitRequest;
+import com.kadali.entity.IngestedFile;
+import com.kadali.storage.UploadStorage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable chunked uploads straight into object storage.
+ *
+ * A session manifest lives next to the parts in storage, so an upload can be
+ * resumed (GET the session, re-send missing parts) even after an API restart.
+ * Completing claims the upload in upload_loads under a lease renewed while
+ * the load runs, so concurrent completes load it once and a load cut short
+ * by a crash can be completed again. A failed complete leaves the upload OPEN.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChunkedUploadService {
+    
+    private static final int MAX_PARTS = 10000;
+    
+    private final UploadStorage uploadStorage;
+    private final DataConnectorService connectorService;
+    private final IngestionManifestService ingestionManifest;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Value("${kadali.uploads.part-size:67108864}")
+    private long defaultPartSize;
+    
+    @Value("${kadali.uploads.load-lease-minutes:10}")
+    private long loadLeaseMinutes;
+    
+    // Uploads this instance is loading, to renew their leases
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    
+    public UploadSession createSession(String tenantId, UploadInitRequest request) {
+        String lowerName = request.getFileName().toLowerCase();
+        if (lowerName.endsWith(".zip") || lowerName.endsWith(".zst")) {
+            // Staged files are read by Spark in place; only Hadoop codecs (gz, bz2) work there
+            throw new IllegalArgumentException("zip and zstd files must be sent to /upload; use gzip or bzip2 here");
+        }
+        
+        String uploadId = "upload-" + UUID.randomUUID();
+        long partSize = Math.max(defaultPartSize, uploadStorage.minPartSize());
+        if (request.getTotalSize() != null) {
+            // Grow parts for very large files so they fit within the part limit
+            partSize = Math.max(partSize, (request.getTotalSize() + MAX_PARTS - 1) / MAX_PARTS);
+        }
+        
+        UploadSession session = UploadSession.builder()
+                .uploadId(uploadId)
+                .tenantId(tenantId)
+                .fileName(sanitizeFileName(request.getFileName()))
+                .database(request.getDatabase())
+                .tableName(request.getTableName())
+                .format(request.getFormat().toLowerCase())
+                .totalSize(request.getTotalSize())
+                .partSize(partSize)
+                .force(request.isForce())
+                .status("OPEN")
+                .createdAt(LocalDateTime.now())
+                .build();
+        
+        writeSession(session);
+        log.info("Upload session created: {} for {}.{}", uploadId, request.getDatabase(), request.getTableName());
+        return session;
+    }
+    
+    public UploadSession getSession(String tenantId, String uploadId) {
+        UploadSession session = readSession(tenantId, uploadId);
+        session.setReceivedParts(new TreeMap<>(uploadStorage.listParts(uploadId)));
+        return session;
+    }
+    
+    public void uploadPart(String tenantId, String uploadId, int partNumber,
+                           InputStream data, long size) {
+        UploadSession session = readSession(tenantId, uploadId);
+        if (!"OPEN".equals(session.getStatus())) {
+            throw new IllegalStateException("Upload is not open: " + uploadId);
+        }
+        if (partNumber < 1 || partNumber > MAX_PARTS) {
+            throw new IllegalArgumentException("Part number must be between 1 and " + MAX_PARTS);
+        }
+        
+        uploadStorage.putPart(uploadId, partNumber, data, size);
+        log.debug("Upload {} received part {} ({} bytes)", uploadId, partNumber, size);
+    }
+    
+    /**
+     * Assemble the parts and load the staged file into a Delta table, unless
+     * identical content was already ingested into it. LOADING uploads can be
+     * completed again once the load that claimed them is gone.
+     */
+    public UploadSession complete(String tenantId, String uploadId) throws IOException {
+        UploadSession session = readSession(tenantId, uploadId);
+        if (!"OPEN".equals(session.getStatus()) && !"LOADING".equals(session.getStatus())) {
+            throw new IllegalStateException("Upload is not open: " + uploadId);
+        }
+        if (!claim(uploadId)) {
+            throw new IllegalStateException("Upload is already being completed: " + uploadId);
+        }
+        
+        loading.add(uploadId);
+        try {
+            UploadSession completed = load(tenantId, session);
+            jdbcTemplate.update("UPDATE upload_loads SET completed_at = ? WHERE upload_id = ?",
+                    Timestamp.valueOf(LocalDateTime.now()), uploadId);
+            return completed;
+        } catch (IOException | RuntimeException e) {
+            // Back to OPEN: parts can be re-sent and complete retried
+            session.setStatus("OPEN");
+            session.setErrorMessage(e.getMessage());
+            writeSession(session);
+            jdbcTemplate.update("DELETE FROM upload_loads WHERE upload_id = ?", uploadId);
+            throw e;
+        } finally {
+            loading.remove(uploadId);
+        }
+    }
+    
+    private UploadSession load(String tenantId, UploadSession session) throws IOException {
+        String uploadId = session.getUploadId();
+        TreeMap<Integer, Long> parts = new TreeMap<>(uploadStorage.listParts(uploadId));
+        validateParts(session, parts);
+        
+        session.setContentHash(contentHash(uploadId, parts.size()));
+        Optional<IngestedFile> prior = ingestionManifest.findPrior(tenantId, session.getContentHash(),
+                session.getDatabase(), session.getTableName());
+        if (prior.isPresent() && !session.isForce()) {
+            log.info("Upload {} skipped: identical content was ingested into {}.{} at {}", uploadId,
+                    session.getDatabase(), session.getTableName(), prior.get().getLastIngestedAt());
+            uploadStorage.delete(uploadId);
+            session.setStatus("SKIPPED");
+            session.setDuplicateOf(prior.get());
+            session.setCompletedAt(LocalDateTime.now());
+            return session;
+        }
+        
+        session.setStatus("LOADING");
+        session.setErrorMessage(null);
+        writeSession(session);
+        
+        String stagedPath = uploadStorage.assemble(uploadId, session.getFileName(), parts.size());
+        connectorService.saveStagedFileToDelta(stagedPath, session.getFileName(), tenantId,
+                session.getDatabase(), session.getTableName(), session.getFormat());
+        
+        ingestionManifest.record(tenantId, session.getContentHash(), session.getFileName(),
+                parts.values().stream().mapToLong(Long::longValue).sum(),
+                session.getDatabase(), session.getTableName(), session.getFormat());
+        
+        session.setStatus("COMPLETED");
+        session.setCompletedAt(LocalDateTime.now());
+        log.info("Upload {} loaded into {}.{}", uploadId, session.getDatabase(), session.getTableName());
+        
+        // The Delta table now owns the data; drop the staged copy
+        uploadStorage.delete(uploadId);
+        return session;
+    }
+    
+    /**
+     * Take the upload for one load; false while another load holds an unexpired
+     * lease on it, or once it completed
+     */
+    private boolean claim(String uploadId) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.update("INSERT INTO upload_loads (upload_id, locked_until) VALUES (?, ?) " +
+                        "ON CONFLICT (upload_id) DO UPDATE SET locked_until = EXCLUDED.locked_until " +
+                        "WHERE upload_loads.locked_until < ? AND upload_loads.completed_at IS NULL",
+                uploadId, Timestamp.valueOf(now.plusMinutes(loadLeaseMinutes)), Timestamp.valueOf(now)) > 0;
+    }
+    
+    /**
+     * Keep the leases of this instance's loads ahead of expiry
+     */
+    @Scheduled(fixedDelayString = "${kadali.uploads.load-lease-renew-ms:60000}")
+    public void renewLeases() {
+        Timestamp lockedUntil = Timestamp.valueOf(LocalDateTime.now().plusMinutes(loadLeaseMinutes));
+        for (String uploadId : loading) {
+            try {
+                jdbcTemplate.update("UPDATE upload_loads SET locked_until = ? WHERE upload_id = ?", lockedUntil, uploadId);
+            } catch (Exception e) {
+                log.warn("Failed to renew lease of upload {}", uploadId, e);
+            }
+        }
+    }
+    
+    public void abort(String tenantId, String uploadId) {
+        readSession(tenantId, uploadId);
+        uploadStorage.delete(uploadId);
+        log.info("Upload aborted: {}", uploadId);
+    }
+    
+    /**
+     * SHA-256 of the assembled file, streamed over the parts in order. Parts
+     * arrive in any order and in parallel, so no running digest exists before
+     * completion; the hash equals that of a direct upload or a client's
+     * sha256sum of the same file, whatever the part size.
+     */
+    private String contentHash(String uploadId, int partCount) throws IOException {
+        MessageDigest digest = IngestionManifestService.sha256();
+        for (int i = 1; i <= partCount; i++) {
+            try (InputStream part = new DigestInputStream(uploadStorage.openPart(uploadId, i), digest)) {
+                part.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        return IngestionManifestService.hex(digest);
+    }
+    
+    private void validateParts(UploadSession session, TreeMap<Integer, Long> parts) {
+        if (parts.isEmpty()) {
+            throw new IllegalStateException("No parts uploaded");
+        }
+        if (parts.lastKey() != parts.size()) {
+            throw new IllegalStateException("Missing parts: expected 1.." + parts.lastKey()
+                    + " but received " + parts.keySet());
+        }
+        
+        long total = 0;
+        for (Map.Entry<Integer, Long> part : parts.entrySet()) {
+            if (!part.getKey().equals(parts.lastKey()) && part.getValue() < uploadStorage.minPartSize()) {
+                throw new IllegalStateException("Part " + part.getKey() + " is smaller than the minimum of "
+                        + uploadStorage.minPartSize() + " bytes");
+            }
+            total += part.getValue();
+        }
+        
+        if (session.getTotalSize() != null && total != session.getTotalSize()) {
+            throw new IllegalStateException(String.format(
+                    "Received %d bytes but the upload declared %d", total, session.getTotalSize()));
+        }
+    }
+    
+    private UploadSession readSession(String tenantId, String uploadId) {
+        byte[] manifest = uploadStorage.getManifest(uploadId);
+        if (manifest == null) {
+            throw new RuntimeException("Upload not found: " + uploadId);
+        }
+        try {
+            UploadSession session = objectMapper.readValue(manifest, UploadSession.class);
+            if (!session.getTenantId().equals(tenantId)) {
+                throw new RuntimeException("Upload not found: " + uploadId);
+            }
+            return session;
+        } catch (IOException e) {
+            throw new RuntimeException("Corrupt upload manifest: " + uploadId, e);
+        }
+    }
+    
+    private void writeSession(UploadSession session) {
+        try {
+            UploadSession stored = session.toBuilder().receivedParts(null).build();
+            uploadStorage.putManifest(session.getUploadId(), objectMapper.writeValueAsBytes(stored));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write upload manifest: " + session.getUploadId(), e);
+        }
+    }
+    
+    // Client file names end up in object keys and Spark paths
+    private static String sanitizeFileName(String fileName) {
+        String base = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1);
+        String safe = base.replaceAll("[^A-Za-z0-9._-]", "_");
+        return safe.isEmpty() || safe.startsWith(".") ? "upload" + safe : safe;
+    }
+    
+    @lombok.Data
+    @lombok.Builder(toBuilder = true)
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class UploadSession {
+        private String uploadId;
+        private String tenantId;
+        private String fileName;
+        private String database;
+        private String tableName;
+        private String format;
+        private Long totalSize;
+        private long partSize;
+        private boolean force;
+        private String status; // OPEN, LOADING, COMPLETED, SKIPPED
+        private String contentHash;
+        private IngestedFile duplicateOf;
+        private Map<Integer, Long> receivedParts;
+        private String errorMessage;
+        private LocalDateTime createdAt;
+        private LocalDateTime completedAt;
+    }
+}
@@ -0,0 +1,114 @@
+package com.kadali.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind last activity of Spark clusters.
+ *
+ * Statements routed to a cluster mark it active when they start and finish,
+ * and count as in flight meanwhile, so a long query keeps its cluster alive.
+ * A periodic flush writes every cluster active since the last flush in one
+ * batched UPDATE of last_activity_at; clusters with statements in flight are
+ * written as active now.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterActivityTracker {
+    
+    private static final String FLUSH_SQL = "UPDATE spark_clusters SET " +
+            "last_activity_at = GREATEST(COALESCE(last_activity_at, ?), ?) " +
+            "WHERE cluster_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final Map<String, Activity> activity = new ConcurrentHashMap<>();
+    
+    public void touch(String clusterId) {
+        activity.computeIfAbsent(clusterId, id -> new Activity())
+                .lastActiveAt.accumulateAndGet(System.currentTimeMillis(), Math::max);
+    }
+    
+    /**
+     * A statement started on the cluster; pair with {@link #end}
+     */
+    public void begin(String clusterId) {
+        Activity current = activity.computeIfAbsent(clusterId, id -> new Activity());
+        current.inFlight.incrementAndGet();
+        current.lastActiveAt.accumulateAndGet(System.currentTimeMillis(), Math::max);
+    }
+    
+    public void end(String clusterId) {
+        Activity current = activity.get(clusterId);
+        if (current != null) {
+            current.inFlight.decrementAndGet();
+        }
+        touch(clusterId);
+    }
+    
+    public boolean isBusy(String clusterId) {
+        Activity current = activity.get(clusterId);
+        return current != null && current.inFlight.get() > 0;
+    }
+    
+    /**
+     * Drop a terminated cluster
+     */
+    public void forget(String clusterId) {
+        activity.remove(clusterId);
+    }
+    
+    @Scheduled(fixedDelayString = "${kadali.spark.idle.activity-flush-ms:10000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        List<Activity> flushed = new ArrayList<>();
+        List<Long> flushedAt = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        activity.forEach((clusterId, current) -> {
+            long activeAt = current.inFlight.get() > 0 ? now : current.lastActiveAt.get();
+            if (activeAt > current.flushedAt) {
+                Timestamp timestamp = new Timestamp(activeAt);
+                flushed.add(current);
+                flushedAt.add(activeAt);
+                batch.add(new Object[]{timestamp, timestamp, clusterId});
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+        
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).flushedAt = flushedAt.get(i);
+            }
+            log.debug("Flushed activity of {} clusters", batch.size());
+        } catch (Exception e) {
+            log.warn("Failed to flush activity of {} clusters, retrying next flush", batch.size(), e);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+    
+    private static class Activity {
+        private final AtomicLong lastActiveAt = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long flushedAt;
+    }
+}
@@ -0,0 +1,140 @@
+package com.kadali.service;
+
+import com.kadali.entity.ClusterOperation;
+import com.kadali.repository.ClusterOperationRepository;
+import com.kadali.repository.SparkClusterRepository;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Runs queued cluster operations (create, terminate) off the request thread.
+ *
+ * Operations are rows in cluster_operations, so they survive restarts and can
+ * be polled. A poller claims due operations with a lease and hands them to a
+ * fixed worker pool; a worker that dies leaves the lease to expire and the
+ * operation is picked up again. Failures are retried with exponential backoff
+ * until max-attempts, after which the operation and its cluster are failed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterOperationService {
+    
+    private final ClusterOperationRepository operationRepository;
+    private final SparkClusterRepository clusterRepository;
+    private final SparkClusterService clusterService;
+    
+    @Value("${kadali.spark.provisioning.workers:8}")
+    private int workers;
+    
+    // Longer than any single Kubernetes call sequence of one attempt
+    @Value("${kadali.spark.provisioning.lease-seconds:300}")
+    private long leaseSeconds;
+    
+    @Value("${kadali.spark.provisioning.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${kadali.spark.provisioning.backoff-seconds:5}")
+    private long backoffSeconds;
+    
+    @Value("${kadali.spark.provisioning.max-backoff-seconds:300}")
+    private long maxBackoffSeconds;
+    
+    private ThreadPoolExecutor pool;
+    
+    @PostConstruct
+    public void init() {
+        pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "cluster-operation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        // Claimed but unfinished operations are retried once their lease expires
+        pool.shutdownNow();
+    }
+    
+    /**
+     * Claim due operations, as many as there are idle workers
+     */
+    @Scheduled(fixedDelayString = "${kadali.spark.provisioning.poll-interval-ms:1000}")
+    public void dispatch() {
+        int idle = workers - pool.getActiveCount() - pool.getQueue().size();
+        if (idle <= 0) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<String> due = operationRepository.findDue(now, PageRequest.of(0, idle));
+        for (String operationId : due) {
+            if (operationRepository.claim(operationId, now, now.plusSeconds(leaseSeconds)) == 0) {
+                continue; // Taken by another instance
+            }
+            pool.submit(() -> run(operationId));
+        }
+    }
+    
+    private void run(String operationId) {
+        ClusterOperation operation = operationRepository.findByOperationId(operationId).orElse(null);
+        if (operation == null) {
+            return;
+        }
+        String clusterId = operation.getClusterId();
+        
+        try {
+            switch (operation.getOperationType()) {
+                case CREATE -> clusterService.provisionCluster(clusterId);
+                case TERMINATE -> clusterService.deprovisionCluster(clusterId);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            operationRepository.finish(operationId, ClusterOperation.OperationStatus.SUCCEEDED, null, now, now);
+            log.info("Cluster operation {} ({} {}) succeeded", operationId, operation.getOperationType(), clusterId);
+            
+        } catch (Exception e) {
+            LocalDateTime now = LocalDateTime.now();
+            if (!isRetryable(e) || operation.getAttempts() >= maxAttempts) {
+                log.error("Cluster operation {} ({} {}) failed after {} attempts",
+                        operationId, operation.getOperationType(), clusterId, operation.getAttempts(), e);
+                operationRepository.finish(operationId, ClusterOperation.OperationStatus.FAILED,
+                        e.getMessage(), now, now);
+                clusterRepository.markFailed(clusterId);
+                return;
+            }
+            
+            long delay = Math.min(maxBackoffSeconds, backoffSeconds << Math.min(operation.getAttempts() - 1, 16));
+            log.warn("Cluster operation {} ({} {}) failed, attempt {} of {}, retrying in {}s: {}",
+                    operationId, operation.getOperationType(), clusterId,
+                    operation.getAttempts(), maxAttempts, delay, e.getMessage());
+            operationRepository.finish(operationId, ClusterOperation.OperationStatus.PENDING,
+                    e.getMessage(), now.plusSeconds(delay), null);
+        }
+    }
+    
+    // Rejected requests (bad spec, forbidden, not found) will fail the same way again
+    private static boolean isRetryable(Exception e) {
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof KubernetesClientException kubernetesError) {
+                int code = kubernetesError.getCode();
+                return code == 0 || code == 409 || code == 429 || code >= 500;
+            }
+            cause = cause.getCause();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,302 @@
+package com.kadali.service;
+
+import com.kadali.entity.SparkCluster;
+import com.kadali.repository.SparkClusterRepository;
+import com.kadali.spark.K8sSparkClusterManager;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hive.jdbc.HiveDriver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends SQL to the Spark cluster it belongs to instead of the embedded session.
+ *
+ * Each running cluster's driver serves SQL on its Thrift JDBC port. A Thrift
+ * connection is a Spark session on the driver, so a notebook gets a dedicated
+ * connection kept across its cells (temp views and SQL conf persist, as with
+ * {@link NotebookSessionManager}) and closed when idle or released. Ad hoc
+ * queries borrow from a small per-cluster pool. Every statement is reported
+ * to {@link ClusterActivityTracker}, which keeps the cluster from idling out.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterSessionRouter {
+    
+    private final SparkClusterRepository clusterRepository;
+    private final ObjectProvider<K8sSparkClusterManager> k8sManager;
+    private final ClusterActivityTracker activityTracker;
+    
+    private final Map<String, HikariDataSource> pools = new ConcurrentHashMap<>();
+    private final Map<String, NotebookConnection> notebookConnections = new ConcurrentHashMap<>();
+    
+    @Value("${kadali.notebooks.sessions.idle-timeout-minutes:60}")
+    private long idleTimeoutMinutes;
+    
+    // Set to reach every cluster on one host, e.g. localhost for a local Thrift server or port-forward
+    @Value("${kadali.spark.connect.host-override:}")
+    private String hostOverride;
+    
+    @Value("${kadali.spark.connect.sql-port:" + K8sSparkClusterManager.SQL_PORT + "}")
+    private int sqlPort;
+    
+    @Value("${kadali.spark.connect.pool-size:8}")
+    private int poolSize;
+    
+    /**
+     * Run a query in the notebook's session on the cluster, which must belong
+     * to the notebook's tenant
+     */
+    public RemoteResult queryForNotebook(String notebookId, Long tenantKey, Long clusterKey, String sql, int maxRows) {
+        SparkCluster cluster = clusterRepository.findWithTenant(clusterKey)
+                .filter(found -> found.getTenant().getId().equals(tenantKey))
+                .orElseThrow(() -> new RuntimeException("Attached cluster not found"));
+        NotebookConnection pinned = notebookConnections.get(notebookId);
+        while (pinned == null || !pinned.clusterId.equals(cluster.getClusterId())) {
+            // Connect outside the map; a slow handshake must not block other notebooks
+            NotebookConnection opened = connect(notebookId, cluster);
+            boolean published = pinned == null
+                    ? notebookConnections.putIfAbsent(notebookId, opened) == null
+                    : notebookConnections.replace(notebookId, pinned, opened);
+            if (published) {
+                closeQuietly(pinned);
+                pinned = opened;
+            } else {
+                // Another cell got there first
+                closeQuietly(opened);
+                pinned = notebookConnections.get(notebookId);
+            }
+        }
+        
+        pinned.lastUsedAt = LocalDateTime.now();
+        // One statement at a time per session
+        synchronized (pinned) {
+            activityTracker.begin(pinned.clusterId);
+            try {
+                return execute(pinned.connection, sql, maxRows, pinned);
+            } catch (SQLException e) {
+                if (!isValid(pinned.connection)) {
+                    notebookConnections.remove(notebookId, pinned);
+                    closeQuietly(pinned);
+                }
+                throw new RuntimeException(e.getMessage(), e);
+            } finally {
+                // Idle time counts from the end of the statement, not its start
+                pinned.lastUsedAt = LocalDateTime.now();
+                activityTracker.end(pinned.clusterId);
+            }
+        }
+    }
+    
+    /**
+     * Run a query in a pooled session on one of the tenant's clusters
+     */
+    public RemoteResult query(String tenantId, String clusterId, String sql, int maxRows) {
+        SparkCluster cluster = clusterRepository.findByClusterIdWithTenant(clusterId)
+                .filter(found -> found.getTenant().getTenantId().equals(tenantId))
+                .orElseThrow(() -> new RuntimeException("Cluster not found: " + clusterId));
+        activityTracker.begin(clusterId);
+        try (Connection connection = pool(cluster).getConnection()) {
+            return execute(connection, sql, maxRows, null);
+        } catch (SQLException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } finally {
+            activityTracker.end(clusterId);
+        }
+    }
+    
+    /**
+     * Cancel the statement the notebook is running on its cluster, if any
+     */
+    public void cancelNotebook(String notebookId) {
+        NotebookConnection pinned = notebookConnections.get(notebookId);
+        Statement running = pinned != null ? pinned.running : null;
+        if (running == null) {
+            return;
+        }
+        try {
+            running.cancel();
+            log.info("Cancelled statement of notebook {} on cluster {}", notebookId, pinned.clusterId);
+        } catch (SQLException e) {
+            log.warn("Failed to cancel statement of notebook {} on cluster {}", notebookId, pinned.clusterId, e);
+        }
+    }
+    
+    /**
+     * Close the notebook's remote session, dropping its temp views
+     */
+    public void releaseNotebook(String notebookId) {
+        closeQuietly(notebookConnections.remove(notebookId));
+    }
+    
+    /**
+     * Close every session on the cluster, before it is terminated
+     */
+    public void closeCluster(String clusterId) {
+        notebookConnections.entrySet().removeIf(entry -> {
+            if (entry.getValue().clusterId.equals(clusterId)) {
+                closeQuietly(entry.getValue());
+                return true;
+            }
+            return false;
+        });
+        HikariDataSource pool = pools.remove(clusterId);
+        if (pool != null) {
+            pool.close();
+            log.info("Closed session pool for cluster {}", clusterId);
+        }
+    }
+    
+    @Scheduled(fixedDelay = 60000)
+    public void closeIdleSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(idleTimeoutMinutes);
+        notebookConnections.entrySet().removeIf(entry -> {
+            // A long statement is not idleness
+            if (entry.getValue().running == null && entry.getValue().lastUsedAt.isBefore(cutoff)) {
+                log.info("Closing idle session of notebook {} on cluster {}", entry.getKey(), entry.getValue().clusterId);
+                closeQuietly(entry.getValue());
+                return true;
+            }
+            return false;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        notebookConnections.values().forEach(this::closeQuietly);
+        notebookConnections.clear();
+        pools.values().forEach(HikariDataSource::close);
+        pools.clear();
+    }
+    
+    private HikariDataSource pool(SparkCluster cluster) {
+        if (cluster.getStatus() != SparkCluster.ClusterStatus.RUNNING) {
+            throw new RuntimeException("Cluster is not running: " + cluster.getClusterId());
+        }
+        return pools.computeIfAbsent(cluster.getClusterId(), clusterId -> {
+            String host = hostOverride.isBlank() ? driverHost(cluster) : hostOverride;
+            
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("spark-" + clusterId);
+            config.setDriverClassName("org.apache.hive.jdbc.HiveDriver");
+            config.setJdbcUrl("jdbc:hive2://" + host + ":" + sqlPort + "/default");
+            config.setMaximumPoolSize(poolSize);
+            config.setMinimumIdle(0);
+            log.info("Opening session pool for cluster {} at {}:{}", clusterId, host, sqlPort);
+            return new HikariDataSource(config);
+        });
+    }
+    
+    private NotebookConnection connect(String notebookId, SparkCluster cluster) {
+        try {
+            Connection connection = new HiveDriver().connect(pool(cluster).getJdbcUrl(), new Properties());
+            log.info("Opened session for notebook {} on cluster {}", notebookId, cluster.getClusterId());
+            return new NotebookConnection(cluster.getClusterId(), connection);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to open session on cluster " + cluster.getClusterId(), e);
+        }
+    }
+    
+    private String driverHost(SparkCluster cluster) {
+        K8sSparkClusterManager manager = k8sManager.getIfAvailable();
+        if (manager == null) {
+            throw new RuntimeException("Kubernetes is disabled and no cluster host override is set");
+        }
+        String host = manager.getDriverHost(cluster.getClusterId(), cluster.getTenant().getTenantId());
+        if (host == null) {
+            throw new RuntimeException("Driver of cluster " + cluster.getClusterId() + " has no address yet");
+        }
+        return host;
+    }
+    
+    // The statement is published on the notebook's connection while it runs, for cancelNotebook
+    private static RemoteResult execute(Connection connection, String sql, int maxRows,
+                                        NotebookConnection pinned) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (pinned != null) {
+                pinned.running = statement;
+            }
+            if (maxRows > 0) {
+                statement.setMaxRows(maxRows);
+            }
+            if (!statement.execute(sql)) {
+                return new RemoteResult(List.of(), List.of());
+            }
+            try (ResultSet resultSet = statement.getResultSet()) {
+                ResultSetMetaData meta = resultSet.getMetaData();
+                List<String> columns = new ArrayList<>();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    columns.add(meta.getColumnLabel(i));
+                }
+                
+                List<Map<String, Object>> rows = new ArrayList<>();
+                while (resultSet.next() && (maxRows <= 0 || rows.size() < maxRows)) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int i = 1; i <= columns.size(); i++) {
+                        row.put(columns.get(i - 1), resultSet.getObject(i));
+                    }
+                    rows.add(row);
+                }
+                return new RemoteResult(columns, rows);
+            }
+        } finally {
+            if (pinned != null) {
+                pinned.running = null;
+            }
+        }
+    }
+    
+    private static boolean isValid(Connection connection) {
+        try {
+            return !connection.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+    
+    private void closeQuietly(NotebookConnection pinned) {
+        if (pinned == null) {
+            return;
+        }
+        try {
+            // Ends the session on the driver, with its temp views
+            pinned.connection.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close session on cluster {}", pinned.clusterId, e);
+        }
+    }
+    
+    private static class NotebookConnection {
+        private final String clusterId;
+        private final Connection connection;
+        private volatile LocalDateTime lastUsedAt = LocalDateTime.now();
+        private volatile Statement running;
+        
+        NotebookConnection(String clusterId, Connection connection) {
+            this.clusterId = clusterId;
+            this.connection = connection;
+        }
+    }
+    
+    public record RemoteResult(List<String> columns, List<Map<String, Object>> rows) {
+    }
+}
@@ -0,0 +1,180 @@
+package com.kadali.service;
+
+import com.kadali.entity.SparkCluster;
+import com.kadali.spark.ClusterPodInformer;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drives cluster status from the watched driver pods.
+ *
+ * A cluster is CREATING until its driver pod is running and ready (the SQL
+ * endpoint accepts connections), then RUNNING; a RUNNING driver that stops
+ * being ready goes back to CREATING until it is ready again. A failed,
+ * crash-looping, unpullable or vanished driver makes it ERROR. Only changes
+ * from the last status written are queued, so informer resyncs cost nothing.
+ * Observations are coalesced per cluster and written in one batched UPDATE;
+ * only CREATING and RUNNING clusters are moved, so terminations are never
+ * overwritten. An update that matches no row is retried for a short while
+ * only if the cluster does not exist yet (its insert not committed).
+ */
+@Service
+@ConditionalOnProperty(name = "kadali.kubernetes.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterStatusReconciler {
+    
+    private static final String UPDATE_SQL = "UPDATE spark_clusters SET status = ?, " +
+            "spark_ui_url = COALESCE(?, spark_ui_url), started_at = COALESCE(started_at, ?) " +
+            "WHERE cluster_id = ? AND status IN ('CREATING', 'RUNNING')";
+    
+    private static final Set<String> FAILED_WAITING_REASONS = Set.of(
+            "ErrImagePull", "ImagePullBackOff", "CrashLoopBackOff",
+            "CreateContainerConfigError", "InvalidImageName");
+    
+    private static final Duration RETRY_WINDOW = Duration.ofMinutes(2);
+    
+    private final ClusterPodInformer podInformer;
+    private final JdbcTemplate jdbcTemplate;
+    
+    // Latest observation per cluster, waiting for the next flush
+    private final Map<String, Observed> pending = new ConcurrentHashMap<>();
+    // Status last written, or found settled, per cluster with a driver pod
+    private final Map<String, SparkCluster.ClusterStatus> written = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        podInformer.addDriverListener(this::observe);
+    }
+    
+    private void observe(String clusterId, Pod pod) {
+        SparkCluster.ClusterStatus status = statusOf(pod);
+        if (pod != null && status == written.get(clusterId)) {
+            // Unchanged, e.g. a resync; also drops a change reverted before the flush
+            pending.remove(clusterId);
+            return;
+        }
+        String sparkUiUrl = status == SparkCluster.ClusterStatus.RUNNING
+                ? "http://" + pod.getStatus().getPodIP() + ":4040" : null;
+        pending.put(clusterId, new Observed(status, sparkUiUrl, pod == null, LocalDateTime.now()));
+    }
+    
+    @Scheduled(fixedDelayString = "${kadali.spark.informer.status-flush-ms:2000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<String> clusterIds = new ArrayList<>();
+        List<Observed> observations = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        pending.forEach((clusterId, observed) -> {
+            clusterIds.add(clusterId);
+            observations.add(observed);
+            batch.add(new Object[]{observed.status.name(), observed.sparkUiUrl,
+                    observed.status == SparkCluster.ClusterStatus.RUNNING ? Timestamp.valueOf(observed.at) : null,
+                    clusterId});
+        });
+        
+        try {
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+            List<String> unmatched = new ArrayList<>();
+            for (int i = 0; i < clusterIds.size(); i++) {
+                if (counts[i] == 0) {
+                    unmatched.add(clusterIds.get(i));
+                }
+            }
+            Set<String> existing = existingClusters(unmatched);
+            
+            LocalDateTime retryCutoff = LocalDateTime.now().minus(RETRY_WINDOW);
+            for (int i = 0; i < clusterIds.size(); i++) {
+                String clusterId = clusterIds.get(i);
+                Observed observed = observations.get(i);
+                if (counts[i] > 0 && observed.status != written.get(clusterId)) {
+                    log.info("Cluster {} is {}", clusterId, observed.status);
+                }
+                // Matched, or moved on (terminating, terminated): settled. Otherwise keep
+                // it for a while, the cluster's row may not be committed yet.
+                if (counts[i] > 0 || existing.contains(clusterId)) {
+                    settle(clusterId, observed);
+                } else if (observed.at.isBefore(retryCutoff)) {
+                    pending.remove(clusterId, observed);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to write status of {} clusters, retrying next flush", batch.size(), e);
+        }
+    }
+    
+    private void settle(String clusterId, Observed observed) {
+        if (pending.remove(clusterId, observed)) {
+            if (observed.deleted) {
+                written.remove(clusterId);
+            } else {
+                written.put(clusterId, observed.status);
+            }
+        }
+    }
+    
+    private Set<String> existingClusters(List<String> clusterIds) {
+        if (clusterIds.isEmpty()) {
+            return Set.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(clusterIds.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT cluster_id FROM spark_clusters WHERE cluster_id IN (" + placeholders + ")",
+                String.class, clusterIds.toArray()));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+    
+    /**
+     * Cluster status implied by its driver pod (null once deleted)
+     */
+    static SparkCluster.ClusterStatus statusOf(Pod pod) {
+        if (pod == null || pod.getStatus() == null) {
+            return pod == null ? SparkCluster.ClusterStatus.ERROR : SparkCluster.ClusterStatus.CREATING;
+        }
+        String phase = pod.getStatus().getPhase();
+        if ("Failed".equals(phase) || "Succeeded".equals(phase)) {
+            return SparkCluster.ClusterStatus.ERROR;
+        }
+        List<ContainerStatus> containers = pod.getStatus().getContainerStatuses();
+        if (containers == null || containers.isEmpty()) {
+            return SparkCluster.ClusterStatus.CREATING;
+        }
+        for (ContainerStatus container : containers) {
+            if (container.getState() != null && container.getState().getWaiting() != null
+                    && FAILED_WAITING_REASONS.contains(container.getState().getWaiting().getReason())) {
+                return SparkCluster.ClusterStatus.ERROR;
+            }
+        }
+        boolean ready = containers.stream().allMatch(container -> Boolean.TRUE.equals(container.getReady()));
+        return "Running".equals(phase) && ready && pod.getStatus().getPodIP() != null
+                ? SparkCluster.ClusterStatus.RUNNING : SparkCluster.ClusterStatus.CREATING;
+    }
+    
+    private record Observed(SparkCluster.ClusterStatus status, String sparkUiUrl, boolean deleted, LocalDateTime at) {
+    }
+}
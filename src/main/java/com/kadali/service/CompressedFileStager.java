@@ -0,0 +1,329 @@
+package com.kadali.service;
+
+import com.github.luben.zstd.ZstdInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Prepares compressed uploads for a parallel Spark read without ever writing
+ * the expanded data to disk.
+ *
+ * bzip2 is splittable and is read by Spark as is. gzip, zstd and zip archives
+ * are decompressed as a stream and re-split on record boundaries into fast
+ * gzip chunks, one Spark task each; the CSV header is repeated per chunk.
+ * Records are cut at newlines, so JSON must be line-delimited (JSON Lines),
+ * which is also all the JSON reader accepts; multiline JSON is not supported.
+ *
+ * Expansion is capped in total size and in ratio to the compressed upload, and
+ * zip archives in entry count, so a decompression bomb is rejected while it
+ * streams instead of filling the work directory.
+ */
+@Service
+@Slf4j
+public class CompressedFileStager {
+    
+    private static final int BUFFER_BYTES = 1 << 16;
+    
+    @Value("${kadali.uploads.decompress-chunk-bytes:134217728}")
+    private long chunkBytes;
+    
+    // Below this, a single gzip file is one cheap task and is left alone
+    @Value("${kadali.uploads.gzip-rechunk-min-bytes:16777216}")
+    private long gzipRechunkMinBytes;
+    
+    @Value("${kadali.uploads.max-expanded-bytes:107374182400}")
+    private long maxExpandedBytes;
+    
+    @Value("${kadali.uploads.max-compression-ratio:200}")
+    private long maxCompressionRatio;
+    
+    @Value("${kadali.uploads.max-zip-entries:10000}")
+    private int maxZipEntries;
+    
+    public enum Compression { NONE, GZIP, BZIP2, ZSTD, ZIP }
+    
+    /**
+     * Detect compression from the magic bytes, falling back to the extension
+     */
+    public Compression detect(Path file, String fileName) throws IOException {
+        byte[] magic = new byte[4];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(magic, 0, magic.length);
+        }
+        
+        if (read >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+            return Compression.GZIP;
+        }
+        if (read >= 3 && magic[0] == 'B' && magic[1] == 'Z' && magic[2] == 'h') {
+            return Compression.BZIP2;
+        }
+        if (read == 4 && (magic[0] & 0xff) == 0x28 && (magic[1] & 0xff) == 0xb5
+                && (magic[2] & 0xff) == 0x2f && (magic[3] & 0xff) == 0xfd) {
+            return Compression.ZSTD;
+        }
+        if (read == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+            return Compression.ZIP;
+        }
+        
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        String extension = name.substring(name.lastIndexOf('.') + 1);
+        return switch (extension) {
+            case "gz" -> Compression.GZIP;
+            case "bz2" -> Compression.BZIP2;
+            case "zst" -> Compression.ZSTD;
+            case "zip" -> Compression.ZIP;
+            default -> Compression.NONE;
+        };
+    }
+    
+    /**
+     * @param file   the upload as received
+     * @param format csv, json (line-delimited) or parquet
+     * @param workDir empty directory for staged chunks
+     * @return path for Spark to read: the upload itself, a renamed copy, or a directory of chunks
+     */
+    public String stage(Path file, String fileName, String format, Path workDir) throws IOException {
+        Compression compression = detect(file, fileName);
+        boolean parquet = format.equalsIgnoreCase("parquet");
+        boolean csv = format.equalsIgnoreCase("csv");
+        boolean lineDelimited = csv || format.equalsIgnoreCase("json");
+        
+        if (compression != Compression.NONE && compression != Compression.ZIP && parquet) {
+            throw new IllegalArgumentException("Parquet is compressed internally; upload it uncompressed or in a zip");
+        }
+        if (!lineDelimited && !parquet && (compression == Compression.ZSTD || compression == Compression.ZIP)) {
+            // Only newline-separated records can be re-split
+            throw new IllegalArgumentException("Cannot stage " + compression + " compressed " + format + " uploads");
+        }
+        long expansionLimit = expansionLimit(file);
+        
+        switch (compression) {
+            case NONE:
+                return file.toString();
+                
+            case BZIP2:
+                // Hadoop picks the codec from the extension and splits bzip2 across tasks
+                return Files.move(file, workDir.resolve("data." + format + ".bz2")).toString();
+                
+            case GZIP:
+                if (Files.size(file) < gzipRechunkMinBytes || !lineDelimited) {
+                    return Files.move(file, workDir.resolve("data." + format + ".gz")).toString();
+                }
+                try (InputStream in = new ExpansionGuard(
+                        new GZIPInputStream(Files.newInputStream(file), BUFFER_BYTES), expansionLimit, fileName)) {
+                    int chunks = rechunk(in, csv, format, workDir, "data");
+                    log.info("Re-split gzip upload {} into {} chunks", fileName, chunks);
+                }
+                return workDir.toString();
+                
+            case ZSTD:
+                try (InputStream in = new ExpansionGuard(new ZstdInputStream(
+                        new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES)), expansionLimit, fileName)) {
+                    int chunks = rechunk(in, csv, format, workDir, "data");
+                    log.info("Re-split zstd upload {} into {} chunks", fileName, chunks);
+                }
+                return workDir.toString();
+                
+            case ZIP:
+                expandZip(file, fileName, format, csv, parquet, workDir, expansionLimit);
+                return workDir.toString();
+                
+            default:
+                throw new IllegalStateException("Unhandled compression: " + compression);
+        }
+    }
+    
+    private void expandZip(Path file, String fileName, String format, boolean csv, boolean parquet,
+                           Path workDir, long expansionLimit) throws IOException {
+        int entries = 0;
+        int seen = 0;
+        try (ZipInputStream zip = new ZipInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES))) {
+            // Counts across entries; each entry's stream ends at the entry, the guard does not
+            InputStream guarded = new ExpansionGuard(zip, expansionLimit, fileName);
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (++seen > maxZipEntries) {
+                    throw new IllegalArgumentException("Zip archive has more than " + maxZipEntries
+                            + " entries: " + fileName);
+                }
+                String name = entry.getName();
+                String baseName = name.substring(name.lastIndexOf('/') + 1);
+                if (entry.isDirectory() || name.startsWith("__MACOSX/") || baseName.startsWith(".")) {
+                    continue;
+                }
+                
+                String prefix = String.format("entry-%04d", entries++);
+                if (parquet) {
+                    Files.copy(guarded, workDir.resolve(prefix + ".parquet"));
+                } else {
+                    rechunk(guarded, csv, format, workDir, prefix);
+                }
+            }
+        }
+        
+        if (entries == 0) {
+            throw new IllegalArgumentException("Zip archive contains no files: " + fileName);
+        }
+        log.info("Expanded {} files from zip upload {}", entries, fileName);
+    }
+    
+    /**
+     * Most the upload may expand to: the size cap, or less for a small upload
+     * under the ratio cap (with a floor so tiny uploads of repetitive text pass)
+     */
+    private long expansionLimit(Path file) throws IOException {
+        long compressed = Math.max(Files.size(file), BUFFER_BYTES);
+        long byRatio = compressed > Long.MAX_VALUE / maxCompressionRatio ? Long.MAX_VALUE
+                : compressed * maxCompressionRatio;
+        return Math.min(maxExpandedBytes, byRatio);
+    }
+    
+    /**
+     * Split a decompressed stream into gzip chunks of about chunkBytes expanded
+     * size, cutting only at newlines outside CSV quotes
+     */
+    private int rechunk(InputStream in, boolean csv, String format, Path workDir, String prefix)
+            throws IOException {
+        byte[] buffer = new byte[BUFFER_BYTES];
+        byte[] header = csv ? readHeader(in) : null;
+        
+        int chunk = 0;
+        OutputStream out = null;
+        long written = 0;
+        boolean quoted = false;
+        
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+                    if (csv && b == '"') {
+                        quoted = !quoted;
+                    } else if (b == '\n' && !quoted && written + (i + 1 - start) >= chunkBytes) {
+                        out = ensureOpen(out, workDir, prefix, chunk, format, header);
+                        out.write(buffer, start, i + 1 - start);
+                        out.close();
+                        out = null;
+                        chunk++;
+                        written = 0;
+                        start = i + 1;
+                    }
+                }
+                if (start < read) {
+                    out = ensureOpen(out, workDir, prefix, chunk, format, header);
+                    out.write(buffer, start, read - start);
+                    written += read - start;
+                }
+            }
+        } finally {
+            if (out != null) {
+                out.close();
+                chunk++;
+            }
+        }
+        return chunk;
+    }
+    
+    private OutputStream ensureOpen(OutputStream out, Path workDir, String prefix, int chunk,
+                                    String format, byte[] header) throws IOException {
+        if (out != null) {
+            return out;
+        }
+        Path target = workDir.resolve(String.format("%s-%05d.%s.gz", prefix, chunk, format));
+        OutputStream gzip = new GZIPOutputStream(Files.newOutputStream(target), BUFFER_BYTES) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        };
+        if (header != null) {
+            gzip.write(header);
+        }
+        return gzip;
+    }
+    
+    /**
+     * First CSV line, including its newline, repeated at the top of every chunk
+     */
+    private byte[] readHeader(InputStream in) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        boolean quoted = false;
+        int b;
+        while ((b = in.read()) != -1) {
+            header.write(b);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                break;
+            }
+        }
+        return header.toByteArray();
+    }
+    
+    /**
+     * Counts expanded bytes and aborts the read once they pass the limit
+     */
+    private static class ExpansionGuard extends FilterInputStream {
+        
+        private final long limit;
+        private final String fileName;
+        private long expanded;
+        
+        ExpansionGuard(InputStream in, long limit, String fileName) {
+            super(in);
+            this.limit = limit;
+            this.fileName = fileName;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+        
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+        
+        private void count(long bytes) {
+            expanded += bytes;
+            if (expanded > limit) {
+                throw new IllegalArgumentException("Upload expands beyond " + limit
+                        + " bytes, past the size or compression ratio limit: " + fileName);
+            }
+        }
+    }
+}
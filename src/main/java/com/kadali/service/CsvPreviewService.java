@@ -0,0 +1,336 @@
+package com.kadali.service;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * CSV preview without Spark: reads only the first few hundred KB of the file,
+ * detects dialect, header and column types from that sample and estimates the
+ * row count from the file size.
+ */
+@Service
+@Slf4j
+public class CsvPreviewService {
+    
+    private static final char[] DELIMITER_CANDIDATES = {',', ';', '\t', '|'};
+    private static final int SAMPLE_ROWS_RETURNED = 20;
+    
+    private static final Pattern INTEGER = Pattern.compile("[-+]?\\d+");
+    private static final Pattern DECIMAL = Pattern.compile("[-+]?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?");
+    private static final Pattern BOOLEAN = Pattern.compile("(?i)true|false");
+    private static final Pattern DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    private static final Pattern TIMESTAMP = Pattern.compile(
+            "\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}(:\\d{2}(\\.\\d{1,9})?)?(Z|[+-]\\d{2}:?\\d{2})?");
+    
+    @Value("${kadali.uploads.preview-bytes:262144}")
+    private int previewBytes;
+    
+    /**
+     * @param totalSize file size in bytes, used to estimate the row count
+     * @param header    force header on/off, or null to detect it
+     */
+    public CsvPreview preview(InputStream input, long totalSize, Boolean header) throws IOException {
+        long start = System.nanoTime();
+        
+        byte[] sample = input.readNBytes(previewBytes);
+        boolean complete = sample.length < previewBytes || input.read() == -1;
+        String text = new String(sample, StandardCharsets.UTF_8);
+        if (text.startsWith("\uFEFF")) {
+            text = text.substring(1);
+        }
+        
+        char quote = detectQuote(text);
+        char delimiter = detectDelimiter(text, quote);
+        
+        Tokenized tokenized = tokenize(text, delimiter, quote, complete);
+        List<List<String>> records = tokenized.records();
+        if (records.isEmpty()) {
+            throw new IllegalArgumentException("No complete CSV row found in the first " + previewBytes + " bytes");
+        }
+        
+        int width = records.stream().mapToInt(List::size).max().orElse(0);
+        boolean hasHeader = header != null ? header : detectHeader(records);
+        List<List<String>> rows = hasHeader ? records.subList(1, records.size()) : records;
+        
+        List<String> columns = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        for (int i = 0; i < width; i++) {
+            String name = hasHeader && i < records.get(0).size() ? records.get(0).get(i).trim() : "";
+            columns.add(name.isEmpty() ? "_c" + i : name);
+            types.add(inferType(rows, i));
+        }
+        
+        long rowCount;
+        boolean estimated;
+        if (complete) {
+            rowCount = rows.size();
+            estimated = false;
+        } else {
+            // Average bytes per record over the complete records in the sample
+            double bytesPerRecord = (double) tokenized.consumedBytes() / records.size();
+            rowCount = Math.round(totalSize / bytesPerRecord) - (hasHeader ? 1 : 0);
+            estimated = true;
+        }
+        
+        CsvPreview preview = CsvPreview.builder()
+                .columns(columns)
+                .types(types)
+                .schema(treeString(columns, types))
+                .rowCount(Math.max(rowCount, 0))
+                .rowCountEstimated(estimated)
+                .delimiter(String.valueOf(delimiter))
+                .quote(String.valueOf(quote))
+                .header(hasHeader)
+                .sampleRows(rows.subList(0, Math.min(rows.size(), SAMPLE_ROWS_RETURNED)))
+                .sampledBytes(sample.length)
+                .build();
+        
+        log.info("CSV preview: {} columns, {} rows{} in {} ms", width, preview.getRowCount(),
+                estimated ? " (estimated)" : "", (System.nanoTime() - start) / 1_000_000);
+        return preview;
+    }
+    
+    /**
+     * Prefer the quote character that appears at field boundaries
+     */
+    private char detectQuote(String text) {
+        int doubleQuotes = countBoundaryQuotes(text, '"');
+        int singleQuotes = countBoundaryQuotes(text, '\'');
+        return singleQuotes > doubleQuotes ? '\'' : '"';
+    }
+    
+    private int countBoundaryQuotes(String text, char quote) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == quote) {
+                char before = i == 0 ? '\n' : text.charAt(i - 1);
+                if (before == '\n' || before == ',' || before == ';' || before == '\t' || before == '|') {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * The delimiter that splits the most lines into the same number of fields
+     */
+    private char detectDelimiter(String text, char quote) {
+        List<String> lines = text.lines().limit(50).toList();
+        
+        char best = ',';
+        double bestScore = 0;
+        for (char candidate : DELIMITER_CANDIDATES) {
+            int[] counts = lines.stream().mapToInt(line -> countOutsideQuotes(line, candidate, quote)).toArray();
+            if (counts.length == 0) {
+                continue;
+            }
+            int mode = mode(counts);
+            if (mode == 0) {
+                continue;
+            }
+            long consistent = Arrays.stream(counts).filter(c -> c == mode).count();
+            double score = (double) consistent / counts.length * (1 + Math.log(mode + 1));
+            if (score > bestScore) {
+                bestScore = score;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+    
+    private int countOutsideQuotes(String line, char delimiter, char quote) {
+        int count = 0;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == quote) {
+                quoted = !quoted;
+            } else if (c == delimiter && !quoted) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private int mode(int[] values) {
+        Map<Integer, Integer> frequencies = new HashMap<>();
+        int mode = 0;
+        int best = 0;
+        for (int value : values) {
+            int frequency = frequencies.merge(value, 1, Integer::sum);
+            if (frequency > best) {
+                best = frequency;
+                mode = value;
+            }
+        }
+        return mode;
+    }
+    
+    /**
+     * RFC 4180 tokenizer. An unterminated trailing record is dropped unless the
+     * sample is the whole file.
+     */
+    private Tokenized tokenize(String text, char delimiter, char quote, boolean complete) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int recordEnd = 0;
+        
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == quote) {
+                    if (i + 1 < text.length() && text.charAt(i + 1) == quote) {
+                        field.append(quote);
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == quote && field.length() == 0) {
+                quoted = true;
+            } else if (c == delimiter) {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                record.add(field.toString());
+                field.setLength(0);
+                if (!(record.size() == 1 && record.get(0).isEmpty())) {
+                    records.add(record);
+                }
+                record = new ArrayList<>();
+                recordEnd = i + 1;
+            } else {
+                field.append(c);
+            }
+        }
+        
+        if (complete && !quoted && (field.length() > 0 || !record.isEmpty())) {
+            record.add(field.toString());
+            records.add(record);
+            recordEnd = text.length();
+        }
+        
+        long consumedBytes = text.substring(0, recordEnd).getBytes(StandardCharsets.UTF_8).length;
+        return new Tokenized(records, consumedBytes);
+    }
+    
+    /**
+     * A header row has distinct, non-empty, untyped names. All-text tables are
+     * ambiguous and assumed to have one, matching the upload default.
+     */
+    private boolean detectHeader(List<List<String>> records) {
+        List<String> first = records.get(0);
+        if (first.stream().anyMatch(String::isBlank)
+                || first.stream().distinct().count() != first.size()) {
+            return false;
+        }
+        // A numeric, boolean or date "name" is data
+        return first.stream().allMatch(value -> inferValueType(value).equals("string"));
+    }
+    
+    /**
+     * Narrowest type that fits every non-empty value, using Spark type names
+     */
+    private String inferType(List<List<String>> rows, int column) {
+        String type = null;
+        for (List<String> row : rows) {
+            if (column >= row.size() || row.get(column).isEmpty()) {
+                continue;
+            }
+            type = widen(type, inferValueType(row.get(column)));
+            if (type.equals("string")) {
+                return type;
+            }
+        }
+        return type == null ? "string" : type;
+    }
+    
+    private String inferValueType(String value) {
+        String trimmed = value.trim();
+        if (INTEGER.matcher(trimmed).matches()) {
+            return trimmed.length() < 10 ? "int" : trimmed.length() < 19 ? "bigint" : "double";
+        }
+        if (DECIMAL.matcher(trimmed).matches()) {
+            return "double";
+        }
+        if (BOOLEAN.matcher(trimmed).matches()) {
+            return "boolean";
+        }
+        if (DATE.matcher(trimmed).matches()) {
+            return "date";
+        }
+        if (TIMESTAMP.matcher(trimmed).matches()) {
+            return "timestamp";
+        }
+        return "string";
+    }
+    
+    private String widen(String current, String next) {
+        if (current == null || current.equals(next)) {
+            return next;
+        }
+        List<String> numeric = List.of("int", "bigint", "double");
+        if (numeric.contains(current) && numeric.contains(next)) {
+            return numeric.get(Math.max(numeric.indexOf(current), numeric.indexOf(next)));
+        }
+        if ((current.equals("date") && next.equals("timestamp"))
+                || (current.equals("timestamp") && next.equals("date"))) {
+            return "timestamp";
+        }
+        return "string";
+    }
+    
+    // Same layout as StructType.treeString()
+    private String treeString(List<String> columns, List<String> types) {
+        StringBuilder tree = new StringBuilder("root\n");
+        for (int i = 0; i < columns.size(); i++) {
+            String type = switch (types.get(i)) {
+                case "int" -> "integer";
+                case "bigint" -> "long";
+                default -> types.get(i);
+            };
+            tree.append(" |-- ").append(columns.get(i)).append(": ").append(type)
+                    .append(" (nullable = true)\n");
+        }
+        return tree.toString();
+    }
+    
+    private record Tokenized(List<List<String>> records, long consumedBytes) {
+    }
+    
+    @Data
+    @Builder
+    public static class CsvPreview {
+        private List<String> columns;
+        private List<String> types;
+        private String schema;
+        private long rowCount;
+        private boolean rowCountEstimated;
+        private String delimiter;
+        private String quote;
+        private boolean header;
+        private List<List<String>> sampleRows;
+        private int sampledBytes;
+    }
+}
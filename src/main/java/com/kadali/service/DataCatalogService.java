@@ -2,19 +2,26 @@ package com.kadali.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kadali.dto.DatasetSummary;
+import com.kadali.dto.PageResponse;
 import com.kadali.entity.Dataset;
 import com.kadali.entity.Tenant;
 import com.kadali.repository.DatasetRepository;
+import com.kadali.repository.KeysetPageRequest;
+import com.kadali.repository.KeysetQueryRepository;
 import com.kadali.repository.TenantRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.spark.sql.SparkSession;
 import org.apache.spark.sql.types.StructType;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -25,10 +32,17 @@ import java.util.UUID;
 @Slf4j
 public class DataCatalogService {
     
+    private static final List<String> LIST_COLUMNS = List.of(
+            "datasetId", "databaseName", "tableName", "format",
+            "rowCount", "sizeBytes", "description", "createdAt", "updatedAt");
+    
     private final DatasetRepository datasetRepository;
     private final TenantRepository tenantRepository;
     private final SparkSession sparkSession;
     private final ObjectMapper objectMapper;
+    private final CatalogSearchService searchService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final KeysetQueryRepository keysetQueryRepository;
     
     @Transactional
     public Dataset registerDataset(String tenantId, String databaseName, String tableName,
@@ -60,11 +74,109 @@ public class DataCatalogService {
                 .build();
         
         dataset = datasetRepository.save(dataset);
+        eventPublisher.publishEvent(new CatalogSearchService.DatasetSaved(tenantId, dataset));
         
         log.info("Dataset registered: {}.{}", databaseName, tableName);
         return dataset;
     }
     
+    /**
+     * Create or refresh the catalog entry for a table just written by an ingest,
+     * using the statistics observed during the write instead of re-reading it
+     */
+    @Transactional
+    public Dataset recordIngest(String tenantId, String databaseName, String tableName, String location,
+                                StructType schema, IngestProfiler.DatasetProfile profile, Long sizeBytes) {
+        Dataset dataset = datasetRepository.findByTenant_TenantIdAndDatabaseNameAndTableName(
+                        tenantId, databaseName, tableName)
+                .orElseGet(() -> Dataset.builder()
+                        .datasetId("ds-" + UUID.randomUUID().toString().substring(0, 8))
+                        .tenant(tenantRepository.findByTenantId(tenantId)
+                                .orElseThrow(() -> new RuntimeException("Tenant not found: " + tenantId)))
+                        .databaseName(databaseName)
+                        .tableName(tableName)
+                        .format("delta")
+                        .build());
+        
+        dataset.setLocation(location);
+        dataset.setSchemaJson(schema.json());
+        if (profile != null) {
+            dataset.setRowCount(profile.getRowCount());
+            try {
+                dataset.setProfileJson(objectMapper.writeValueAsString(profile));
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize profile for {}.{}", databaseName, tableName, e);
+            }
+        }
+        if (sizeBytes != null) {
+            dataset.setSizeBytes(sizeBytes);
+        }
+        
+        dataset = datasetRepository.save(dataset);
+        eventPublisher.publishEvent(new CatalogSearchService.DatasetSaved(tenantId, dataset));
+        
+        log.info("Catalog entry recorded for ingest: {}.{} ({} rows)", databaseName, tableName,
+                dataset.getRowCount());
+        return dataset;
+    }
+    
+    /**
+     * Refresh the catalog entry for a batch appended to a table: the batch's
+     * profile is merged into the table's, and a profile that cannot be merged
+     * is cleared rather than left describing fewer rows than the table holds
+     */
+    @Transactional
+    public Dataset recordAppend(String tenantId, String databaseName, String tableName, String location,
+                                StructType schema, IngestProfiler.DatasetProfile batch, Long appendedBytes) {
+        Dataset dataset = datasetRepository.findByTenant_TenantIdAndDatabaseNameAndTableName(
+                tenantId, databaseName, tableName).orElse(null);
+        if (dataset == null) {
+            // Nothing recorded for the rows already there; the batch alone would undercount
+            return recordIngest(tenantId, databaseName, tableName, location, schema, null, null);
+        }
+        
+        IngestProfiler.DatasetProfile stored = null;
+        if (dataset.getProfileJson() != null) {
+            try {
+                stored = objectMapper.readValue(dataset.getProfileJson(), IngestProfiler.DatasetProfile.class);
+            } catch (JsonProcessingException e) {
+                log.warn("Dropping corrupt profile of {}.{}", databaseName, tableName, e);
+            }
+        }
+        IngestProfiler.DatasetProfile merged = IngestProfiler.merge(stored, batch);
+        
+        dataset.setLocation(location);
+        dataset.setSchemaJson(schema.json());
+        dataset.setRowCount(merged != null ? merged.getRowCount() : null);
+        try {
+            dataset.setProfileJson(merged != null ? objectMapper.writeValueAsString(merged) : null);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize profile for {}.{}", databaseName, tableName, e);
+            dataset.setProfileJson(null);
+        }
+        dataset.setSizeBytes(dataset.getSizeBytes() != null && appendedBytes != null
+                ? dataset.getSizeBytes() + appendedBytes : null);
+        
+        dataset = datasetRepository.save(dataset);
+        eventPublisher.publishEvent(new CatalogSearchService.DatasetSaved(tenantId, dataset));
+        
+        log.info("Catalog entry recorded for append: {}.{} ({} rows)", databaseName, tableName,
+                dataset.getRowCount());
+        return dataset;
+    }
+    
+    public IngestProfiler.DatasetProfile getDatasetProfile(String tenantId, String databaseName, String tableName) {
+        Dataset dataset = getDataset(tenantId, databaseName, tableName);
+        if (dataset.getProfileJson() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(dataset.getProfileJson(), IngestProfiler.DatasetProfile.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Corrupt profile for dataset: " + dataset.getDatasetId(), e);
+        }
+    }
+    
     public List<Dataset> listDatasets(String tenantId) {
         return datasetRepository.findByTenant_TenantId(tenantId);
     }
@@ -73,6 +185,28 @@ public class DataCatalogService {
         return datasetRepository.findByTenant_TenantIdAndDatabaseName(tenantId, databaseName);
     }
     
+    /**
+     * Paged list of catalog entries without schema JSON or associations
+     */
+    public PageResponse<DatasetSummary> listDatasetSummaries(String tenantId, String databaseName,
+                                                             KeysetPageRequest page) {
+        Map<String, Object> filters = new HashMap<>();
+        filters.put("databaseName", databaseName);
+        
+        return keysetQueryRepository.findPage(Dataset.class, tenantId, filters, page, LIST_COLUMNS,
+                tuple -> DatasetSummary.builder()
+                        .datasetId(tuple.get("datasetId", String.class))
+                        .databaseName(tuple.get("databaseName", String.class))
+                        .tableName(tuple.get("tableName", String.class))
+                        .format(tuple.get("format", String.class))
+                        .rowCount(tuple.get("rowCount", Long.class))
+                        .sizeBytes(tuple.get("sizeBytes", Long.class))
+                        .description(tuple.get("description", String.class))
+                        .createdAt(tuple.get("createdAt", LocalDateTime.class))
+                        .updatedAt(tuple.get("updatedAt", LocalDateTime.class))
+                        .build());
+    }
+    
     public Dataset getDataset(String tenantId, String databaseName, String tableName) {
         return datasetRepository.findByTenant_TenantIdAndDatabaseNameAndTableName(
                 tenantId, databaseName, tableName)
@@ -80,6 +214,10 @@ public class DataCatalogService {
                         String.format("Dataset not found: %s.%s", databaseName, tableName)));
     }
     
+    public List<CatalogSearchService.SearchResult> searchDatasets(String tenantId, String query, int limit) {
+        return searchService.search(tenantId, query, limit);
+    }
+    
     @Transactional
     public void updateDatasetStats(String datasetId) {
         Dataset dataset = datasetRepository.findByDatasetId(datasetId)
@@ -115,6 +253,7 @@ public class DataCatalogService {
         sparkSession.sql(String.format("DROP TABLE IF EXISTS %s.%s", databaseName, tableName));
         
         datasetRepository.delete(dataset);
+        eventPublisher.publishEvent(new CatalogSearchService.DatasetDeleted(tenantId, dataset.getDatasetId()));
         
         log.info("Dataset deleted: {}.{}", databaseName, tableName);
     }
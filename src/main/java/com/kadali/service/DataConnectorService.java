@@ -1,21 +1,48 @@
 package com.kadali.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.kadali.entity.IngestedFile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.DataFrameReader;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.SaveMode;
 import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.functions;
+import org.apache.spark.sql.execution.DataSourceScanExec;
+import org.apache.spark.sql.execution.FilterExec;
+import org.apache.spark.sql.execution.SparkPlan;
+import org.apache.spark.sql.execution.adaptive.AdaptiveSparkPlanExec;
+import org.apache.spark.sql.types.DataType;
+import org.apache.spark.sql.types.StructType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.web.multipart.MultipartFile;
+import scala.collection.JavaConverters;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Data connector service for various data sources
@@ -27,23 +54,52 @@ public class DataConnectorService {
     
     private final SparkSession sparkSession;
     private final DeltaLakeService deltaLakeService;
+    private final JdbcPartitionPlanner partitionPlanner;
+    private final PostgresCopyExporter postgresCopyExporter;
+    private final SchemaRegistryService schemaRegistry;
+    private final IngestionManifestService ingestionManifest;
+    private final CompressedFileStager compressedFileStager;
+    private final IngestProfiler ingestProfiler;
+    private final DataCatalogService catalogService;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${kadali.connectors.jdbc.fetch-size:10000}")
+    private int jdbcFetchSize;
+    
+    @Value("${kadali.connectors.jdbc.batch-size:10000}")
+    private int jdbcBatchSize;
+    
+    @Value("${kadali.connectors.jdbc.max-write-partitions:8}")
+    private int maxWritePartitions;
+    
+    @Value("${kadali.connectors.files.sampling-ratio:0.1}")
+    private double samplingRatio;
+    
+    @Value("${kadali.connectors.files.full-inference-max-bytes:67108864}")
+    private long fullInferenceMaxBytes;
     
     /**
      * Load data from PostgreSQL
      */
     public Dataset<Row> loadFromPostgres(String jdbcUrl, String username, String password,
                                          String tableName) {
+        return loadFromPostgres(jdbcUrl, username, password, tableName, null, null, null, null);
+    }
+    
+    /**
+     * Load data from PostgreSQL, split across parallel reads when a numeric or
+     * date partition column is hinted or found on the primary key.
+     * Columns and filter (a SQL boolean expression) are evaluated by PostgreSQL.
+     */
+    public Dataset<Row> loadFromPostgres(String jdbcUrl, String username, String password,
+                                         String tableName, String partitionColumn,
+                                         Integer maxPartitions, List<String> columns,
+                                         String filter) {
         log.info("Loading data from PostgreSQL table: {}", tableName);
         
         try {
-            return sparkSession.read()
-                    .format("jdbc")
-                    .option("url", jdbcUrl)
-                    .option("dbtable", tableName)
-                    .option("user", username)
-                    .option("password", password)
-                    .option("driver", "org.postgresql.Driver")
-                    .load();
+            return loadJdbcTable("org.postgresql.Driver", jdbcUrl, username, password,
+                    tableName, partitionColumn, maxPartitions, columns, filter);
         } catch (Exception e) {
             log.error("Failed to load from PostgreSQL: {}", tableName, e);
             throw new RuntimeException("Failed to load from PostgreSQL", e);
@@ -55,55 +111,356 @@ public class DataConnectorService {
      */
     public Dataset<Row> loadFromMySQL(String jdbcUrl, String username, String password,
                                       String tableName) {
+        return loadFromMySQL(jdbcUrl, username, password, tableName, null, null, null, null);
+    }
+    
+    /**
+     * Load data from MySQL, split across parallel reads when a numeric or
+     * date partition column is hinted or found on the primary key.
+     * Columns and filter (a SQL boolean expression) are evaluated by MySQL.
+     */
+    public Dataset<Row> loadFromMySQL(String jdbcUrl, String username, String password,
+                                      String tableName, String partitionColumn,
+                                      Integer maxPartitions, List<String> columns,
+                                      String filter) {
         log.info("Loading data from MySQL table: {}", tableName);
         
         try {
-            return sparkSession.read()
-                    .format("jdbc")
-                    .option("url", jdbcUrl)
-                    .option("dbtable", tableName)
-                    .option("user", username)
-                    .option("password", password)
-                    .option("driver", "com.mysql.cj.jdbc.Driver")
-                    .load();
+            return loadJdbcTable("com.mysql.cj.jdbc.Driver", jdbcUrl, username, password,
+                    tableName, partitionColumn, maxPartitions, columns, filter);
         } catch (Exception e) {
             log.error("Failed to load from MySQL: {}", tableName, e);
             throw new RuntimeException("Failed to load from MySQL", e);
         }
     }
     
+    private DataFrameReader jdbcReader(String driver, String jdbcUrl, String username,
+                                       String password, String tableName) {
+        return sparkSession.read()
+                .format("jdbc")
+                .option("url", jdbcUrl)
+                .option("dbtable", tableName)
+                .option("user", username)
+                .option("password", password)
+                .option("driver", driver)
+                .option("fetchsize", jdbcFetchSize);
+    }
+    
+    private Dataset<Row> loadJdbcTable(String driver, String jdbcUrl, String username, String password,
+                                       String tableName, String partitionColumn,
+                                       Integer maxPartitions, List<String> columns,
+                                       String filter) {
+        boolean restrict = filter != null && !filter.isBlank();
+        if (restrict) {
+            validateFilter(filter);
+        }
+        
+        // Bounds of the rows the filter keeps, not of the whole table
+        JdbcPartitionPlanner.PartitionPlan plan = partitionPlanner.plan(jdbcUrl, username, password,
+                tableName, partitionColumn, maxPartitions, restrict ? filter : null);
+        boolean partitioned = plan != null && plan.numPartitions() > 1;
+        
+        // The split column has to be selected for Spark to range over it
+        List<String> projection = columns;
+        String splitOnly = null;
+        if (partitioned && columns != null && columns.stream().noneMatch(plan.column()::equalsIgnoreCase)) {
+            projection = new ArrayList<>(columns);
+            projection.add(plan.column());
+            splitOnly = plan.column();
+        }
+        
+        String relation = sourceRelation(driver, tableName, projection, filter);
+        DataFrameReader reader = jdbcReader(driver, jdbcUrl, username, password, relation)
+                .option("pushDownPredicate", true);
+        if (partitioned) {
+            reader = reader
+                    .option("partitionColumn", plan.column())
+                    .option("lowerBound", plan.lowerBound())
+                    .option("upperBound", plan.upperBound())
+                    .option("numPartitions", plan.numPartitions());
+        }
+        
+        Dataset<Row> data = reader.load();
+        return splitOnly != null ? data.drop(splitOnly) : data;
+    }
+    
+    /**
+     * The table itself, or a derived table that selects only the requested
+     * columns and rows so the source database does the filtering. Used as
+     * dbtable rather than the query option, which cannot be partitioned.
+     */
+    private String sourceRelation(String driver, String tableName, List<String> columns, String filter) {
+        boolean project = columns != null && !columns.isEmpty();
+        boolean restrict = filter != null && !filter.isBlank();
+        if (!project && !restrict) {
+            return tableName;
+        }
+        
+        String select = "*";
+        if (project) {
+            String quote = driver.contains("mysql") ? "`" : "\"";
+            select = columns.stream()
+                    .map(column -> quote + column.replace(quote, quote + quote) + quote)
+                    .collect(Collectors.joining(", "));
+        }
+        
+        StringBuilder sql = new StringBuilder("(SELECT ").append(select).append(" FROM ").append(tableName);
+        if (restrict) {
+            sql.append(" WHERE (").append(filter).append(")");
+        }
+        return sql.append(") kadali_src").toString();
+    }
+    
+    /**
+     * The filter is spliced into a subquery; keep it to a single expression.
+     * Quoted literals and identifiers are skipped, so ')' or ';' inside them is fine.
+     */
+    static void validateFilter(String filter) {
+        int depth = 0;
+        for (int i = 0; i < filter.length(); i++) {
+            char c = filter.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                // A doubled quote is an escaped one and stays inside
+                do {
+                    i = filter.indexOf(c, i + 1);
+                    if (i < 0) {
+                        throw new IllegalArgumentException("Filter has an unterminated quote");
+                    }
+                } while (++i < filter.length() && filter.charAt(i) == c);
+                i--;
+                continue;
+            }
+            if (c == ';' || filter.startsWith("--", i) || filter.startsWith("/*", i)) {
+                throw new IllegalArgumentException("Filter must be a single SQL expression without ';' or comments");
+            }
+            depth += c == '(' ? 1 : c == ')' ? -1 : 0;
+            if (depth < 0) {
+                throw new IllegalArgumentException("Filter has unbalanced parentheses");
+            }
+        }
+        if (depth != 0) {
+            throw new IllegalArgumentException("Filter has unbalanced parentheses");
+        }
+    }
+    
+    /**
+     * What the source scan actually receives: columns read, filters pushed into
+     * the source query and whether any filter is still evaluated by Spark
+     */
+    public PushdownReport describePushdown(Dataset<Row> data) {
+        SparkPlan plan = data.queryExecution().executedPlan();
+        if (plan instanceof AdaptiveSparkPlanExec adaptive) {
+            plan = adaptive.inputPlan();
+        }
+        
+        PushdownReport report = new PushdownReport();
+        collectPushdown(plan, report);
+        report.setEstimatedRowBytes(data.schema().defaultSize());
+        
+        if (report.isResidualFilters()) {
+            log.warn("Some filters were not pushed to the source and run in Spark: {}", report);
+        }
+        return report;
+    }
+    
+    private void collectPushdown(SparkPlan node, PushdownReport report) {
+        if (node instanceof FilterExec) {
+            report.setResidualFilters(true);
+        }
+        if (node instanceof DataSourceScanExec scan) {
+            Map<String, String> metadata = JavaConverters.mapAsJavaMap(scan.metadata());
+            report.setReadSchema(metadata.get("ReadSchema"));
+            report.setPushedFilters(metadata.get("PushedFilters"));
+        }
+        for (SparkPlan child : JavaConverters.seqAsJavaList(node.children())) {
+            collectPushdown(child, report);
+        }
+    }
+    
+    /**
+     * Current maximum of the watermark column beyond the given low watermark,
+     * computed by the source database (aggregate pushdown), or null if no new rows
+     */
+    public String queryHighWatermark(String sourceType, String jdbcUrl, String username,
+                                     String password, String tableName, String watermarkColumn,
+                                     String lowWatermark) {
+        Dataset<Row> source = jdbcReader(jdbcDriver(sourceType), jdbcUrl, username, password, tableName)
+                .option("pushDownAggregate", true)
+                .load();
+        
+        if (lowWatermark != null) {
+            source = source.filter(watermarkPredicate(source, watermarkColumn, lowWatermark, true));
+        }
+        
+        Row max = source.agg(functions.max(watermarkColumn)).first();
+        return max.isNullAt(0) ? null : String.valueOf(max.get(0));
+    }
+    
+    /**
+     * Load only rows with lowWatermark < watermark <= highWatermark; both bounds
+     * are pushed down to the source as a WHERE clause
+     */
+    public Dataset<Row> loadIncrementalFromDatabase(String sourceType, String jdbcUrl,
+                                                    String username, String password,
+                                                    String tableName, String partitionColumn,
+                                                    Integer maxPartitions, List<String> columns,
+                                                    String filter, String watermarkColumn,
+                                                    String lowWatermark, String highWatermark) {
+        log.info("Loading {} rows of {} with {} in ({}, {}]",
+                sourceType, tableName, watermarkColumn, lowWatermark, highWatermark);
+        
+        if (columns != null && !columns.isEmpty()
+                && columns.stream().noneMatch(watermarkColumn::equalsIgnoreCase)) {
+            columns = new ArrayList<>(columns);
+            columns.add(watermarkColumn);
+        }
+        
+        Dataset<Row> data = loadFromDatabase(sourceType, jdbcUrl, username, password, tableName,
+                partitionColumn, maxPartitions, columns, filter);
+        
+        if (lowWatermark != null) {
+            data = data.filter(watermarkPredicate(data, watermarkColumn, lowWatermark, true));
+        }
+        return data.filter(watermarkPredicate(data, watermarkColumn, highWatermark, false));
+    }
+    
+    /**
+     * Literal is cast to the column type up front so the comparison folds to a
+     * constant and qualifies for JDBC predicate pushdown
+     */
+    private Column watermarkPredicate(Dataset<Row> data, String watermarkColumn, String value,
+                                      boolean exclusiveLower) {
+        DataType type = data.schema().apply(watermarkColumn).dataType();
+        Column bound = functions.lit(value).cast(type);
+        Column column = data.col(watermarkColumn);
+        return exclusiveLower ? column.gt(bound) : column.leq(bound);
+    }
+    
+    private Dataset<Row> loadFromDatabase(String sourceType, String jdbcUrl, String username,
+                                          String password, String tableName, String partitionColumn,
+                                          Integer maxPartitions, List<String> columns, String filter) {
+        return switch (sourceType.toLowerCase()) {
+            case "postgres" -> loadFromPostgres(jdbcUrl, username, password, tableName,
+                    partitionColumn, maxPartitions, columns, filter);
+            case "mysql" -> loadFromMySQL(jdbcUrl, username, password, tableName,
+                    partitionColumn, maxPartitions, columns, filter);
+            case "mongodb" -> loadFromMongoDB(mongoUri(jdbcUrl, username, password), tableName, columns, filter);
+            default -> throw new IllegalArgumentException("Unsupported source type: " + sourceType);
+        };
+    }
+    
+    // The connection string's own credentials win; otherwise the request's are spliced in
+    private String mongoUri(String uri, String username, String password) {
+        int scheme = uri.indexOf("://");
+        if (scheme < 0 || username == null || username.isBlank()) {
+            return uri;
+        }
+        int hostEnd = uri.indexOf('/', scheme + 3);
+        String authority = hostEnd < 0 ? uri.substring(scheme + 3) : uri.substring(scheme + 3, hostEnd);
+        if (authority.contains("@")) {
+            return uri;
+        }
+        return uri.substring(0, scheme + 3) + URLEncoder.encode(username, StandardCharsets.UTF_8)
+                + ":" + URLEncoder.encode(password, StandardCharsets.UTF_8) + "@" + uri.substring(scheme + 3);
+    }
+    
+    private String jdbcDriver(String sourceType) {
+        return switch (sourceType.toLowerCase()) {
+            case "postgres" -> "org.postgresql.Driver";
+            case "mysql" -> "com.mysql.cj.jdbc.Driver";
+            default -> throw new IllegalArgumentException("Unsupported source type: " + sourceType);
+        };
+    }
+    
     /**
      * Load data from MongoDB
      */
     public Dataset<Row> loadFromMongoDB(String mongoUri, String database, String collection) {
+        return loadFromMongoDB(mongoUri, database, collection, null, null);
+    }
+    
+    /**
+     * Load a "database.collection" source, as named in a sync request
+     */
+    private Dataset<Row> loadFromMongoDB(String mongoUri, String namespace, List<String> columns,
+                                         String filter) {
+        int dot = namespace.indexOf('.');
+        if (dot <= 0 || dot == namespace.length() - 1) {
+            throw new IllegalArgumentException("MongoDB source must be named database.collection: " + namespace);
+        }
+        return loadFromMongoDB(mongoUri, namespace.substring(0, dot), namespace.substring(dot + 1),
+                columns, filter);
+    }
+    
+    /**
+     * Load data from MongoDB, matching and projecting on the server through an
+     * aggregation pipeline
+     *
+     * @param filter a $match document as JSON, e.g. {"status": "active"}
+     */
+    public Dataset<Row> loadFromMongoDB(String mongoUri, String database, String collection,
+                                        List<String> columns, String filter) {
         log.info("Loading data from MongoDB collection: {}.{}", database, collection);
         
+        // Built before the read so a bad filter is reported as such, not as a load failure
+        String pipeline = mongoPipeline(columns, filter);
         try {
-            return sparkSession.read()
+            DataFrameReader reader = sparkSession.read()
                     .format("mongodb")
                     .option("spark.mongodb.input.uri", mongoUri)
                     .option("spark.mongodb.input.database", database)
-                    .option("spark.mongodb.input.collection", collection)
-                    .load();
+                    .option("spark.mongodb.input.collection", collection);
+            
+            if (pipeline != null) {
+                reader = reader.option("aggregation.pipeline", pipeline);
+            }
+            return reader.load();
         } catch (Exception e) {
             log.error("Failed to load from MongoDB: {}.{}", database, collection, e);
             throw new RuntimeException("Failed to load from MongoDB", e);
         }
     }
     
+    private String mongoPipeline(List<String> columns, String filter) {
+        ArrayNode stages = objectMapper.createArrayNode();
+        if (filter != null && !filter.isBlank()) {
+            JsonNode match;
+            try {
+                match = objectMapper.readTree(filter);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("MongoDB filter must be a JSON document", e);
+            }
+            if (match == null || !match.isObject()) {
+                throw new IllegalArgumentException("MongoDB filter must be a JSON document");
+            }
+            stages.addObject().set("$match", match);
+        }
+        if (columns != null && !columns.isEmpty()) {
+            ObjectNode project = stages.addObject().putObject("$project");
+            columns.forEach(column -> project.put(column, 1));
+        }
+        return stages.isEmpty() ? null : stages.toString();
+    }
+    
     /**
      * Load CSV file
      */
     public Dataset<Row> loadCsvFile(String path, boolean header, String delimiter) {
+        return loadCsvFile(path, header, delimiter, null);
+    }
+    
+    /**
+     * Load CSV file with a known schema, skipping inference; infers from a sample when null
+     */
+    public Dataset<Row> loadCsvFile(String path, boolean header, String delimiter, StructType schema) {
         log.info("Loading CSV file: {}", path);
         
         try {
-            return sparkSession.read()
+            DataFrameReader reader = sparkSession.read()
                     .format("csv")
                     .option("header", header)
-                    .option("delimiter", delimiter)
-                    .option("inferSchema", true)
-                    .load(path);
+                    .option("delimiter", delimiter);
+            return withSchemaOrSampling(reader, path, schema).load(path);
         } catch (Exception e) {
             log.error("Failed to load CSV file: {}", path, e);
             throw new RuntimeException("Failed to load CSV file", e);
@@ -130,18 +487,51 @@ public class DataConnectorService {
      * Load JSON file
      */
     public Dataset<Row> loadJsonFile(String path) {
+        return loadJsonFile(path, null);
+    }
+    
+    /**
+     * Load JSON file with a known schema, skipping inference; infers from a sample when null
+     */
+    public Dataset<Row> loadJsonFile(String path, StructType schema) {
         log.info("Loading JSON file: {}", path);
         
         try {
-            return sparkSession.read()
-                    .format("json")
-                    .load(path);
+            DataFrameReader reader = sparkSession.read().format("json");
+            return withSchemaOrSampling(reader, path, schema).load(path);
         } catch (Exception e) {
             log.error("Failed to load JSON file: {}", path, e);
             throw new RuntimeException("Failed to load JSON file", e);
         }
     }
     
+    private DataFrameReader withSchemaOrSampling(DataFrameReader reader, String path, StructType schema) {
+        if (schema != null) {
+            return reader.schema(schema);
+        }
+        
+        // Small files are cheap to scan fully; sampling them risks missing rows that widen a type
+        double ratio = inputSize(path) > fullInferenceMaxBytes ? samplingRatio : 1.0;
+        if (ratio < 1.0) {
+            log.info("Inferring schema of {} from a {} sample", path, ratio);
+        }
+        return reader
+                .option("inferSchema", true)
+                .option("samplingRatio", ratio);
+    }
+    
+    private long inputSize(String path) {
+        try {
+            org.apache.hadoop.fs.Path hadoopPath = new org.apache.hadoop.fs.Path(path);
+            return hadoopPath.getFileSystem(sparkSession.sparkContext().hadoopConfiguration())
+                    .getContentSummary(hadoopPath)
+                    .getLength();
+        } catch (IOException e) {
+            log.debug("Could not size {}, sampling schema inference", path, e);
+            return Long.MAX_VALUE;
+        }
+    }
+    
     /**
      * Load data from S3
      */
@@ -159,100 +549,248 @@ public class DataConnectorService {
     }
     
     /**
-     * Save data to PostgreSQL
+     * Save data to PostgreSQL using parallel COPY into a staging table
      */
     public void saveToPostgres(Dataset<Row> data, String jdbcUrl, String username, 
                                String password, String tableName, SaveMode saveMode) {
         log.info("Saving data to PostgreSQL table: {}", tableName);
         
         try {
+            postgresCopyExporter.export(data, jdbcUrl, username, password, tableName, saveMode);
+            
+            log.info("Data saved to PostgreSQL: {}", tableName);
+        } catch (Exception e) {
+            log.error("Failed to save to PostgreSQL: {}", tableName, e);
+            throw new RuntimeException("Failed to save to PostgreSQL", e);
+        }
+    }
+    
+    /**
+     * Save data to MySQL with multi-row batched inserts
+     */
+    public void saveToMySQL(Dataset<Row> data, String jdbcUrl, String username,
+                            String password, String tableName, SaveMode saveMode) {
+        log.info("Saving data to MySQL table: {}", tableName);
+        
+        try {
+            // Connector/J only collapses a batch into multi-row INSERTs with this flag
+            String url = jdbcUrl.contains("rewriteBatchedStatements")
+                    ? jdbcUrl
+                    : jdbcUrl + (jdbcUrl.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+            
             data.write()
                     .format("jdbc")
-                    .option("url", jdbcUrl)
+                    .option("url", url)
                     .option("dbtable", tableName)
                     .option("user", username)
                     .option("password", password)
-                    .option("driver", "org.postgresql.Driver")
+                    .option("driver", "com.mysql.cj.jdbc.Driver")
+                    .option("batchsize", jdbcBatchSize)
+                    .option("numPartitions", maxWritePartitions)
+                    .option("isolationLevel", "NONE")
                     .mode(saveMode)
                     .save();
             
-            log.info("Data saved to PostgreSQL: {}", tableName);
+            log.info("Data saved to MySQL: {}", tableName);
         } catch (Exception e) {
-            log.error("Failed to save to PostgreSQL: {}", tableName, e);
-            throw new RuntimeException("Failed to save to PostgreSQL", e);
+            log.error("Failed to save to MySQL: {}", tableName, e);
+            throw new RuntimeException("Failed to save to MySQL", e);
         }
     }
     
     /**
-     * Upload file and save to Delta Lake
+     * Upload file and save to Delta Lake, appending when the table exists.
+     * Content already ingested into the same table is skipped unless forced,
+     * which appends it again. gzip, bzip2, zstd and zip uploads are
+     * decompressed as a stream, never expanded on local disk.
      */
-    public String uploadFileAndSaveToDelta(MultipartFile file, String tenantId, 
-                                          String database, String tableName, 
-                                          String format) throws IOException {
+    public IngestionManifestService.IngestResult uploadFileAndSaveToDelta(MultipartFile file, String tenantId,
+                                                                          String database, String tableName,
+                                                                          String format, boolean force) throws IOException {
         log.info("Uploading file: {} for tenant: {}", file.getOriginalFilename(), tenantId);
         
-        // Save file temporarily
+        // Save file temporarily, hashing the bytes on the way through
         String tempDir = System.getProperty("java.io.tmpdir");
         String uploadId = UUID.randomUUID().toString();
         String fileName = uploadId + "_" + file.getOriginalFilename();
         Path tempPath = Path.of(tempDir, fileName);
         
-        file.transferTo(tempPath.toFile());
+        MessageDigest digest = IngestionManifestService.sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(in, tempPath);
+        }
+        String contentHash = IngestionManifestService.hex(digest);
+        Path workDir = null;
         
         try {
-            // Load file based on format
-            Dataset<Row> data;
-            switch (format.toLowerCase()) {
-                case "csv":
-                    data = loadCsvFile(tempPath.toString(), true, ",");
-                    break;
-                case "parquet":
-                    data = loadParquetFile(tempPath.toString());
-                    break;
-                case "json":
-                    data = loadJsonFile(tempPath.toString());
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unsupported format: " + format);
+            Optional<IngestedFile> prior = ingestionManifest.findPrior(tenantId, contentHash, database, tableName);
+            if (prior.isPresent() && !force) {
+                log.info("Skipping {}: identical content was ingested into {}.{} at {}",
+                        file.getOriginalFilename(), database, tableName, prior.get().getLastIngestedAt());
+                return IngestionManifestService.IngestResult.builder()
+                        .uploadId(uploadId)
+                        .contentHash(contentHash)
+                        .skipped(true)
+                        .previous(prior.get())
+                        .build();
             }
             
+            workDir = Files.createTempDirectory(Path.of(tempDir), "kadali-" + uploadId);
+            String readPath = compressedFileStager.stage(tempPath, file.getOriginalFilename(), format, workDir);
+            
+            Dataset<Row> data = loadFile(readPath, format, tenantId, file.getOriginalFilename());
+            
             // Save to Delta Lake
-            deltaLakeService.createDeltaTable(tenantId, database, tableName, data, null);
+            writeAndProfile(tenantId, database, tableName, data, SaveMode.Append);
+            ingestionManifest.record(tenantId, contentHash, file.getOriginalFilename(), file.getSize(),
+                    database, tableName, format.toLowerCase());
             
             log.info("File uploaded and saved to Delta Lake: {}.{}", database, tableName);
-            return uploadId;
+            return IngestionManifestService.IngestResult.builder()
+                    .uploadId(uploadId)
+                    .contentHash(contentHash)
+                    .build();
             
         } finally {
-            // Clean up temp file
+            // Clean up temp file and staged chunks
             Files.deleteIfExists(tempPath);
+            if (workDir != null) {
+                FileSystemUtils.deleteRecursively(workDir);
+            }
+        }
+    }
+    
+    /**
+     * Load a file already staged in object storage (or a shared filesystem)
+     * into Delta Lake, appending when the table exists
+     */
+    public void saveStagedFileToDelta(String path, String sourceName, String tenantId,
+                                      String database, String tableName, String format) {
+        log.info("Loading staged file {} into Delta Lake: {}.{}", path, database, tableName);
+        
+        Dataset<Row> data = loadFile(path, format, tenantId, sourceName);
+        writeAndProfile(tenantId, database, tableName, data, SaveMode.Append);
+        
+        log.info("Staged file saved to Delta Lake: {}.{}", database, tableName);
+    }
+    
+    /**
+     * Load a CSV, JSON or Parquet file, using the tenant's registered schema for
+     * this source name when there is one and recording the inferred one otherwise.
+     * CSV columns are bound by position, so a registered schema is only used
+     * when the file's header has the same column names in the same order.
+     */
+    private Dataset<Row> loadFile(String path, String format, String tenantId, String sourceName) {
+        String normalized = format.toLowerCase();
+        if (normalized.equals("parquet")) {
+            return loadParquetFile(path);
+        }
+        if (!normalized.equals("csv") && !normalized.equals("json")) {
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+        
+        StructType schema = schemaRegistry.findSchema(tenantId, normalized, sourceName);
+        if (schema != null && normalized.equals("csv") && !headerMatches(path, schema)) {
+            log.warn("Header of {} does not match its registered schema, inferring instead", sourceName);
+            schema = null;
+        }
+        Dataset<Row> data = normalized.equals("csv")
+                ? loadCsvFile(path, true, ",", schema)
+                : loadJsonFile(path, schema);
+        
+        if (schema == null) {
+            schemaRegistry.recordInferred(tenantId, normalized, sourceName, data.schema());
+        }
+        return data;
+    }
+    
+    // Without a schema or inference Spark reads only the header line
+    private boolean headerMatches(String path, StructType schema) {
+        String[] header = sparkSession.read()
+                .format("csv")
+                .option("header", true)
+                .option("delimiter", ",")
+                .load(path)
+                .columns();
+        String[] expected = schema.fieldNames();
+        if (header.length != expected.length) {
+            return false;
         }
+        for (int i = 0; i < header.length; i++) {
+            if (!header[i].trim().equalsIgnoreCase(expected[i])) {
+                return false;
+            }
+        }
+        return true;
     }
     
     /**
      * Sync data from external database to Delta Lake
      */
-    public void syncDatabaseTableToDelta(String sourceType, String jdbcUrl, 
-                                        String username, String password, 
-                                        String sourceTable, String tenantId,
-                                        String targetDatabase, String targetTable) {
+    public PushdownReport syncDatabaseTableToDelta(String sourceType, String jdbcUrl,
+                                                   String username, String password,
+                                                   String sourceTable, String tenantId,
+                                                   String targetDatabase, String targetTable,
+                                                   String partitionColumn, Integer maxPartitions,
+                                                   List<String> columns, String filter) {
         log.info("Syncing {} table {} to Delta Lake", sourceType, sourceTable);
         
-        Dataset<Row> data;
-        switch (sourceType.toLowerCase()) {
-            case "postgres":
-                data = loadFromPostgres(jdbcUrl, username, password, sourceTable);
-                break;
-            case "mysql":
-                data = loadFromMySQL(jdbcUrl, username, password, sourceTable);
-                break;
-            default:
-                throw new IllegalArgumentException("Unsupported source type: " + sourceType);
-        }
+        Dataset<Row> data = loadFromDatabase(sourceType, jdbcUrl, username, password, sourceTable,
+                partitionColumn, maxPartitions, columns, filter);
+        PushdownReport report = describePushdown(data);
+        
+        // Full sync: replace the target on re-runs instead of failing on ErrorIfExists
+        IngestProfiler.DatasetProfile profile = writeAndProfile(tenantId, targetDatabase, targetTable, data,
+                SaveMode.Overwrite);
         
-        deltaLakeService.createDeltaTable(tenantId, targetDatabase, targetTable, data, null);
+        long rows = profile != null && profile.getRowCount() != null ? profile.getRowCount()
+                : Long.parseLong(deltaLakeService.lastOperationMetrics(tenantId, targetDatabase, targetTable)
+                        .getOrDefault("numOutputRows", "0"));
+        report.setRowsRead(rows);
+        report.setEstimatedBytesTransferred(rows * report.getEstimatedRowBytes());
         
-        log.info("Data synced from {} to Delta Lake: {}.{}", 
-                sourceType, targetDatabase, targetTable);
+        log.info("Data synced from {} to Delta Lake: {}.{} ({} rows, ~{} bytes read)",
+                sourceType, targetDatabase, targetTable, rows, report.getEstimatedBytesTransferred());
+        return report;
+    }
+    
+    /**
+     * Write data to Delta, profiling it in the same pass, and record the catalog
+     * entry from the observed statistics (no second scan). An existing table is
+     * appended to or overwritten per the mode; a new one is created.
+     */
+    private IngestProfiler.DatasetProfile writeAndProfile(String tenantId, String database, String tableName,
+                                                          Dataset<Row> data, SaveMode mode) {
+        IngestProfiler.Observed observed = ingestProfiler.observe(data);
+        
+        boolean appended = false;
+        if (mode != SaveMode.ErrorIfExists && deltaLakeService.deltaTableExists(tenantId, database, tableName)) {
+            if (mode == SaveMode.Append) {
+                deltaLakeService.appendToDeltaTable(tenantId, database, tableName, observed.data());
+                appended = true;
+            } else {
+                deltaLakeService.overwriteDeltaTable(tenantId, database, tableName, observed.data());
+            }
+        } else {
+            deltaLakeService.createDeltaTable(tenantId, database, tableName, observed.data(), null);
+        }
+        
+        IngestProfiler.DatasetProfile profile = ingestProfiler.collect(observed);
+        try {
+            String size = deltaLakeService.lastOperationMetrics(tenantId, database, tableName).get("numOutputBytes");
+            String location = deltaLakeService.getTablePath(tenantId, database, tableName);
+            Long bytes = size != null ? Long.valueOf(size) : null;
+            if (appended) {
+                // The batch's profile and size are merged into the table's
+                catalogService.recordAppend(tenantId, database, tableName, location, data.schema(), profile, bytes);
+            } else {
+                catalogService.recordIngest(tenantId, database, tableName, location, data.schema(), profile, bytes);
+            }
+        } catch (Exception e) {
+            // The data is written; a stale catalog entry must not fail the ingest
+            log.warn("Failed to record catalog entry for {}.{}", database, tableName, e);
+        }
+        return profile;
     }
     
     /**
@@ -271,7 +809,7 @@ public class DataConnectorService {
                 saveToPostgres(data, jdbcUrl, username, password, targetTable, saveMode);
                 break;
             case "mysql":
-                saveToPostgres(data, jdbcUrl, username, password, targetTable, saveMode);
+                saveToMySQL(data, jdbcUrl, username, password, targetTable, saveMode);
                 break;
             default:
                 throw new IllegalArgumentException("Unsupported target type: " + targetType);
@@ -279,5 +817,14 @@ public class DataConnectorService {
         
         log.info("Data exported from Delta Lake to {}: {}", targetType, targetTable);
     }
+    
+    @lombok.Data
+    public static class PushdownReport {
+        private String readSchema;
+        private String pushedFilters;
+        private boolean residualFilters;
+        private long estimatedRowBytes;
+        private Long rowsRead;
+        private Long estimatedBytesTransferred;
+    }
 }
-
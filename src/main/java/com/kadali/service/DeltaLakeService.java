@@ -11,7 +11,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Service for Delta Lake operations
@@ -60,6 +62,76 @@ public class DeltaLakeService {
         }
     }
     
+    public boolean deltaTableExists(String tenantId, String database, String tableName) {
+        return DeltaTable.isDeltaTable(sparkSession, getTablePath(tenantId, database, tableName));
+    }
+    
+    /**
+     * Replace the contents of an existing Delta table, keeping its history
+     */
+    public void overwriteDeltaTable(String tenantId, String database, String tableName,
+                                    Dataset<Row> data) {
+        String tablePath = getTablePath(tenantId, database, tableName);
+        
+        log.info("Overwriting Delta table: {}.{}", database, tableName);
+        
+        try {
+            data.write()
+                    .format("delta")
+                    .mode(SaveMode.Overwrite)
+                    .option("overwriteSchema", "true")
+                    .save(tablePath);
+            
+            log.info("Delta table overwritten: {}.{}", database, tableName);
+            
+        } catch (Exception e) {
+            log.error("Failed to overwrite Delta table: {}.{}", database, tableName, e);
+            throw new RuntimeException("Failed to overwrite Delta table", e);
+        }
+    }
+    
+    /**
+     * Upsert rows into a Delta table, matching on the given key columns
+     */
+    public void mergeIntoDeltaTable(String tenantId, String database, String tableName,
+                                    Dataset<Row> data, List<String> keyColumns) {
+        String tablePath = getTablePath(tenantId, database, tableName);
+        
+        log.info("Merging into Delta table: {}.{} on keys: {}", database, tableName, keyColumns);
+        
+        try {
+            String condition = keyColumns.stream()
+                    .map(key -> String.format("target.`%s` = source.`%s`", key, key))
+                    .collect(Collectors.joining(" AND "));
+            
+            DeltaTable.forPath(sparkSession, tablePath).as("target")
+                    .merge(data.as("source"), condition)
+                    .whenMatched().updateAll()
+                    .whenNotMatched().insertAll()
+                    .execute();
+            
+            log.info("Merged into Delta table: {}.{}", database, tableName);
+            
+        } catch (Exception e) {
+            log.error("Failed to merge into Delta table: {}.{}", database, tableName, e);
+            throw new RuntimeException("Failed to merge into Delta table", e);
+        }
+    }
+    
+    /**
+     * Operation metrics of the latest commit, read from the Delta log without scanning data
+     */
+    public Map<String, String> lastOperationMetrics(String tenantId, String database, String tableName) {
+        String tablePath = getTablePath(tenantId, database, tableName);
+        
+        Row commit = DeltaTable.forPath(sparkSession, tablePath)
+                .history(1)
+                .select("operationMetrics")
+                .first();
+        
+        return commit.isNullAt(0) ? Map.of() : commit.getJavaMap(0);
+    }
+    
     public Dataset<Row> readDeltaTable(String tenantId, String database, String tableName) {
         String tablePath = getTablePath(tenantId, database, tableName);
         
@@ -177,7 +249,7 @@ public class DeltaLakeService {
         }
     }
     
-    private String getTablePath(String tenantId, String database, String tableName) {
+    public String getTablePath(String tenantId, String database, String tableName) {
         return String.format("%stenant-%s/%s/%s", lakehousePath, tenantId, database, tableName);
     }
 }
@@ -0,0 +1,146 @@
+package com.kadali.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kadali.entity.SparkCluster;
+import com.kadali.repository.SparkClusterRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Terminates clusters left idle past their auto-terminate minutes.
+ *
+ * Idleness comes from recorded activity ({@link ClusterActivityTracker}) and,
+ * for the candidates only, from the driver itself: a cluster with statements
+ * in flight or Spark jobs running (Spark UI REST API) is marked active and
+ * kept. Candidates are checked in parallel, each queued for termination in
+ * its own transaction that re-checks idleness; the deletes then run on the
+ * cluster operation workers.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdleClusterReaper {
+    
+    private final SparkClusterRepository clusterRepository;
+    private final SparkClusterService clusterService;
+    private final ClusterActivityTracker activityTracker;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${kadali.spark.idle.parallelism:8}")
+    private int parallelism;
+    
+    @Value("${kadali.spark.idle.probe-timeout-ms:3000}")
+    private long probeTimeoutMs;
+    
+    private ExecutorService executor;
+    private HttpClient httpClient;
+    
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "idle-cluster-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(probeTimeoutMs))
+                .build();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    @Scheduled(fixedDelayString = "${kadali.spark.idle.check-interval-ms:60000}")
+    public void terminateIdleClusters() {
+        // Recorded activity must be in the table before it is compared
+        activityTracker.flush();
+        
+        List<SparkCluster> idleClusters = clusterRepository.findIdleClusters(LocalDateTime.now());
+        if (idleClusters.isEmpty()) {
+            return;
+        }
+        log.debug("Checking {} idle cluster candidates", idleClusters.size());
+        
+        List<Callable<Void>> checks = new ArrayList<>();
+        for (SparkCluster cluster : idleClusters) {
+            checks.add(() -> {
+                reap(cluster);
+                return null;
+            });
+        }
+        try {
+            executor.invokeAll(checks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void reap(SparkCluster cluster) {
+        String clusterId = cluster.getClusterId();
+        try {
+            if (activityTracker.isBusy(clusterId) || hasRunningJobs(cluster)) {
+                log.debug("Cluster {} is busy, keeping it", clusterId);
+                activityTracker.touch(clusterId);
+                return;
+            }
+            clusterService.terminateIdleCluster(clusterId);
+        } catch (Exception e) {
+            log.error("Failed to auto-terminate cluster: {}", clusterId, e);
+        }
+    }
+    
+    /**
+     * Whether the driver reports running Spark jobs; an unreachable driver
+     * has none that could finish, so it counts as idle
+     */
+    private boolean hasRunningJobs(SparkCluster cluster) {
+        if (cluster.getSparkUiUrl() == null) {
+            return false;
+        }
+        try {
+            String api = cluster.getSparkUiUrl() + "/api/v1/applications";
+            for (JsonNode application : get(api)) {
+                JsonNode jobs = get(api + "/" + application.path("id").asText() + "/jobs?status=running");
+                if (jobs.size() > 0) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (Exception e) {
+            log.warn("Spark jobs of cluster {} unavailable: {}", cluster.getClusterId(), e.getMessage());
+            return false;
+        }
+    }
+    
+    private JsonNode get(String url) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(probeTimeoutMs))
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new RuntimeException("HTTP " + response.statusCode() + " from " + url);
+        }
+        return objectMapper.readTree(response.body());
+    }
+}
@@ -0,0 +1,262 @@
+package com.kadali.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Observation;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.spark.sql.functions.*;
+
+/**
+ * Profiles data in the same pass that writes it: ingest writes go through
+ * {@link Dataset#observe}, which aggregates row count, null counts, min/max
+ * and approximate distinct counts while the rows stream to Delta.
+ */
+@Service
+@Slf4j
+public class IngestProfiler {
+    
+    private static final String ROWS = "rows";
+    
+    private static final Set<String> NUMERIC_TYPES = Set.of(
+            "tinyint", "smallint", "int", "bigint", "float", "double");
+    
+    @Value("${kadali.catalog.profile-max-columns:200}")
+    private int maxColumns;
+    
+    @Value("${kadali.catalog.profile-timeout-seconds:30}")
+    private long timeoutSeconds;
+    
+    @Value("${kadali.catalog.profile-collectors:4}")
+    private int collectors;
+    
+    // Observation.get() waits without a timeout; waits run here and are interrupted when late
+    private ExecutorService collectPool;
+    
+    @PostConstruct
+    public void init() {
+        collectPool = new ThreadPoolExecutor(collectors, collectors, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(collectors * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "ingest-profile-collect");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        collectPool.shutdownNow();
+    }
+    
+    /**
+     * Attach profiling metrics; write the returned dataset, then call {@link #collect}
+     */
+    public Observed observe(Dataset<Row> data) {
+        StructType schema = data.schema();
+        List<StructField> profiled = new ArrayList<>();
+        List<Column> metrics = new ArrayList<>();
+        
+        for (StructField field : schema.fields()) {
+            if (profiled.size() == maxColumns) {
+                break;
+            }
+            int i = profiled.size();
+            Column column = col(quote(field.name()));
+            metrics.add(sum(when(column.isNull(), 1).otherwise(0)).as("nulls" + i));
+            if (isOrderable(field.dataType())) {
+                metrics.add(min(column).cast("string").as("min" + i));
+                metrics.add(max(column).cast("string").as("max" + i));
+                metrics.add(approx_count_distinct(column).as("distinct" + i));
+            }
+            profiled.add(field);
+        }
+        
+        Observation observation = new Observation("ingest-profile-" + System.nanoTime());
+        Dataset<Row> observed = data.observe(observation, count(lit(1)).as(ROWS), metrics.toArray(new Column[0]));
+        return new Observed(observed, observation, profiled);
+    }
+    
+    /**
+     * Metrics of the completed write, or null if they did not arrive in time.
+     * Only call after the write succeeded; a failed query never reports them.
+     */
+    public DatasetProfile collect(Observed observed) {
+        Map<String, Object> metrics;
+        Future<Map<String, Object>> pending = null;
+        try {
+            pending = collectPool.submit(() -> observed.observation().getAsJava());
+            metrics = pending.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.warn("Ingest profile metrics unavailable", e);
+            return null;
+        } finally {
+            if (pending != null) {
+                // Frees the collector if the metrics never arrived
+                pending.cancel(true);
+            }
+        }
+        
+        List<ColumnProfile> columns = new ArrayList<>();
+        for (int i = 0; i < observed.columns().size(); i++) {
+            StructField field = observed.columns().get(i);
+            columns.add(ColumnProfile.builder()
+                    .name(field.name())
+                    .type(field.dataType().simpleString())
+                    .nullCount(toLong(metrics.get("nulls" + i)))
+                    .min((String) metrics.get("min" + i))
+                    .max((String) metrics.get("max" + i))
+                    .approxDistinct(toLong(metrics.get("distinct" + i)))
+                    .build());
+        }
+        
+        return DatasetProfile.builder()
+                .rowCount(toLong(metrics.get(ROWS)))
+                .columns(columns)
+                .profiledAt(LocalDateTime.now())
+                .build();
+    }
+    
+    /**
+     * Profile of a table after a batch was appended to it, or null when either
+     * side is unknown. Counts add up and bounds widen; distinct counts come from
+     * sketches that are gone by now, so the larger one is kept as a lower bound.
+     * A column only one side has is null in the other side's rows.
+     */
+    public static DatasetProfile merge(DatasetProfile table, DatasetProfile batch) {
+        if (table == null || batch == null || table.getRowCount() == null || batch.getRowCount() == null
+                || table.getColumns() == null || batch.getColumns() == null) {
+            return null;
+        }
+        
+        Map<String, ColumnProfile> added = new LinkedHashMap<>();
+        batch.getColumns().forEach(column -> added.put(column.getName(), column));
+        
+        List<ColumnProfile> columns = new ArrayList<>();
+        for (ColumnProfile existing : table.getColumns()) {
+            ColumnProfile appended = added.remove(existing.getName());
+            columns.add(appended != null ? mergeColumn(existing, appended)
+                    : withExtraNulls(existing, batch.getRowCount()));
+        }
+        added.values().forEach(appended -> columns.add(withExtraNulls(appended, table.getRowCount())));
+        
+        return DatasetProfile.builder()
+                .rowCount(table.getRowCount() + batch.getRowCount())
+                .columns(columns)
+                .profiledAt(LocalDateTime.now())
+                .build();
+    }
+    
+    private static ColumnProfile mergeColumn(ColumnProfile existing, ColumnProfile appended) {
+        boolean sameType = Objects.equals(existing.getType(), appended.getType());
+        return ColumnProfile.builder()
+                .name(existing.getName())
+                .type(appended.getType())
+                .nullCount(existing.getNullCount() != null && appended.getNullCount() != null
+                        ? existing.getNullCount() + appended.getNullCount() : null)
+                // Bounds of different types do not compare
+                .min(sameType ? bound(existing.getMin(), appended.getMin(), existing.getType(), true) : null)
+                .max(sameType ? bound(existing.getMax(), appended.getMax(), existing.getType(), false) : null)
+                .approxDistinct(sameType ? maxOf(existing.getApproxDistinct(), appended.getApproxDistinct()) : null)
+                .build();
+    }
+    
+    private static ColumnProfile withExtraNulls(ColumnProfile column, long rows) {
+        return ColumnProfile.builder()
+                .name(column.getName())
+                .type(column.getType())
+                .nullCount(column.getNullCount() != null ? column.getNullCount() + rows : null)
+                .min(column.getMin())
+                .max(column.getMax())
+                .approxDistinct(column.getApproxDistinct())
+                .build();
+    }
+    
+    // Bounds were cast to strings; numbers compare by value, dates and text as written
+    private static String bound(String a, String b, String type, boolean lower) {
+        if (a == null || b == null) {
+            return a == null ? b : a;
+        }
+        int comparison;
+        if (NUMERIC_TYPES.contains(type) || type.startsWith("decimal")) {
+            try {
+                comparison = new BigDecimal(a).compareTo(new BigDecimal(b));
+            } catch (NumberFormatException e) {
+                return null; // NaN or infinity
+            }
+        } else {
+            comparison = a.compareTo(b);
+        }
+        return (comparison <= 0) == lower ? a : b;
+    }
+    
+    private static Long maxOf(Long a, Long b) {
+        return a == null || b == null ? null : Math.max(a, b);
+    }
+    
+    private static boolean isOrderable(DataType type) {
+        return type instanceof NumericType || type instanceof StringType || type instanceof DateType
+                || type instanceof TimestampType || type instanceof TimestampNTZType
+                || type instanceof BooleanType;
+    }
+    
+    private static String quote(String name) {
+        return "`" + name.replace("`", "``") + "`";
+    }
+    
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+    
+    public record Observed(Dataset<Row> data, Observation observation, List<StructField> columns) {
+    }
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DatasetProfile {
+        private Long rowCount;
+        private List<ColumnProfile> columns;
+        private LocalDateTime profiledAt;
+    }
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ColumnProfile {
+        private String name;
+        private String type;
+        private Long nullCount;
+        private String min;
+        private String max;
+        private Long approxDistinct;
+    }
+}
@@ -0,0 +1,115 @@
+package com.kadali.service;
+
+import com.kadali.entity.IngestedFile;
+import com.kadali.entity.Tenant;
+import com.kadali.repository.IngestedFileRepository;
+import com.kadali.repository.TenantRepository;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Per-tenant manifest of ingested file contents (SHA-256), so that a
+ * byte-identical re-delivery into the same table is skipped instead of being
+ * parsed and written again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IngestionManifestService {
+    
+    private final IngestedFileRepository ingestedFileRepository;
+    private final TenantRepository tenantRepository;
+    
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    public static String hex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+    
+    public Optional<IngestedFile> findPrior(String tenantId, String contentHash,
+                                            String database, String tableName) {
+        return ingestedFileRepository.findByTenant_TenantIdAndContentHashAndDatabaseNameAndTableName(
+                tenantId, contentHash, database, tableName);
+    }
+    
+    /**
+     * Record a successful ingestion; a forced re-ingest bumps the existing entry.
+     * Not transactional, so a lost insert race doesn't poison an outer transaction.
+     */
+    public IngestedFile record(String tenantId, String contentHash, String fileName, long sizeBytes,
+                               String database, String tableName, String format) {
+        Optional<IngestedFile> existing = findPrior(tenantId, contentHash, database, tableName);
+        if (existing.isPresent()) {
+            IngestedFile file = existing.get();
+            file.setIngestCount(file.getIngestCount() + 1);
+            file.setLastIngestedAt(LocalDateTime.now());
+            file.setFileName(fileName);
+            return ingestedFileRepository.save(file);
+        }
+        
+        Tenant tenant = tenantRepository.findByTenantId(tenantId)
+                .orElseThrow(() -> new RuntimeException("Tenant not found: " + tenantId));
+        
+        try {
+            return ingestedFileRepository.saveAndFlush(IngestedFile.builder()
+                    .tenant(tenant)
+                    .contentHash(contentHash)
+                    .fileName(fileName)
+                    .sizeBytes(sizeBytes)
+                    .databaseName(database)
+                    .tableName(tableName)
+                    .format(format)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Same content ingested concurrently; the other upload recorded it
+            log.warn("File {} ({}) was recorded concurrently", fileName, contentHash);
+            return findPrior(tenantId, contentHash, database, tableName).orElseThrow(() -> e);
+        }
+    }
+    
+    public List<IngestedFile> listFiles(String tenantId, String contentHash) {
+        return contentHash != null
+                ? ingestedFileRepository.findByTenant_TenantIdAndContentHash(tenantId, contentHash.toLowerCase())
+                : ingestedFileRepository.findByTenant_TenantIdOrderByLastIngestedAtDesc(tenantId);
+    }
+    
+    /**
+     * Forget an entry so the same content is ingested again on its next delivery
+     */
+    @Transactional
+    public void deleteFile(String tenantId, Long id) {
+        IngestedFile file = ingestedFileRepository.findById(id)
+                .filter(f -> f.getTenant().getTenantId().equals(tenantId))
+                .orElseThrow(() -> new RuntimeException("Ingested file not found: " + id));
+        
+        ingestedFileRepository.delete(file);
+        log.info("Ingested file entry deleted: {} ({})", id, file.getContentHash());
+    }
+    
+    @Data
+    @Builder
+    public static class IngestResult {
+        private String uploadId;
+        private String contentHash;
+        private boolean skipped;
+        private IngestedFile previous; // the earlier ingestion when skipped
+    }
+}
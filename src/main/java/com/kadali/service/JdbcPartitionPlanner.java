@@ -0,0 +1,215 @@
+package com.kadali.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.sql.*;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Plans parallel JDBC reads: picks a numeric or date split column (user hint or
+ * primary key), discovers its bounds and sizes the partition count, capped so a
+ * single sync never opens more than a bounded number of source connections.
+ */
+@Service
+@Slf4j
+public class JdbcPartitionPlanner {
+    
+    private static final Set<Integer> NUMERIC_TYPES = Set.of(
+            Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT,
+            Types.NUMERIC, Types.DECIMAL);
+    
+    private static final Set<Integer> TEMPORAL_TYPES = Set.of(
+            Types.DATE, Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE);
+    
+    @Value("${kadali.connectors.jdbc.max-partitions:16}")
+    private int maxPartitions;
+    
+    @Value("${kadali.connectors.jdbc.rows-per-partition:1000000}")
+    private long rowsPerPartition;
+    
+    /**
+     * @param partitionColumn optional user hint, otherwise the first primary key column is used
+     * @param sourceMaxPartitions optional per-source cap, never raised above the platform cap
+     * @param filter optional validated row filter of the read; bounds cover only the rows it keeps
+     * @return the plan, or null when no suitable split column exists and a single read is required
+     */
+    public PartitionPlan plan(String jdbcUrl, String username, String password, String tableName,
+                              String partitionColumn, Integer sourceMaxPartitions, String filter) {
+        int cap = sourceMaxPartitions != null
+                ? Math.max(1, Math.min(sourceMaxPartitions, maxPartitions))
+                : maxPartitions;
+        
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, username, password)) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            TableRef table = TableRef.parse(tableName);
+            
+            String column = partitionColumn != null ? partitionColumn : primaryKeyColumn(metaData, table);
+            if (column == null) {
+                log.info("No primary key on {}, falling back to a single-partition read", tableName);
+                return null;
+            }
+            
+            Integer sqlType = columnType(metaData, table, column);
+            boolean numeric = sqlType != null && NUMERIC_TYPES.contains(sqlType);
+            boolean temporal = sqlType != null && TEMPORAL_TYPES.contains(sqlType);
+            if (!numeric && !temporal) {
+                if (partitionColumn != null) {
+                    throw new IllegalArgumentException(
+                            "Partition column must be numeric, date or timestamp: " + partitionColumn);
+                }
+                log.info("Primary key {} on {} is not splittable, using a single-partition read",
+                        column, tableName);
+                return null;
+            }
+            
+            String quote = metaData.getIdentifierQuoteString().trim();
+            String quoted = quote + column + quote;
+            
+            String lower;
+            String upper;
+            long range = Long.MAX_VALUE;
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(String.format(
+                         "SELECT MIN(%s), MAX(%s) FROM %s%s", quoted, quoted, tableName,
+                         filter != null ? " WHERE (" + filter + ")" : ""))) {
+                rs.next();
+                if (rs.getObject(1) == null) {
+                    return null; // no rows to read
+                }
+                if (numeric) {
+                    BigInteger minValue = rs.getBigDecimal(1).setScale(0, RoundingMode.FLOOR).toBigIntegerExact();
+                    BigInteger maxValue = rs.getBigDecimal(2).setScale(0, RoundingMode.CEILING).toBigIntegerExact();
+                    if (minValue.bitLength() >= Long.SIZE || maxValue.bitLength() >= Long.SIZE) {
+                        // Spark's partition bounds are longs; wider NUMERIC keys take a single read
+                        log.info("Bounds of {}.{} exceed the long range, using a single-partition read",
+                                tableName, column);
+                        return null;
+                    }
+                    lower = minValue.toString();
+                    upper = maxValue.toString();
+                    // max - min itself can overflow a long
+                    range = maxValue.subtract(minValue).add(BigInteger.ONE)
+                            .min(BigInteger.valueOf(Long.MAX_VALUE)).longValue();
+                } else if (sqlType == Types.DATE) {
+                    lower = rs.getDate(1).toString();
+                    upper = rs.getDate(2).toString();
+                } else {
+                    lower = rs.getTimestamp(1).toString();
+                    upper = rs.getTimestamp(2).toString();
+                }
+            }
+            
+            long estimatedRows = estimateRowCount(connection, metaData, table);
+            int partitions = estimatedRows > 0
+                    ? (int) Math.min(cap, (estimatedRows + rowsPerPartition - 1) / rowsPerPartition)
+                    : cap;
+            partitions = (int) Math.max(1, Math.min(partitions, range));
+            
+            PartitionPlan plan = new PartitionPlan(column, lower, upper, partitions);
+            log.info("Partitioned read plan for {}: {} (~{} rows)", tableName, plan, estimatedRows);
+            return plan;
+            
+        } catch (SQLException e) {
+            log.warn("Failed to plan partitioned read for {}, using a single-partition read", tableName, e);
+            return null;
+        }
+    }
+    
+    private String primaryKeyColumn(DatabaseMetaData metaData, TableRef table) throws SQLException {
+        for (String name : table.candidates()) {
+            try (ResultSet rs = metaData.getPrimaryKeys(null, table.schema(), name)) {
+                String first = null;
+                while (rs.next()) {
+                    if (rs.getShort("KEY_SEQ") == 1) {
+                        first = rs.getString("COLUMN_NAME");
+                    }
+                }
+                if (first != null) {
+                    return first;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private Integer columnType(DatabaseMetaData metaData, TableRef table, String column) throws SQLException {
+        for (String name : table.candidates()) {
+            try (ResultSet rs = metaData.getColumns(null, table.schema(), name, null)) {
+                while (rs.next()) {
+                    if (rs.getString("COLUMN_NAME").equalsIgnoreCase(column)) {
+                        return rs.getInt("DATA_TYPE");
+                    }
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Cheap row estimate from the planner statistics, -1 when unavailable
+     */
+    private long estimateRowCount(Connection connection, DatabaseMetaData metaData, TableRef table) {
+        String product = "";
+        try {
+            product = metaData.getDatabaseProductName().toLowerCase(Locale.ROOT);
+        } catch (SQLException ignored) {
+            // fall through with an unknown product
+        }
+        
+        String sql;
+        String parameter;
+        if (product.contains("postgres")) {
+            sql = "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)";
+            parameter = table.qualifiedName();
+        } else if (product.contains("mysql") || product.contains("mariadb")) {
+            sql = "SELECT TABLE_ROWS FROM information_schema.TABLES "
+                    + "WHERE TABLE_SCHEMA = COALESCE(?, DATABASE()) AND TABLE_NAME = ?";
+            parameter = null;
+        } else {
+            return -1;
+        }
+        
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (parameter != null) {
+                statement.setString(1, parameter);
+            } else {
+                statement.setString(1, table.schema());
+                statement.setString(2, table.name());
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        } catch (SQLException e) {
+            log.debug("Row estimate unavailable for {}", table.qualifiedName(), e);
+            return -1;
+        }
+    }
+    
+    private record TableRef(String schema, String name) {
+        
+        static TableRef parse(String tableName) {
+            int dot = tableName.lastIndexOf('.');
+            return dot < 0
+                    ? new TableRef(null, tableName)
+                    : new TableRef(tableName.substring(0, dot), tableName.substring(dot + 1));
+        }
+        
+        String qualifiedName() {
+            return schema == null ? name : schema + "." + name;
+        }
+        
+        // Unquoted identifiers fold to lower case in Postgres
+        String[] candidates() {
+            String lower = name.toLowerCase(Locale.ROOT);
+            return lower.equals(name) ? new String[] {name} : new String[] {name, lower};
+        }
+    }
+    
+    public record PartitionPlan(String column, String lowerBound, String upperBound, int numPartitions) {
+    }
+}
@@ -0,0 +1,341 @@
+package com.kadali.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.kadali.dto.NotebookPatchRequest;
+import com.kadali.entity.Notebook;
+import com.kadali.entity.NotebookCell;
+import com.kadali.repository.NotebookCellRepository;
+import com.kadali.repository.NotebookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cell-level notebook storage.
+ *
+ * notebooks.content keeps only the document metadata; cells are rows in
+ * notebook_cells. Saves lock the notebook row, check the client's base version
+ * and write only the cells whose fields actually changed. Large outputs are
+ * stored gzip-compressed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotebookContentService {
+    
+    private final NotebookRepository notebookRepository;
+    private final NotebookCellRepository cellRepository;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${kadali.notebooks.output-compress-bytes:8192}")
+    private int outputCompressBytes;
+    
+    /**
+     * The full nbformat document: stored metadata plus the cells in order
+     */
+    @Transactional(readOnly = true)
+    public NotebookDocument getDocument(String notebookId) {
+        Notebook notebook = notebookRepository.findByNotebookId(notebookId)
+                .orElseThrow(() -> new RuntimeException("Notebook not found: " + notebookId));
+        
+        ObjectNode document = parseDocument(notebook.getContent());
+        ArrayNode cells = document.putArray("cells");
+        for (NotebookCell cell : cellRepository.findByNotebook_IdOrderByPosition(notebook.getId())) {
+            cells.add(toJson(cell));
+        }
+        return new NotebookDocument(document, notebook.getVersion());
+    }
+    
+    /**
+     * Save a whole document. Cells are matched to stored ones by id (by position
+     * when the document has no cell ids) and only differing cells are written.
+     *
+     * @param baseVersion version the client edited, or null to overwrite unconditionally
+     */
+    @Transactional
+    public Notebook replaceDocument(String notebookId, String content, Integer baseVersion) {
+        Notebook notebook = lockForSave(notebookId, baseVersion);
+        
+        ObjectNode document = parseDocument(content);
+        JsonNode cellsJson = document.remove("cells");
+        
+        List<NotebookCell> existing = cellRepository.findByNotebook_IdOrderByPosition(notebook.getId());
+        Map<String, NotebookCell> byId = new HashMap<>();
+        existing.forEach(cell -> byId.put(cell.getCellId(), cell));
+        
+        Set<String> documentIds = new HashSet<>();
+        if (cellsJson != null && cellsJson.isArray()) {
+            cellsJson.forEach(json -> {
+                if (json.hasNonNull("id")) {
+                    documentIds.add(json.get("id").asText());
+                }
+            });
+        }
+        
+        List<NotebookCell> cells = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        if (cellsJson != null && cellsJson.isArray()) {
+            for (int i = 0; i < cellsJson.size(); i++) {
+                JsonNode json = cellsJson.get(i);
+                String cellId;
+                if (json.hasNonNull("id")) {
+                    cellId = json.get("id").asText();
+                } else if (i < existing.size() && !documentIds.contains(existing.get(i).getCellId())) {
+                    cellId = existing.get(i).getCellId();
+                } else {
+                    cellId = newCellId();
+                }
+                if (!seen.add(cellId)) {
+                    cellId = newCellId();
+                    seen.add(cellId);
+                }
+                
+                NotebookCell cell = byId.remove(cellId);
+                if (cell == null) {
+                    cell = NotebookCell.builder().notebook(notebook).cellId(cellId).build();
+                }
+                cell.setCellType(json.path("cell_type").asText("code"));
+                cell.setSource(sourceText(json.get("source")));
+                cell.setMetadata(jsonText(json.get("metadata")));
+                setOutputs(cell, json.get("outputs"));
+                cell.setExecutionCount(json.hasNonNull("execution_count")
+                        ? json.get("execution_count").asInt() : null);
+                cells.add(cell);
+            }
+        }
+        
+        cellRepository.deleteAll(byId.values());
+        return save(notebook, jsonText(document), cells);
+    }
+    
+    /**
+     * Apply per-cell operations against the version the client edited
+     */
+    @Transactional
+    public Notebook patchCells(String notebookId, NotebookPatchRequest request) {
+        Notebook notebook = lockForSave(notebookId, request.getBaseVersion());
+        List<NotebookCell> cells = new ArrayList<>(cellRepository.findByNotebook_IdOrderByPosition(notebook.getId()));
+        List<NotebookCell> removed = new ArrayList<>();
+        
+        if (request.getOperations() != null) {
+            for (NotebookPatchRequest.CellOperation operation : request.getOperations()) {
+                if ("delete".equals(operation.getOp())) {
+                    NotebookCell cell = findCell(cells, operation.getCellId());
+                    if (cell == null) {
+                        throw new IllegalArgumentException("Cell not found: " + operation.getCellId());
+                    }
+                    cells.remove(cell);
+                    removed.add(cell);
+                } else {
+                    upsertCell(notebook, cells, removed, operation);
+                }
+            }
+        }
+        
+        String content = notebook.getContent();
+        if (request.getMetadata() != null) {
+            ObjectNode document = parseDocument(content);
+            document.set("metadata", request.getMetadata());
+            content = jsonText(document);
+        }
+        
+        cellRepository.deleteAll(removed);
+        return save(notebook, content, cells);
+    }
+    
+    private void upsertCell(Notebook notebook, List<NotebookCell> cells, List<NotebookCell> removed,
+                            NotebookPatchRequest.CellOperation operation) {
+        NotebookCell cell = operation.getCellId() != null ? findCell(cells, operation.getCellId()) : null;
+        
+        if (cell == null) {
+            // Re-adding a cell deleted earlier in this patch reuses its row
+            NotebookCell deleted = operation.getCellId() != null ? findCell(removed, operation.getCellId()) : null;
+            if (deleted != null) {
+                removed.remove(deleted);
+            }
+            cell = deleted != null ? deleted : NotebookCell.builder()
+                    .notebook(notebook)
+                    .cellId(operation.getCellId() != null ? operation.getCellId() : newCellId())
+                    .build();
+            int position = operation.getPosition() != null ? clamp(operation.getPosition(), cells.size()) : cells.size();
+            cells.add(position, cell);
+        } else if (operation.getPosition() != null) {
+            cells.remove(cell);
+            cells.add(clamp(operation.getPosition(), cells.size()), cell);
+        }
+        
+        if (operation.getCellType() != null) {
+            cell.setCellType(operation.getCellType());
+        }
+        if (operation.getSource() != null) {
+            cell.setSource(operation.getSource());
+        }
+        if (operation.getMetadata() != null) {
+            cell.setMetadata(jsonText(operation.getMetadata()));
+        }
+        if (operation.getOutputs() != null) {
+            setOutputs(cell, operation.getOutputs());
+        }
+        if (operation.getExecutionCount() != null) {
+            cell.setExecutionCount(operation.getExecutionCount());
+        }
+    }
+    
+    /**
+     * Renumber positions and bump the version. Unchanged cells are left alone:
+     * dirty checking skips them and dynamic updates write only changed columns.
+     */
+    private Notebook save(Notebook notebook, String content, List<NotebookCell> cells) {
+        for (int i = 0; i < cells.size(); i++) {
+            if (!Integer.valueOf(i).equals(cells.get(i).getPosition())) {
+                cells.get(i).setPosition(i);
+            }
+        }
+        cellRepository.saveAll(cells);
+        
+        if (!Objects.equals(content, notebook.getContent())) {
+            notebook.setContent(content);
+        }
+        notebook.setVersion(notebook.getVersion() + 1);
+        notebook = notebookRepository.save(notebook);
+        
+        log.debug("Notebook {} saved at version {} ({} cells)", notebook.getNotebookId(),
+                notebook.getVersion(), cells.size());
+        return notebook;
+    }
+    
+    private Notebook lockForSave(String notebookId, Integer baseVersion) {
+        Notebook notebook = notebookRepository.findForUpdate(notebookId)
+                .orElseThrow(() -> new RuntimeException("Notebook not found: " + notebookId));
+        if (baseVersion != null && !baseVersion.equals(notebook.getVersion())) {
+            throw new OptimisticLockingFailureException(String.format(
+                    "Notebook %s is at version %d, not %d", notebookId, notebook.getVersion(), baseVersion));
+        }
+        return notebook;
+    }
+    
+    private ObjectNode toJson(NotebookCell cell) {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("id", cell.getCellId());
+        json.put("cell_type", cell.getCellType());
+        json.put("source", cell.getSource() != null ? cell.getSource() : "");
+        json.set("metadata", cell.getMetadata() != null ? readJson(cell.getMetadata()) : objectMapper.createObjectNode());
+        if ("code".equals(cell.getCellType())) {
+            json.set("outputs", cell.getOutputs() != null ? readOutputs(cell) : objectMapper.createArrayNode());
+            if (cell.getExecutionCount() != null) {
+                json.put("execution_count", cell.getExecutionCount());
+            } else {
+                json.putNull("execution_count");
+            }
+        }
+        return json;
+    }
+    
+    private void setOutputs(NotebookCell cell, JsonNode outputs) {
+        if (outputs == null || outputs.isNull() || (outputs.isArray() && outputs.isEmpty())) {
+            cell.setOutputs(null);
+            cell.setOutputsCompressed(false);
+            return;
+        }
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(outputs);
+            boolean compress = bytes.length >= outputCompressBytes;
+            // Deterministic encoding, so re-saving identical outputs leaves the column clean
+            cell.setOutputs(compress ? gzip(bytes) : bytes);
+            cell.setOutputsCompressed(compress);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode outputs of cell " + cell.getCellId(), e);
+        }
+    }
+    
+    private JsonNode readOutputs(NotebookCell cell) {
+        try (InputStream in = Boolean.TRUE.equals(cell.getOutputsCompressed())
+                ? new GZIPInputStream(new ByteArrayInputStream(cell.getOutputs()))
+                : new ByteArrayInputStream(cell.getOutputs())) {
+            return objectMapper.readTree(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Corrupt outputs in cell " + cell.getCellId(), e);
+        }
+    }
+    
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(bytes);
+        }
+        return buffer.toByteArray();
+    }
+    
+    // nbformat allows source as a string or a list of lines
+    private static String sourceText(JsonNode source) {
+        if (source == null || source.isNull()) {
+            return null;
+        }
+        if (source.isArray()) {
+            StringBuilder text = new StringBuilder();
+            source.forEach(line -> text.append(line.asText()));
+            return text.toString();
+        }
+        return source.asText();
+    }
+    
+    private ObjectNode parseDocument(String content) {
+        if (content == null || content.isBlank()) {
+            return objectMapper.createObjectNode();
+        }
+        JsonNode node = readJson(content);
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("Notebook content must be a JSON object");
+        }
+        return (ObjectNode) node;
+    }
+    
+    private JsonNode readJson(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid notebook JSON: " + e.getOriginalMessage(), e);
+        }
+    }
+    
+    private String jsonText(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(node);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid notebook JSON", e);
+        }
+    }
+    
+    private static NotebookCell findCell(List<NotebookCell> cells, String cellId) {
+        return cells.stream().filter(cell -> cell.getCellId().equals(cellId)).findFirst().orElse(null);
+    }
+    
+    private static int clamp(int position, int size) {
+        return Math.max(0, Math.min(position, size));
+    }
+    
+    private static String newCellId() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+    
+    public record NotebookDocument(ObjectNode content, int version) {
+    }
+}
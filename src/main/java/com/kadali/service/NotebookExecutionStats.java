@@ -0,0 +1,101 @@
+package com.kadali.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind notebook execution stats.
+ *
+ * Cells only bump in-memory counters; a periodic flush writes every notebook
+ * with new executions in one batched UPDATE that touches just the two stat
+ * columns. Counts that fail to flush are kept for the next attempt, and the
+ * remainder is flushed on shutdown. A notebook with nothing to flush is dropped
+ * from memory and picked up again by its next cell.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotebookExecutionStats {
+    
+    private static final String FLUSH_SQL = "UPDATE notebooks SET " +
+            "execution_count = COALESCE(execution_count, 0) + ?, " +
+            "last_executed_at = GREATEST(COALESCE(last_executed_at, ?), ?) " +
+            "WHERE notebook_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    // Updated, drained and dropped only under the entry's bin lock, so no count lands on a dropped entry
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    
+    public void record(String notebookId) {
+        add(notebookId, 1, System.currentTimeMillis());
+    }
+    
+    /**
+     * Drop a deleted notebook's pending counts
+     */
+    public void forget(String notebookId) {
+        pending.remove(notebookId);
+    }
+    
+    @Scheduled(fixedDelayString = "${kadali.notebooks.stats.flush-interval-ms:5000}")
+    public void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        for (String notebookId : pending.keySet()) {
+            pending.computeIfPresent(notebookId, (id, stats) -> {
+                long count = stats.count.sum();
+                if (count == 0) {
+                    return null; // Idle since the last flush
+                }
+                stats.count.reset();
+                Timestamp executedAt = new Timestamp(stats.lastExecutedAt.get());
+                batch.add(new Object[]{count, executedAt, executedAt, id});
+                return stats;
+            });
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+            log.debug("Flushed execution stats for {} notebooks", batch.size());
+        } catch (Exception e) {
+            log.warn("Failed to flush execution stats for {} notebooks, retrying next flush", batch.size(), e);
+            for (Object[] row : batch) {
+                add((String) row[3], (Long) row[0], ((Timestamp) row[1]).getTime());
+            }
+        }
+    }
+    
+    private void add(String notebookId, long count, long executedAt) {
+        pending.compute(notebookId, (id, stats) -> {
+            Pending target = stats != null ? stats : new Pending();
+            target.count.add(count);
+            target.lastExecutedAt.accumulateAndGet(executedAt, Math::max);
+            return target;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+    
+    private static class Pending {
+        private final LongAdder count = new LongAdder();
+        private final AtomicLong lastExecutedAt = new AtomicLong();
+    }
+}
@@ -0,0 +1,387 @@
+package com.kadali.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.kadali.entity.Notebook;
+import com.kadali.entity.NotebookCell;
+import com.kadali.repository.NotebookCellRepository;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.catalyst.analysis.UnresolvedIdentifier;
+import org.apache.spark.sql.catalyst.analysis.UnresolvedRelation;
+import org.apache.spark.sql.catalyst.expressions.Expression;
+import org.apache.spark.sql.catalyst.expressions.SubqueryExpression;
+import org.apache.spark.sql.catalyst.parser.ParseException;
+import org.apache.spark.sql.catalyst.plans.QueryPlan;
+import org.apache.spark.sql.catalyst.plans.logical.*;
+import org.apache.spark.sql.execution.command.CreateViewCommand;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import scala.collection.JavaConverters;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * "Run all" for a notebook, as a DAG instead of top to bottom.
+ *
+ * Each SQL cell is parsed (not analyzed) to find the tables and views it reads
+ * and writes. A cell depends on every earlier cell it conflicts with (reads
+ * what it writes, writes what it reads, or writes the same name); statements
+ * whose effects can't be read from the plan, such as SET, and non-SQL cells
+ * are barriers that order against everything. Independent cells run concurrently in the
+ * notebook's session. When a cell fails, its downstream cells are skipped
+ * while unrelated branches carry on. Run state is kept in memory.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotebookRunService {
+    
+    private static final int RETAINED_RUNS = 100;
+    
+    private final NotebookService notebookService;
+    private final NotebookSessionManager sessionManager;
+    private final NotebookCellRepository cellRepository;
+    private final SparkSession sparkSession;
+    private final ClusterSessionRouter clusterRouter;
+    
+    @Value("${kadali.notebooks.run-all.parallelism:4}")
+    private int defaultParallelism;
+    
+    private final Map<String, NotebookRun> runs = new ConcurrentHashMap<>();
+    
+    public NotebookRun start(String notebookId, Integer parallelism) {
+        Notebook notebook = notebookService.getNotebook(notebookId);
+        List<NotebookCell> cells = cellRepository.findByNotebook_IdOrderByPosition(notebook.getId()).stream()
+                .filter(cell -> !"markdown".equals(cell.getCellType()))
+                .filter(cell -> cell.getSource() != null && !cell.getSource().isBlank())
+                .toList();
+        if (cells.isEmpty()) {
+            throw new IllegalArgumentException("Notebook has no cells to run: " + notebookId);
+        }
+        
+        // In use, so not evicted, until the whole run finishes
+        SparkSession session = sessionManager.acquire(notebookId);
+        List<CellRun> cellRuns;
+        try {
+            cellRuns = plan(session, cells);
+        } catch (RuntimeException e) {
+            sessionManager.done(notebookId, session);
+            throw e;
+        }
+        
+        int threads = Math.max(1, Math.min(cellRuns.size(),
+                parallelism != null ? parallelism : defaultParallelism));
+        
+        NotebookRun run = new NotebookRun();
+        run.setRunId("run-" + UUID.randomUUID().toString().substring(0, 8));
+        run.setNotebookId(notebookId);
+        run.setParallelism(threads);
+        run.setStatus("RUNNING");
+        run.setStartedAt(LocalDateTime.now());
+        run.setCells(cellRuns);
+        registerRun(run);
+        
+        log.info("Run-all {} started for notebook {}: {} cells, {} at a time",
+                run.getRunId(), notebookId, cellRuns.size(), threads);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, run.getRunId() + "-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        // Each cell starts once everything it depends on has finished
+        Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+        for (CellRun cell : cellRuns) {
+            CompletableFuture<?>[] upstream = cell.getDependsOn().stream()
+                    .map(futures::get)
+                    .toArray(CompletableFuture<?>[]::new);
+            futures.put(cell.getCellId(), CompletableFuture.allOf(upstream)
+                    .thenRunAsync(() -> runCell(run, session, cell), pool));
+        }
+        
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+            pool.shutdown();
+            sessionManager.done(notebookId, session);
+            long failed = run.getCells().stream().filter(cell -> "ERROR".equals(cell.getStatus())).count();
+            run.setFinishedAt(LocalDateTime.now());
+            run.setStatus(run.isCancelled() ? "CANCELLED" : failed > 0 ? "COMPLETED_WITH_ERRORS" : "SUCCEEDED");
+            publish(run, RunEvent.finished(run));
+            log.info("Run-all {} finished: {}", run.getRunId(), run.getStatus());
+        });
+        
+        return run;
+    }
+    
+    public NotebookRun getRun(String notebookId, String runId) {
+        NotebookRun run = runs.get(runId);
+        if (run == null || !run.getNotebookId().equals(notebookId)) {
+            throw new RuntimeException("Notebook run not found: " + runId);
+        }
+        return run;
+    }
+    
+    /**
+     * Skip cells not yet started and cancel the Spark jobs of running ones,
+     * locally or on the notebook's cluster
+     */
+    public NotebookRun cancel(String notebookId, String runId) {
+        NotebookRun run = getRun(notebookId, runId);
+        run.setCancelled(true);
+        // Job groups live in the shared SparkContext
+        sparkSession.sparkContext().cancelJobGroup(runId);
+        clusterRouter.cancelNotebook(notebookId);
+        log.info("Run-all {} cancelled", runId);
+        return run;
+    }
+    
+    /**
+     * Stream progress: the current state of every cell, then each change until
+     * the run finishes. A listener that throws is dropped.
+     */
+    public void subscribe(String notebookId, String runId, Consumer<RunEvent> listener) {
+        NotebookRun run = getRun(notebookId, runId);
+        run.getListeners().add(listener);
+        try {
+            run.getCells().forEach(cell -> listener.accept(RunEvent.cell(run, cell)));
+            if (run.getFinishedAt() != null) {
+                listener.accept(RunEvent.finished(run));
+            }
+        } catch (RuntimeException e) {
+            run.getListeners().remove(listener);
+        }
+    }
+    
+    public void unsubscribe(String notebookId, String runId, Consumer<RunEvent> listener) {
+        getRun(notebookId, runId).getListeners().remove(listener);
+    }
+    
+    private void runCell(NotebookRun run, SparkSession session, CellRun cell) {
+        Optional<CellRun> failedUpstream = run.getCells().stream()
+                .filter(other -> cell.getDependsOn().contains(other.getCellId()))
+                .filter(other -> !"COMPLETED".equals(other.getStatus()))
+                .findFirst();
+        if (run.isCancelled() || failedUpstream.isPresent()) {
+            cell.setStatus("SKIPPED");
+            cell.setErrorMessage(run.isCancelled() ? "Run cancelled"
+                    : "Upstream cell " + failedUpstream.get().getCellId() + " did not complete");
+            publish(run, RunEvent.cell(run, cell));
+            return;
+        }
+        
+        cell.setStatus("RUNNING");
+        cell.setStartedAt(LocalDateTime.now());
+        publish(run, RunEvent.cell(run, cell));
+        
+        session.sparkContext().setJobGroup(run.getRunId(), "Run-all of notebook " + run.getNotebookId(), true);
+        try {
+            NotebookService.CellExecutionResult result = cell.isSql()
+                    ? notebookService.executeSqlCell(run.getNotebookId(), cell.getSource())
+                    : notebookService.executePythonCell(run.getNotebookId(), cell.getSource());
+            cell.setResult(result);
+            cell.setStatus("ERROR".equals(result.getStatus()) ? "ERROR" : "COMPLETED");
+            cell.setErrorMessage(result.getErrorMessage());
+        } catch (Exception e) {
+            log.error("Run-all {}: cell {} failed", run.getRunId(), cell.getCellId(), e);
+            cell.setStatus("ERROR");
+            cell.setErrorMessage(e.getMessage());
+        } finally {
+            session.sparkContext().clearJobGroup();
+        }
+        
+        cell.setFinishedAt(LocalDateTime.now());
+        publish(run, RunEvent.cell(run, cell));
+    }
+    
+    private void publish(NotebookRun run, RunEvent event) {
+        for (Consumer<RunEvent> listener : run.getListeners()) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                log.debug("Dropping run-all listener for {}", run.getRunId(), e);
+                run.getListeners().remove(listener);
+            }
+        }
+    }
+    
+    /**
+     * Cells in notebook order with their dependencies resolved
+     */
+    private List<CellRun> plan(SparkSession session, List<NotebookCell> cells) {
+        List<CellRun> planned = new ArrayList<>();
+        for (NotebookCell cell : cells) {
+            CellRun run = new CellRun();
+            run.setCellId(cell.getCellId());
+            run.setPosition(cell.getPosition());
+            run.setSource(cell.getSource());
+            run.setStatus("PENDING");
+            analyze(session, run);
+            
+            for (CellRun earlier : planned) {
+                if (run.isBarrier() || earlier.isBarrier()
+                        || !Collections.disjoint(earlier.getWrites(), run.getReads())
+                        || !Collections.disjoint(earlier.getWrites(), run.getWrites())
+                        || !Collections.disjoint(earlier.getReads(), run.getWrites())) {
+                    run.getDependsOn().add(earlier.getCellId());
+                }
+            }
+            planned.add(run);
+        }
+        return planned;
+    }
+    
+    private void analyze(SparkSession session, CellRun cell) {
+        LogicalPlan plan;
+        try {
+            plan = session.sessionState().sqlParser().parsePlan(cell.getSource());
+        } catch (ParseException e) {
+            // Not SQL; a code cell may read or define anything
+            cell.setSql(false);
+            cell.setBarrier(true);
+            return;
+        }
+        cell.setSql(true);
+        
+        Set<String> ctes = new HashSet<>();
+        collectNames(plan, cell.getReads(), cell.getWrites(), ctes);
+        cell.getReads().removeAll(ctes);
+        
+        if (plan instanceof CreateViewCommand view) {
+            cell.getWrites().add(normalize(view.name().table()));
+        } else if (plan instanceof CacheTableAsSelect cache) {
+            cell.getWrites().add(normalize(cache.tempViewName()));
+        } else if (plan instanceof InsertIntoStatement insert && insert.table() instanceof UnresolvedRelation target) {
+            cell.getWrites().add(lastPart(target.multipartIdentifier()));
+        } else if (plan instanceof MergeIntoTable || plan instanceof DeleteFromTable || plan instanceof UpdateTable) {
+            // The target is the first child
+            if (!plan.children().isEmpty() && plan.children().head() instanceof UnresolvedRelation target) {
+                cell.getWrites().add(lastPart(target.multipartIdentifier()));
+            }
+        } else if (plan instanceof Command && !(plan instanceof CreateTableAsSelect || plan instanceof ReplaceTableAsSelect
+                || plan instanceof CreateView || plan instanceof DropView || plan instanceof DropTable
+                || plan instanceof CacheTable || plan instanceof UncacheTable)) {
+            // SET, USE, ALTER ... may affect any later cell
+            cell.setBarrier(true);
+        }
+    }
+    
+    /**
+     * Relations read, identifiers created or dropped, and CTE names, from the
+     * plan, its CTE definitions and its subqueries
+     */
+    private void collectNames(LogicalPlan plan, Set<String> reads, Set<String> writes, Set<String> ctes) {
+        if (plan instanceof UnresolvedRelation relation) {
+            reads.add(lastPart(relation.multipartIdentifier()));
+        } else if (plan instanceof UnresolvedIdentifier identifier) {
+            writes.add(lastPart(identifier.nameParts()));
+        } else if (plan instanceof UnresolvedWith with) {
+            JavaConverters.seqAsJavaList(with.cteRelations()).forEach(cte -> ctes.add(normalize(cte._1())));
+        }
+        
+        for (LogicalPlan child : JavaConverters.seqAsJavaList(plan.children())) {
+            collectNames(child, reads, writes, ctes);
+        }
+        for (QueryPlan<?> inner : JavaConverters.seqAsJavaList(plan.innerChildren())) {
+            if (inner instanceof LogicalPlan innerPlan) {
+                collectNames(innerPlan, reads, writes, ctes);
+            }
+        }
+        for (Expression expression : JavaConverters.seqAsJavaList(plan.expressions())) {
+            collectSubqueries(expression, reads, writes, ctes);
+        }
+    }
+    
+    private void collectSubqueries(Expression expression, Set<String> reads, Set<String> writes, Set<String> ctes) {
+        if (expression instanceof SubqueryExpression subquery) {
+            collectNames(subquery.plan(), reads, writes, ctes);
+        }
+        for (Expression child : JavaConverters.seqAsJavaList(expression.children())) {
+            collectSubqueries(child, reads, writes, ctes);
+        }
+    }
+    
+    // Compared on the last name part, so db.t and t conflict: over-ordering is safe
+    private static String lastPart(scala.collection.Seq<String> nameParts) {
+        return normalize(nameParts.last());
+    }
+    
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+    
+    private void registerRun(NotebookRun run) {
+        runs.put(run.getRunId(), run);
+        if (runs.size() > RETAINED_RUNS) {
+            runs.values().stream()
+                    .filter(old -> old.getFinishedAt() != null)
+                    .min(Comparator.comparing(NotebookRun::getStartedAt))
+                    .ifPresent(old -> runs.remove(old.getRunId()));
+        }
+    }
+    
+    @Data
+    public static class NotebookRun {
+        private String runId;
+        private String notebookId;
+        private int parallelism;
+        private volatile String status; // RUNNING, SUCCEEDED, COMPLETED_WITH_ERRORS, CANCELLED
+        private volatile boolean cancelled;
+        private LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private List<CellRun> cells;
+        @JsonIgnore
+        private final List<Consumer<RunEvent>> listeners = new CopyOnWriteArrayList<>();
+    }
+    
+    @Data
+    public static class CellRun {
+        private String cellId;
+        private Integer position;
+        @JsonIgnore
+        private String source;
+        private boolean sql;
+        private boolean barrier;
+        private Set<String> reads = new TreeSet<>();
+        private Set<String> writes = new TreeSet<>();
+        private Set<String> dependsOn = new LinkedHashSet<>();
+        private volatile String status; // PENDING, RUNNING, COMPLETED, ERROR, SKIPPED
+        private volatile String errorMessage;
+        private volatile NotebookService.CellExecutionResult result;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+    }
+    
+    @Data
+    public static class RunEvent {
+        private String type; // cell, run
+        private String runId;
+        private String status;
+        private CellRun cell;
+        
+        static RunEvent cell(NotebookRun run, CellRun cell) {
+            RunEvent event = new RunEvent();
+            event.setType("cell");
+            event.setRunId(run.getRunId());
+            event.setStatus(cell.getStatus());
+            event.setCell(cell);
+            return event;
+        }
+        
+        static RunEvent finished(NotebookRun run) {
+            RunEvent event = new RunEvent();
+            event.setType("run");
+            event.setRunId(run.getRunId());
+            event.setStatus(run.getStatus());
+            return event;
+        }
+    }
+}
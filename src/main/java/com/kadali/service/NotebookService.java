@@ -1,10 +1,14 @@
 package com.kadali.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kadali.dto.NotebookSummary;
+import com.kadali.dto.PageResponse;
 import com.kadali.entity.Notebook;
 import com.kadali.entity.SparkCluster;
 import com.kadali.entity.Tenant;
 import com.kadali.entity.User;
+import com.kadali.repository.KeysetPageRequest;
+import com.kadali.repository.KeysetQueryRepository;
 import com.kadali.repository.NotebookRepository;
 import com.kadali.repository.SparkClusterRepository;
 import com.kadali.repository.TenantRepository;
@@ -27,11 +31,20 @@ import java.util.*;
 @Slf4j
 public class NotebookService {
     
+    private static final List<String> LIST_COLUMNS = List.of(
+            "notebookId", "name", "path", "language", "kernelType", "version",
+            "cluster.clusterId", "executionCount", "lastExecutedAt", "createdAt", "updatedAt");
+    
     private final NotebookRepository notebookRepository;
     private final TenantRepository tenantRepository;
     private final SparkClusterRepository clusterRepository;
-    private final SparkSession sparkSession;
+    private final NotebookSessionManager sessionManager;
+    private final NotebookContentService contentService;
+    private final CellResultCache resultCache;
+    private final ClusterSessionRouter clusterRouter;
+    private final NotebookExecutionStats executionStats;
     private final ObjectMapper objectMapper;
+    private final KeysetQueryRepository keysetQueryRepository;
     
     @Transactional
     public Notebook createNotebook(String tenantId, String name, String language) {
@@ -42,9 +55,8 @@ public class NotebookService {
         
         String notebookId = "nb-" + UUID.randomUUID().toString().substring(0, 8);
         
-        // Initial empty notebook content
+        // Document metadata; cells are stored separately (NotebookContentService)
         Map<String, Object> notebookContent = new HashMap<>();
-        notebookContent.put("cells", new ArrayList<>());
         notebookContent.put("metadata", Map.of(
             "language", language,
             "kernelspec", Map.of(
@@ -76,15 +88,11 @@ public class NotebookService {
         }
     }
     
-    @Transactional
-    public Notebook updateNotebookContent(String notebookId, String content) {
-        Notebook notebook = notebookRepository.findByNotebookId(notebookId)
-                .orElseThrow(() -> new RuntimeException("Notebook not found: " + notebookId));
-        
-        notebook.setContent(content);
-        notebook.setVersion(notebook.getVersion() + 1);
-        
-        return notebookRepository.save(notebook);
+    /**
+     * Save a whole document; only cells that changed are written
+     */
+    public Notebook updateNotebookContent(String notebookId, String content, Integer baseVersion) {
+        return contentService.replaceDocument(notebookId, content, baseVersion);
     }
     
     @Transactional
@@ -92,7 +100,9 @@ public class NotebookService {
         Notebook notebook = notebookRepository.findByNotebookId(notebookId)
                 .orElseThrow(() -> new RuntimeException("Notebook not found: " + notebookId));
         
-        SparkCluster cluster = clusterRepository.findByClusterId(clusterId)
+        // Only clusters of the notebook's own tenant
+        SparkCluster cluster = clusterRepository.findByClusterIdWithTenant(clusterId)
+                .filter(found -> found.getTenant().getId().equals(notebook.getTenant().getId()))
                 .orElseThrow(() -> new RuntimeException("Cluster not found: " + clusterId));
         
         notebook.setCluster(cluster);
@@ -119,21 +129,7 @@ public class NotebookService {
                 code.trim().toLowerCase().startsWith("show") ||
                 code.trim().toLowerCase().startsWith("describe")) {
                 
-                Dataset<Row> df = sparkSession.sql(code);
-                List<Row> rows = df.limit(100).collectAsList();
-                String[] columns = df.columns();
-                
-                List<Map<String, Object>> data = new ArrayList<>();
-                for (Row row : rows) {
-                    Map<String, Object> rowMap = new HashMap<>();
-                    for (int i = 0; i < columns.length; i++) {
-                        rowMap.put(columns[i], row.get(i));
-                    }
-                    data.add(rowMap);
-                }
-                
-                result.setOutputType("table");
-                result.setOutput(data);
+                runQuery(notebook, code, result);
                 result.setStatus("COMPLETED");
                 
             } else {
@@ -147,9 +143,7 @@ public class NotebookService {
             result.setEndTime(LocalDateTime.now());
             
             // Update notebook execution stats
-            notebook.setLastExecutedAt(LocalDateTime.now());
-            notebook.setExecutionCount(notebook.getExecutionCount() + 1);
-            notebookRepository.save(notebook);
+            executionStats.record(notebookId);
             
             log.info("Cell execution completed for notebook: {}", notebookId);
             
@@ -175,29 +169,12 @@ public class NotebookService {
                 .build();
         
         try {
-            Dataset<Row> df = sparkSession.sql(sql);
-            List<Row> rows = df.limit(100).collectAsList();
-            String[] columns = df.columns();
-            
-            List<Map<String, Object>> data = new ArrayList<>();
-            for (Row row : rows) {
-                Map<String, Object> rowMap = new HashMap<>();
-                for (int i = 0; i < columns.length; i++) {
-                    rowMap.put(columns[i], row.get(i));
-                }
-                data.add(rowMap);
-            }
-            
-            result.setOutputType("table");
-            result.setOutput(data);
+            runQuery(notebook, sql, result);
             result.setStatus("COMPLETED");
-            result.setRowCount(data.size());
             result.setEndTime(LocalDateTime.now());
             
             // Update notebook stats
-            notebook.setLastExecutedAt(LocalDateTime.now());
-            notebook.setExecutionCount(notebook.getExecutionCount() + 1);
-            notebookRepository.save(notebook);
+            executionStats.record(notebookId);
             
             log.info("SQL cell execution completed for notebook: {}", notebookId);
             
@@ -211,10 +188,90 @@ public class NotebookService {
         return result;
     }
     
+    /**
+     * Run a query in the notebook's session, or serve the previous result when
+     * neither the query nor any Delta table it reads has changed. Notebooks with
+     * an attached cluster run there instead.
+     */
+    private void runQuery(Notebook notebook, String sql, CellExecutionResult result) {
+        if (notebook.getCluster() != null) {
+            // Proxy ids, the cluster is loaded and checked by the router
+            ClusterSessionRouter.RemoteResult remote = clusterRouter.queryForNotebook(
+                    notebook.getNotebookId(), notebook.getTenant().getId(), notebook.getCluster().getId(), sql, 100);
+            result.setOutputType("table");
+            result.setOutput(remote.rows());
+            result.setRowCount(remote.rows().size());
+            return;
+        }
+        
+        SparkSession session = sessionManager.acquire(notebook.getNotebookId());
+        try {
+            runLocalQuery(notebook, session, sql, result);
+        } finally {
+            sessionManager.done(notebook.getNotebookId(), session);
+        }
+    }
+    
+    private void runLocalQuery(Notebook notebook, SparkSession session, String sql, CellExecutionResult result) {
+        Dataset<Row> df = session.sql(sql);
+        
+        // Proxy id, no tenant load needed
+        Long tenantKey = notebook.getTenant().getId();
+        String cacheKey = resultCache.key(session, df);
+        Optional<CellResultCache.CachedResult> cached = cacheKey != null
+                ? resultCache.get(tenantKey, cacheKey) : Optional.empty();
+        
+        List<Map<String, Object>> data;
+        if (cached.isPresent()) {
+            data = cached.get().rows();
+            result.setCached(true);
+            result.setCachedAt(cached.get().cachedAt());
+        } else {
+            List<Row> rows = df.limit(100).collectAsList();
+            String[] columns = df.columns();
+            
+            data = new ArrayList<>();
+            for (Row row : rows) {
+                Map<String, Object> rowMap = new HashMap<>();
+                for (int i = 0; i < columns.length; i++) {
+                    rowMap.put(columns[i], row.get(i));
+                }
+                data.add(rowMap);
+            }
+            if (cacheKey != null) {
+                resultCache.put(tenantKey, cacheKey, data);
+            }
+        }
+        
+        result.setOutputType("table");
+        result.setOutput(data);
+        result.setRowCount(data.size());
+    }
+    
     public List<Notebook> listNotebooks(String tenantId) {
         return notebookRepository.findByTenant_TenantId(tenantId);
     }
     
+    /**
+     * Paged list of notebook metadata; never loads the content column
+     */
+    public PageResponse<NotebookSummary> listNotebookSummaries(String tenantId, KeysetPageRequest page) {
+        return keysetQueryRepository.findPage(Notebook.class, tenantId, Map.of(), page, LIST_COLUMNS,
+                tuple -> NotebookSummary.builder()
+                        .notebookId(tuple.get("notebookId", String.class))
+                        .name(tuple.get("name", String.class))
+                        .path(tuple.get("path", String.class))
+                        .language(tuple.get("language", String.class))
+                        .kernelType(tuple.get("kernelType", String.class))
+                        .version(tuple.get("version", Integer.class))
+                        .clusterId(tuple.get("clusterId", String.class))
+                        .executionCount(tuple.get("executionCount", Integer.class))
+                        .lastExecutedAt(tuple.get("lastExecutedAt", LocalDateTime.class))
+                        .createdAt(tuple.get("createdAt", LocalDateTime.class))
+                        .updatedAt(tuple.get("updatedAt", LocalDateTime.class))
+                        .build());
+    }
+    
     public Notebook getNotebook(String notebookId) {
         return notebookRepository.findByNotebookId(notebookId)
                 .orElseThrow(() -> new RuntimeException("Notebook not found: " + notebookId));
@@ -224,6 +281,8 @@ public class NotebookService {
     public void deleteNotebook(String notebookId) {
         Notebook notebook = getNotebook(notebookId);
         notebookRepository.delete(notebook);
+        sessionManager.release(notebookId);
+        executionStats.forget(notebookId);
         log.info("Notebook deleted: {}", notebookId);
     }
     
@@ -239,6 +298,8 @@ public class NotebookService {
         private String errorMessage;
         private LocalDateTime startTime;
         private LocalDateTime endTime;
+        private boolean cached; // served from CellResultCache
+        private LocalDateTime cachedAt;
     }
 }
 
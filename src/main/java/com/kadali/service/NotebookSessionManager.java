@@ -0,0 +1,337 @@
+package com.kadali.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.execution.CacheManager;
+import org.apache.spark.sql.execution.CachedData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import scala.Option;
+import scala.collection.JavaConverters;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One Spark session per notebook.
+ *
+ * Each notebook gets its own {@code newSession()} of the shared SparkContext, so
+ * temp views, UDFs and SQL conf persist across its cells without leaking into
+ * other notebooks. New sessions come from a small pool warmed in the background.
+ * Sessions are evicted least-recently-used when idle, when there are too many,
+ * or when the data they cached exceeds the budget; eviction uncaches and drops
+ * their temp views so the shared block manager memory is released. Sessions
+ * with cells running are never evicted, and one released mid-cell is closed
+ * when its last cell finishes. The data a session cached is measured when its
+ * cells finish, outside the lock, and eviction works from those sizes. Victims
+ * are chosen under the lock; warming, uncaching and cluster calls happen after it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotebookSessionManager {
+    
+    private final SparkSession sparkSession;
+    private final ClusterSessionRouter clusterRouter;
+    
+    // Access-ordered: iteration starts at the least recently used notebook
+    private final LinkedHashMap<String, NotebookSession> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    private final Deque<SparkSession> warmPool = new ArrayDeque<>();
+    // Notebooks whose session is being warmed; later acquirers wait for it
+    private final Map<String, CompletableFuture<Void>> opening = new HashMap<>();
+    // Released while cells were still running on them
+    private final Map<SparkSession, NotebookSession> draining = new IdentityHashMap<>();
+    
+    @Value("${kadali.notebooks.sessions.max-sessions:50}")
+    private int maxSessions;
+    
+    @Value("${kadali.notebooks.sessions.warm-pool-size:2}")
+    private int warmPoolSize;
+    
+    @Value("${kadali.notebooks.sessions.idle-timeout-minutes:60}")
+    private long idleTimeoutMinutes;
+    
+    @Value("${kadali.notebooks.sessions.max-cached-bytes:4294967296}")
+    private long maxCachedBytes;
+    
+    @PostConstruct
+    public void init() {
+        refillPool();
+    }
+    
+    /**
+     * The notebook's session, created (from the warm pool when possible) on first
+     * use and kept from eviction until {@link #done}
+     */
+    public SparkSession acquire(String notebookId) {
+        CompletableFuture<Void> reservation;
+        SparkSession spark = null;
+        boolean owner = false;
+        synchronized (this) {
+            NotebookSession session = sessions.get(notebookId);
+            if (session != null) {
+                session.inUse++;
+                session.lastUsedAt = LocalDateTime.now();
+                return session.spark;
+            }
+            reservation = opening.get(notebookId);
+            if (reservation == null) {
+                reservation = new CompletableFuture<>();
+                opening.put(notebookId, reservation);
+                spark = warmPool.pollFirst();
+                owner = true;
+            }
+        }
+        if (!owner) {
+            // Another cell is opening this notebook's session; take it once published
+            reservation.join();
+            return acquire(notebookId);
+        }
+        
+        List<Eviction> evicted;
+        try {
+            if (spark == null) {
+                spark = warmSession();
+            }
+            synchronized (this) {
+                NotebookSession session = new NotebookSession(spark, LocalDateTime.now());
+                session.inUse = 1;
+                sessions.put(notebookId, session);
+                log.info("Spark session opened for notebook {} ({} active)", notebookId, sessions.size());
+                evicted = enforceLimits();
+            }
+        } finally {
+            synchronized (this) {
+                opening.remove(notebookId);
+            }
+            reservation.complete(null);
+        }
+        closeAll(evicted);
+        return spark;
+    }
+    
+    /**
+     * The notebook's cell finished with the session returned by {@link #acquire}
+     */
+    public void done(String notebookId, SparkSession spark) {
+        NotebookSession session;
+        synchronized (this) {
+            session = sessions.get(notebookId);
+            if (session != null && session.spark == spark) {
+                session.inUse--;
+                session.lastUsedAt = LocalDateTime.now();
+            } else {
+                // Released meanwhile; the last cell to finish closes it
+                session = draining.get(spark);
+                if (session == null || --session.inUse > 0) {
+                    return;
+                }
+                draining.remove(spark);
+                spark = null;
+            }
+        }
+        if (spark == null) {
+            close(notebookId, session, "released");
+            return;
+        }
+        // Analyzing the temp views touches the catalog, keep it out of the lock
+        session.cachedBytes = cachedBytes(spark);
+        List<Eviction> evicted;
+        synchronized (this) {
+            evicted = enforceLimits();
+        }
+        closeAll(evicted);
+    }
+    
+    /**
+     * Drop the notebook's session and everything it cached, here and on its cluster
+     */
+    public void release(String notebookId) {
+        NotebookSession session;
+        synchronized (this) {
+            session = sessions.remove(notebookId);
+            if (session != null && session.inUse > 0) {
+                // Cells are still running on it; done() closes it after the last one
+                draining.put(session.spark, session);
+                session = null;
+            }
+        }
+        clusterRouter.releaseNotebook(notebookId);
+        if (session != null) {
+            close(notebookId, session, "released");
+        }
+    }
+    
+    public List<SessionInfo> listSessions() {
+        Map<String, NotebookSession> snapshot;
+        synchronized (this) {
+            snapshot = new LinkedHashMap<>(sessions);
+        }
+        List<SessionInfo> infos = new ArrayList<>();
+        snapshot.forEach((notebookId, session) -> infos.add(SessionInfo.builder()
+                .notebookId(notebookId)
+                .tempViews(tempViews(session.spark).size())
+                .cachedBytes(session.cachedBytes)
+                .createdAt(session.createdAt)
+                .lastUsedAt(session.lastUsedAt)
+                .build()));
+        return infos;
+    }
+    
+    /**
+     * Close idle sessions and top the warm pool back up, every minute
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleSessions() {
+        List<Eviction> evicted = new ArrayList<>();
+        synchronized (this) {
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(idleTimeoutMinutes);
+            Iterator<Map.Entry<String, NotebookSession>> it = sessions.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, NotebookSession> entry = it.next();
+                if (entry.getValue().inUse == 0 && entry.getValue().lastUsedAt.isBefore(cutoff)) {
+                    it.remove();
+                    evicted.add(new Eviction(entry.getKey(), entry.getValue(), "idle for "
+                            + Duration.between(entry.getValue().lastUsedAt, LocalDateTime.now()).toMinutes() + "m"));
+                }
+            }
+            evicted.addAll(enforceLimits());
+        }
+        closeAll(evicted);
+        refillPool();
+    }
+    
+    // Pick least recently used sessions (never one in use) until within budget; the caller closes them
+    private List<Eviction> enforceLimits() {
+        List<Eviction> evicted = new ArrayList<>();
+        long cached = sessions.values().stream().mapToLong(session -> session.cachedBytes).sum();
+        Iterator<Map.Entry<String, NotebookSession>> it = sessions.entrySet().iterator();
+        while (it.hasNext() && (sessions.size() > maxSessions || cached > maxCachedBytes)) {
+            Map.Entry<String, NotebookSession> entry = it.next();
+            if (entry.getValue().inUse > 0) {
+                continue;
+            }
+            cached -= entry.getValue().cachedBytes;
+            it.remove();
+            evicted.add(new Eviction(entry.getKey(), entry.getValue(), "evicted (LRU)"));
+        }
+        return evicted;
+    }
+    
+    private void closeAll(List<Eviction> evicted) {
+        evicted.forEach(eviction -> close(eviction.notebookId(), eviction.session(), eviction.reason()));
+    }
+    
+    private void refillPool() {
+        while (true) {
+            synchronized (this) {
+                if (warmPool.size() >= warmPoolSize) {
+                    return;
+                }
+            }
+            // Warm outside the lock; planning touches the catalog
+            SparkSession spark = warmSession();
+            synchronized (this) {
+                warmPool.addLast(spark);
+            }
+        }
+    }
+    
+    /**
+     * A fresh session with its session state built and the planner exercised,
+     * so the first cell does not pay for lazy initialization
+     */
+    private SparkSession warmSession() {
+        SparkSession spark = sparkSession.newSession();
+        try {
+            spark.sql("SELECT 1").queryExecution().executedPlan();
+        } catch (Exception e) {
+            log.warn("Failed to warm Spark session", e);
+        }
+        return spark;
+    }
+    
+    private void close(String notebookId, NotebookSession session, String reason) {
+        SparkSession spark = session.spark;
+        CacheManager cacheManager = spark.sharedState().cacheManager();
+        int uncached = 0;
+        for (String view : tempViews(spark)) {
+            try {
+                Option<CachedData> cachedData = cacheManager.lookupCachedData(spark.table(view));
+                if (cachedData.isDefined()) {
+                    cacheManager.uncacheQuery(spark, cachedData.get().plan(), true, false);
+                    uncached++;
+                }
+                spark.sessionState().catalog().dropTempView(view);
+            } catch (Exception e) {
+                log.warn("Failed to release temp view {} of notebook {}", view, notebookId, e);
+            }
+        }
+        log.info("Spark session for notebook {} closed: {}, {} cached views released", notebookId, reason, uncached);
+    }
+    
+    private static List<String> tempViews(SparkSession spark) {
+        return JavaConverters.seqAsJavaList(spark.sessionState().catalog().getTempViewNames());
+    }
+    
+    /**
+     * Bytes held in the shared cache for this session's cached temp views
+     */
+    private static long cachedBytes(SparkSession spark) {
+        CacheManager cacheManager = spark.sharedState().cacheManager();
+        long total = 0;
+        for (String view : tempViews(spark)) {
+            try {
+                Option<CachedData> cachedData = cacheManager.lookupCachedData(spark.table(view));
+                if (cachedData.isDefined()) {
+                    total += cachedData.get().cachedRepresentation().cacheBuilder().sizeInBytesStats().value();
+                }
+            } catch (Exception e) {
+                log.debug("Cache size unavailable for temp view {}", view, e);
+            }
+        }
+        return total;
+    }
+    
+    private static class NotebookSession {
+        private final SparkSession spark;
+        private final LocalDateTime createdAt;
+        private volatile LocalDateTime lastUsedAt;
+        // Cells running; guarded by the manager
+        private int inUse;
+        // As of the last finished cell
+        private volatile long cachedBytes;
+        
+        NotebookSession(SparkSession spark, LocalDateTime createdAt) {
+            this.spark = spark;
+            this.createdAt = createdAt;
+            this.lastUsedAt = createdAt;
+        }
+    }
+    
+    private record Eviction(String notebookId, NotebookSession session, String reason) {
+    }
+    
+    @lombok.Data
+    @lombok.Builder
+    public static class SessionInfo {
+        private String notebookId;
+        private int tempViews;
+        private long cachedBytes;
+        private LocalDateTime createdAt;
+        private LocalDateTime lastUsedAt;
+    }
+}
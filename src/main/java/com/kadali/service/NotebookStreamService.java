@@ -0,0 +1,329 @@
+package com.kadali.service;
+
+import com.kadali.dto.CellStreamRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.spark.scheduler.*;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import scala.collection.JavaConverters;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams cell execution to the notebook's STOMP topic.
+ *
+ * Cells run off the request thread in the notebook's session, under a Spark
+ * job group named after the execution. A SparkListener maps jobs back to their
+ * execution through that group and publishes task progress; rows are pulled
+ * with toLocalIterator, one partition at a time, and pushed in batches, so the
+ * first rows arrive as soon as the first partition is done.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotebookStreamService {
+    
+    private static final String JOB_GROUP_PROPERTY = "spark.jobGroup.id";
+    
+    private final SparkSession sparkSession;
+    private final NotebookSessionManager sessionManager;
+    private final NotebookService notebookService;
+    private final NotebookExecutionStats executionStats;
+    private final SimpMessagingTemplate messagingTemplate;
+    
+    @Value("${kadali.notebooks.streaming.max-concurrent:8}")
+    private int maxConcurrent;
+    
+    @Value("${kadali.notebooks.streaming.queue-capacity:32}")
+    private int queueCapacity;
+    
+    @Value("${kadali.notebooks.streaming.batch-rows:500}")
+    private int batchRows;
+    
+    @Value("${kadali.notebooks.streaming.max-rows:10000}")
+    private int maxRows;
+    
+    @Value("${kadali.notebooks.streaming.progress-interval-ms:500}")
+    private long progressIntervalMs;
+    
+    private final Map<String, StreamExecution> executions = new ConcurrentHashMap<>();
+    private final Map<Integer, StreamExecution> stageExecutions = new ConcurrentHashMap<>();
+    
+    private ExecutorService executor;
+    private ProgressListener listener;
+    
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "notebook-stream");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        listener = new ProgressListener();
+        sparkSession.sparkContext().addSparkListener(listener);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        sparkSession.sparkContext().removeSparkListener(listener);
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Queue a cell; everything about it is published to /topic/notebooks/{notebookId}
+     *
+     * @return the execution id, for cancel
+     */
+    public String submit(String notebookId, CellStreamRequest request) {
+        boolean onCluster = notebookService.getNotebook(notebookId).getCluster() != null;
+        
+        StreamExecution execution = new StreamExecution(
+                "exec-" + UUID.randomUUID().toString().substring(0, 8), notebookId, request.getCellId(), onCluster);
+        executions.put(execution.executionId, execution);
+        publish(execution, StreamMessage.builder().type("queued"));
+        
+        try {
+            executor.submit(() -> run(execution, request));
+        } catch (RejectedExecutionException e) {
+            executions.remove(execution.executionId);
+            publish(execution, StreamMessage.builder().type("error")
+                    .errorMessage("Too many cells queued, try again shortly"));
+        }
+        return execution.executionId;
+    }
+    
+    public void cancel(String notebookId, String executionId) {
+        StreamExecution execution = executions.get(executionId);
+        if (execution == null || !execution.notebookId.equals(notebookId)) {
+            throw new RuntimeException("Execution not found: " + executionId);
+        }
+        execution.cancelled = true;
+        sparkSession.sparkContext().cancelJobGroup(executionId);
+        log.info("Cell execution {} cancelled", executionId);
+    }
+    
+    private void run(StreamExecution execution, CellStreamRequest request) {
+        publish(execution, StreamMessage.builder().type("started"));
+        
+        try {
+            if (execution.cancelled) {
+                publish(execution, StreamMessage.builder().type("cancelled"));
+                return;
+            }
+            
+            // Attached clusters return the whole (capped) result in one go
+            if (execution.onCluster) {
+                NotebookService.CellExecutionResult result =
+                        notebookService.executeSqlCell(execution.notebookId, request.getCode());
+                if ("ERROR".equals(result.getStatus())) {
+                    publish(execution, StreamMessage.builder().type("error").errorMessage(result.getErrorMessage()));
+                } else {
+                    @SuppressWarnings("unchecked")
+                    List<Map<String, Object>> rows = (List<Map<String, Object>>) result.getOutput();
+                    publish(execution, StreamMessage.builder().type("rows").rowOffset(0).rows(rows));
+                    publish(execution, StreamMessage.builder().type("completed").rowCount(result.getRowCount()));
+                }
+                return;
+            }
+            
+            if ("python".equals(request.getLanguage()) && !looksLikeSql(request.getCode())) {
+                NotebookService.CellExecutionResult result =
+                        notebookService.executePythonCell(execution.notebookId, request.getCode());
+                publish(execution, StreamMessage.builder().type("completed").output(result.getOutput()));
+                return;
+            }
+            
+            SparkSession session = sessionManager.acquire(execution.notebookId);
+            try {
+                session.sparkContext().setJobGroup(execution.executionId, "Notebook " + execution.notebookId, true);
+                streamRows(execution, session.sql(request.getCode()));
+            } finally {
+                session.sparkContext().clearJobGroup();
+                sessionManager.done(execution.notebookId, session);
+            }
+            executionStats.record(execution.notebookId);
+            
+        } catch (Exception e) {
+            if (execution.cancelled) {
+                publish(execution, StreamMessage.builder().type("cancelled"));
+            } else {
+                log.error("Cell execution {} failed", execution.executionId, e);
+                publish(execution, StreamMessage.builder().type("error").errorMessage(e.getMessage()));
+            }
+        } finally {
+            executions.remove(execution.executionId);
+            stageExecutions.values().removeIf(tracked -> tracked == execution);
+        }
+    }
+    
+    private void streamRows(StreamExecution execution, Dataset<Row> df) {
+        String[] columns = df.columns();
+        publish(execution, StreamMessage.builder().type("schema").columns(List.of(columns)));
+        
+        Iterator<Row> rows = df.toLocalIterator();
+        List<Map<String, Object>> batch = new ArrayList<>(batchRows);
+        int sent = 0;
+        boolean truncated = false;
+        
+        while (rows.hasNext()) {
+            if (execution.cancelled) {
+                publish(execution, StreamMessage.builder().type("cancelled").rowOffset(sent));
+                return;
+            }
+            if (sent + batch.size() >= maxRows) {
+                truncated = true;
+                break;
+            }
+            
+            Row row = rows.next();
+            Map<String, Object> rowMap = new LinkedHashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                rowMap.put(columns[i], row.get(i));
+            }
+            batch.add(rowMap);
+            
+            if (batch.size() == batchRows) {
+                publish(execution, StreamMessage.builder().type("rows").rowOffset(sent).rows(batch));
+                sent += batch.size();
+                batch = new ArrayList<>(batchRows);
+            }
+        }
+        
+        if (!batch.isEmpty()) {
+            publish(execution, StreamMessage.builder().type("rows").rowOffset(sent).rows(batch));
+            sent += batch.size();
+        }
+        if (truncated) {
+            // Stop fetching the remaining partitions
+            sparkSession.sparkContext().cancelJobGroup(execution.executionId);
+        }
+        publish(execution, StreamMessage.builder().type("completed").rowCount(sent).truncated(truncated));
+    }
+    
+    private void publish(StreamExecution execution, StreamMessage.StreamMessageBuilder message) {
+        messagingTemplate.convertAndSend("/topic/notebooks/" + execution.notebookId, message
+                .executionId(execution.executionId)
+                .cellId(execution.cellId)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+    
+    private static boolean looksLikeSql(String code) {
+        String lower = code.trim().toLowerCase(Locale.ROOT);
+        return lower.startsWith("select") || lower.startsWith("show") || lower.startsWith("describe");
+    }
+    
+    private static class StreamExecution {
+        private final String executionId;
+        private final String notebookId;
+        private final String cellId;
+        private final AtomicInteger totalTasks = new AtomicInteger();
+        private final AtomicInteger completedTasks = new AtomicInteger();
+        private final boolean onCluster;
+        private volatile boolean cancelled;
+        private volatile long lastProgressAt;
+        
+        StreamExecution(String executionId, String notebookId, String cellId, boolean onCluster) {
+            this.executionId = executionId;
+            this.notebookId = notebookId;
+            this.cellId = cellId;
+            this.onCluster = onCluster;
+        }
+    }
+    
+    /**
+     * Runs on the listener bus thread: must stay cheap
+     */
+    private class ProgressListener extends SparkListener {
+        
+        @Override
+        public void onJobStart(SparkListenerJobStart jobStart) {
+            String group = jobStart.properties() != null
+                    ? jobStart.properties().getProperty(JOB_GROUP_PROPERTY) : null;
+            StreamExecution execution = group != null ? executions.get(group) : null;
+            if (execution == null) {
+                return;
+            }
+            for (StageInfo stage : JavaConverters.seqAsJavaList(jobStart.stageInfos())) {
+                stageExecutions.put(stage.stageId(), execution);
+            }
+            publishProgress(execution, jobStart.jobId(), true);
+        }
+        
+        // Counted on submission: stages whose output is reused are skipped and never submitted
+        @Override
+        public void onStageSubmitted(SparkListenerStageSubmitted stageSubmitted) {
+            StreamExecution execution = stageExecutions.get(stageSubmitted.stageInfo().stageId());
+            if (execution != null) {
+                execution.totalTasks.addAndGet(stageSubmitted.stageInfo().numTasks());
+            }
+        }
+        
+        @Override
+        public void onTaskEnd(SparkListenerTaskEnd taskEnd) {
+            StreamExecution execution = stageExecutions.get(taskEnd.stageId());
+            if (execution != null) {
+                execution.completedTasks.incrementAndGet();
+                publishProgress(execution, null, false);
+            }
+        }
+        
+        @Override
+        public void onStageCompleted(SparkListenerStageCompleted stageCompleted) {
+            StreamExecution execution = stageExecutions.remove(stageCompleted.stageInfo().stageId());
+            if (execution != null) {
+                publishProgress(execution, null, true);
+            }
+        }
+        
+        private void publishProgress(StreamExecution execution, Integer jobId, boolean force) {
+            long now = System.currentTimeMillis();
+            if (!force && now - execution.lastProgressAt < progressIntervalMs) {
+                return;
+            }
+            execution.lastProgressAt = now;
+            publish(execution, StreamMessage.builder()
+                    .type("progress")
+                    .jobId(jobId)
+                    .completedTasks(execution.completedTasks.get())
+                    .totalTasks(execution.totalTasks.get()));
+        }
+    }
+    
+    @Data
+    @Builder
+    public static class StreamMessage {
+        private String type; // queued, started, progress, schema, rows, completed, cancelled, error
+        private String executionId;
+        private String cellId;
+        private Integer jobId;
+        private Integer completedTasks;
+        private Integer totalTasks;
+        private List<String> columns;
+        private Integer rowOffset;
+        private List<Map<String, Object>> rows;
+        private Integer rowCount;
+        private Boolean truncated;
+        private Object output;
+        private String errorMessage;
+        private LocalDateTime timestamp;
+    }
+}
@@ -0,0 +1,266 @@
+package com.kadali.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.spark.api.java.function.ForeachPartitionFunction;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SaveMode;
+import org.apache.spark.sql.types.*;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk export to PostgreSQL with COPY.
+ *
+ * Every Spark partition streams CSV through {@code COPY ... FROM STDIN} into a
+ * shared staging table in parallel. A new table is the staging table renamed;
+ * an existing one keeps its identity (sequences, foreign keys, views, grants)
+ * and is truncated and refilled from staging, or appended to, in a single
+ * transaction so readers never see a partial export.
+ */
+@Service
+@Slf4j
+public class PostgresCopyExporter {
+    
+    @Value("${kadali.connectors.jdbc.max-write-partitions:8}")
+    private int maxWritePartitions;
+    
+    public void export(Dataset<Row> data, String jdbcUrl, String username, String password,
+                       String tableName, SaveMode saveMode) {
+        validateSchema(data.schema());
+        
+        String stagingTable = tableName + "_stg_" + UUID.randomUUID().toString().substring(0, 8);
+        boolean targetExists;
+        
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, username, password)) {
+            targetExists = tableExists(connection, tableName);
+            
+            if (targetExists && saveMode == SaveMode.ErrorIfExists) {
+                throw new IllegalStateException("Target table already exists: " + tableName);
+            }
+            if (targetExists && saveMode == SaveMode.Ignore) {
+                log.info("Target table {} exists, skipping export (SaveMode.Ignore)", tableName);
+                return;
+            }
+            
+            if (targetExists && saveMode == SaveMode.Overwrite && isReferenced(connection, tableName)) {
+                throw new IllegalStateException("Cannot overwrite " + tableName +
+                        ": other tables reference it by foreign key");
+            }
+            
+            if (targetExists) {
+                // Same columns and defaults; constraints and indexes apply when rows reach the live table
+                execute(connection, String.format("CREATE TABLE %s (LIKE %s INCLUDING DEFAULTS)",
+                        stagingTable, tableName));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to prepare staging table for " + tableName, e);
+        }
+        
+        if (!targetExists) {
+            // Let Spark derive the DDL from the DataFrame schema, without writing rows
+            Properties properties = new Properties();
+            properties.setProperty("user", username);
+            properties.setProperty("password", password);
+            properties.setProperty("driver", "org.postgresql.Driver");
+            data.limit(0).write().mode(SaveMode.Overwrite).jdbc(jdbcUrl, stagingTable, properties);
+        }
+        
+        try {
+            Dataset<Row> partitions = data.rdd().getNumPartitions() > maxWritePartitions
+                    ? data.coalesce(maxWritePartitions)
+                    : data;
+            
+            log.info("COPY into staging table {} with {} parallel writers",
+                    stagingTable, partitions.rdd().getNumPartitions());
+            partitions.foreachPartition(new CopyPartitionWriter(
+                    jdbcUrl, username, password, stagingTable, data.columns()));
+            
+            swapIn(jdbcUrl, username, password, tableName, stagingTable, data.columns(), targetExists, saveMode);
+            
+        } catch (RuntimeException e) {
+            dropQuietly(jdbcUrl, username, password, stagingTable);
+            throw e;
+        }
+    }
+    
+    private void swapIn(String jdbcUrl, String username, String password, String tableName,
+                        String stagingTable, String[] columns, boolean targetExists, SaveMode saveMode) {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, username, password)) {
+            connection.setAutoCommit(false);
+            try {
+                if (!targetExists) {
+                    execute(connection, String.format("ALTER TABLE %s RENAME TO %s",
+                            stagingTable, unqualified(tableName)));
+                } else {
+                    if (saveMode == SaveMode.Overwrite) {
+                        execute(connection, "TRUNCATE TABLE " + tableName);
+                    }
+                    String columnList = columnList(columns);
+                    execute(connection, String.format("INSERT INTO %s (%s) SELECT %s FROM %s",
+                            tableName, columnList, columnList, stagingTable));
+                    execute(connection, "DROP TABLE " + stagingTable);
+                }
+                connection.commit();
+                log.info("Staging table {} swapped into {} ({})", stagingTable, tableName, saveMode);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to swap in staging table for " + tableName, e);
+        }
+    }
+    
+    private void validateSchema(StructType schema) {
+        for (StructField field : schema.fields()) {
+            DataType type = field.dataType();
+            if (type instanceof ArrayType || type instanceof MapType || type instanceof StructType) {
+                throw new IllegalArgumentException(
+                        "COPY export does not support nested column: " + field.name());
+            }
+        }
+    }
+    
+    private boolean tableExists(Connection connection, String tableName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT to_regclass(?) IS NOT NULL")) {
+            statement.setString(1, tableName);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+    
+    private boolean isReferenced(Connection connection, String tableName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT EXISTS (SELECT 1 FROM pg_constraint WHERE contype = 'f' AND confrelid = to_regclass(?))")) {
+            statement.setString(1, tableName);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+    
+    private void dropQuietly(String jdbcUrl, String username, String password, String table) {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, username, password)) {
+            execute(connection, "DROP TABLE IF EXISTS " + table);
+        } catch (SQLException e) {
+            log.warn("Failed to drop staging table {}", table, e);
+        }
+    }
+    
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+    
+    private static String columnList(String[] columns) {
+        return Arrays.stream(columns)
+                .map(column -> "\"" + column.replace("\"", "\"\"") + "\"")
+                .collect(Collectors.joining(", "));
+    }
+    
+    // RENAME TO takes a bare name; the table stays in its schema
+    private static String unqualified(String tableName) {
+        return tableName.substring(tableName.lastIndexOf('.') + 1);
+    }
+    
+    /**
+     * Runs on executors: streams one partition as CSV into the staging table
+     */
+    private static class CopyPartitionWriter implements ForeachPartitionFunction<Row> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private static final int BUFFER_BYTES = 1 << 20;
+        
+        private final String jdbcUrl;
+        private final String username;
+        private final String password;
+        private final String table;
+        private final String[] columns;
+        
+        CopyPartitionWriter(String jdbcUrl, String username, String password,
+                            String table, String[] columns) {
+            this.jdbcUrl = jdbcUrl;
+            this.username = username;
+            this.password = password;
+            this.table = table;
+            this.columns = columns;
+        }
+        
+        @Override
+        public void call(Iterator<Row> rows) throws Exception {
+            if (!rows.hasNext()) {
+                return;
+            }
+            
+            String sql = String.format("COPY %s (%s) FROM STDIN WITH (FORMAT csv)", table, columnList(columns));
+            
+            try (Connection connection = DriverManager.getConnection(jdbcUrl, username, password)) {
+                CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+                try {
+                    StringBuilder buffer = new StringBuilder(BUFFER_BYTES);
+                    while (rows.hasNext()) {
+                        appendCsvLine(buffer, rows.next());
+                        if (buffer.length() >= BUFFER_BYTES) {
+                            flush(copy, buffer);
+                        }
+                    }
+                    flush(copy, buffer);
+                    copy.endCopy();
+                } finally {
+                    if (copy.isActive()) {
+                        copy.cancelCopy();
+                    }
+                }
+            }
+        }
+        
+        private static void flush(CopyIn copy, StringBuilder buffer) throws SQLException {
+            if (buffer.length() > 0) {
+                byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+                copy.writeToCopy(bytes, 0, bytes.length);
+                buffer.setLength(0);
+            }
+        }
+        
+        private static void appendCsvLine(StringBuilder buffer, Row row) {
+            for (int i = 0; i < row.length(); i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                if (row.isNullAt(i)) {
+                    continue; // unquoted empty field is NULL in CSV COPY
+                }
+                Object value = row.get(i);
+                if (value instanceof String text) {
+                    buffer.append('"').append(text.replace("\"", "\"\"")).append('"');
+                } else if (value instanceof BigDecimal decimal) {
+                    buffer.append(decimal.toPlainString());
+                } else if (value instanceof byte[] bytes) {
+                    buffer.append("\\x").append(HexFormat.of().formatHex(bytes));
+                } else {
+                    buffer.append(value);
+                }
+            }
+            buffer.append('\n');
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.kadali.service;
+
+import com.kadali.dto.SchemaHintRequest;
+import com.kadali.entity.SchemaHint;
+import com.kadali.entity.Tenant;
+import com.kadali.repository.SchemaHintRepository;
+import com.kadali.repository.TenantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.spark.sql.types.DataType;
+import org.apache.spark.sql.types.StructType;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Schema hints for recurring CSV/JSON loads.
+ *
+ * The first load of a file infers its schema and records it as a suggested
+ * hint under a pattern derived from the file name (digit runs become
+ * {@code *}, so {@code sales_2024-01-31.csv} is suggested as
+ * {@code sales_*-*-*.csv}). A derived pattern can match unrelated files, so
+ * suggestions are never applied on their own: only hints a user saved or
+ * confirmed are passed to Spark, which then skips inference.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SchemaRegistryService {
+    
+    private final SchemaHintRepository schemaHintRepository;
+    private final TenantRepository tenantRepository;
+    
+    // tenantId -> compiled hints, most specific first
+    private final Map<String, List<CompiledHint>> cache = new ConcurrentHashMap<>();
+    
+    /**
+     * @return the registered schema for this file, or null when it must be inferred
+     */
+    public StructType findSchema(String tenantId, String format, String sourceName) {
+        if (sourceName == null) {
+            return null;
+        }
+        
+        String fileName = fileName(sourceName);
+        for (CompiledHint hint : cache.computeIfAbsent(tenantId, this::loadHints)) {
+            if (hint.userDefined() && hint.format().equals(format) && hint.pattern().matcher(fileName).matches()) {
+                log.info("Using registered schema '{}' for {}", hint.sourcePattern(), fileName);
+                return hint.schema();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Record an inferred schema as a suggestion, unless the derived pattern is already registered.
+     * Not transactional, so a lost insert race doesn't poison an outer transaction.
+     */
+    public void recordInferred(String tenantId, String format, String sourceName, StructType schema) {
+        if (sourceName == null) {
+            return;
+        }
+        
+        String pattern = patternFor(fileName(sourceName));
+        if (schemaHintRepository.findByTenant_TenantIdAndFormatAndSourcePattern(
+                tenantId, format, pattern).isPresent()) {
+            return;
+        }
+        
+        Tenant tenant = tenantRepository.findByTenantId(tenantId).orElse(null);
+        if (tenant == null) {
+            return;
+        }
+        
+        try {
+            schemaHintRepository.saveAndFlush(SchemaHint.builder()
+                    .tenant(tenant)
+                    .sourcePattern(pattern)
+                    .format(format)
+                    .schemaJson(schema.json())
+                    .inferred(true)
+                    .build());
+            cache.remove(tenantId);
+            log.info("Recorded inferred schema for pattern '{}' ({})", pattern, format);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Schema hint '{}' was recorded concurrently", pattern);
+        }
+    }
+    
+    /**
+     * Create or replace a user-supplied schema hint
+     */
+    @Transactional
+    public SchemaHint saveHint(String tenantId, SchemaHintRequest request) {
+        String format = request.getFormat().toLowerCase(Locale.ROOT);
+        StructType schema = parseSchema(request.getSchema());
+        
+        Tenant tenant = tenantRepository.findByTenantId(tenantId)
+                .orElseThrow(() -> new RuntimeException("Tenant not found: " + tenantId));
+        
+        SchemaHint hint = schemaHintRepository.findByTenant_TenantIdAndFormatAndSourcePattern(
+                        tenantId, format, request.getSourcePattern())
+                .orElseGet(() -> SchemaHint.builder()
+                        .tenant(tenant)
+                        .sourcePattern(request.getSourcePattern())
+                        .format(format)
+                        .build());
+        hint.setSchemaJson(schema.json());
+        hint.setInferred(false);
+        
+        hint = schemaHintRepository.save(hint);
+        cache.remove(tenantId);
+        log.info("Schema hint saved: '{}' ({})", request.getSourcePattern(), format);
+        return hint;
+    }
+    
+    /**
+     * Accept a suggested (inferred) hint, so that matching loads use it
+     */
+    @Transactional
+    public SchemaHint confirmHint(String tenantId, Long hintId) {
+        SchemaHint hint = schemaHintRepository.findById(hintId)
+                .filter(h -> h.getTenant().getTenantId().equals(tenantId))
+                .orElseThrow(() -> new RuntimeException("Schema hint not found: " + hintId));
+        
+        hint.setInferred(false);
+        hint = schemaHintRepository.save(hint);
+        cache.remove(tenantId);
+        log.info("Schema hint confirmed: '{}' ({})", hint.getSourcePattern(), hint.getFormat());
+        return hint;
+    }
+    
+    public List<SchemaHint> listHints(String tenantId) {
+        return schemaHintRepository.findByTenant_TenantId(tenantId);
+    }
+    
+    @Transactional
+    public void deleteHint(String tenantId, Long hintId) {
+        SchemaHint hint = schemaHintRepository.findById(hintId)
+                .filter(h -> h.getTenant().getTenantId().equals(tenantId))
+                .orElseThrow(() -> new RuntimeException("Schema hint not found: " + hintId));
+        
+        schemaHintRepository.delete(hint);
+        cache.remove(tenantId);
+        log.info("Schema hint deleted: {}", hintId);
+    }
+    
+    private List<CompiledHint> loadHints(String tenantId) {
+        return schemaHintRepository.findByTenant_TenantId(tenantId).stream()
+                .map(hint -> new CompiledHint(
+                        hint.getSourcePattern(),
+                        hint.getFormat(),
+                        globToRegex(hint.getSourcePattern()),
+                        (StructType) DataType.fromJson(hint.getSchemaJson()),
+                        Boolean.FALSE.equals(hint.getInferred()),
+                        hint.getSourcePattern().replaceAll("[*?]", "").length()))
+                // User corrections win, then the most literal pattern
+                .sorted(Comparator.comparing(CompiledHint::userDefined).reversed()
+                        .thenComparing(Comparator.comparingInt(CompiledHint::specificity).reversed()))
+                .toList();
+    }
+    
+    /**
+     * Accepts either a StructType JSON document or a DDL column list
+     */
+    static StructType parseSchema(String schema) {
+        try {
+            String trimmed = schema.trim();
+            if (trimmed.startsWith("{")) {
+                DataType type = DataType.fromJson(trimmed);
+                if (!(type instanceof StructType struct)) {
+                    throw new IllegalArgumentException("Schema JSON must describe a struct");
+                }
+                return struct;
+            }
+            return StructType.fromDDL(trimmed);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid schema: " + e.getMessage(), e);
+        }
+    }
+    
+    static String patternFor(String fileName) {
+        return fileName.replaceAll("\\d+", "*");
+    }
+    
+    private static String fileName(String sourceName) {
+        return sourceName.substring(Math.max(sourceName.lastIndexOf('/'), sourceName.lastIndexOf('\\')) + 1);
+    }
+    
+    private static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (String literal : glob.split("((?<=[*?])|(?=[*?]))")) {
+            switch (literal) {
+                case "*" -> regex.append(".*");
+                case "?" -> regex.append('.');
+                default -> regex.append(Pattern.quote(literal));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+    }
+    
+    private record CompiledHint(String sourcePattern, String format, Pattern pattern,
+                                StructType schema, boolean userDefined, int specificity) {
+    }
+}
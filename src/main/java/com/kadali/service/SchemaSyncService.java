@@ -0,0 +1,372 @@
+package com.kadali.service;
+
+import com.kadali.dto.SchemaSyncRequest;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Whole-schema sync: discovers the source tables and syncs them to Delta on a
+ * bounded worker pool, largest tables first so the slowest table starts early.
+ *
+ * Concurrency is bounded by a connection budget per source database, shared
+ * by every run against it: a table starts only once its partitions fit in the
+ * source's max-source-connections, so concurrent runs queue rather than
+ * overload the source. A request may lower its own share, never raise it.
+ * Tables of different schemas that would land in the same Delta table are
+ * rejected before the run starts. Run state is kept in memory and lost on restart.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SchemaSyncService {
+    
+    private static final int RETAINED_RUNS = 100;
+    
+    private final DataConnectorService connectorService;
+    
+    @Value("${kadali.connectors.schema-sync.max-concurrent-tables:4}")
+    private int defaultConcurrentTables;
+    
+    @Value("${kadali.connectors.schema-sync.max-source-connections:16}")
+    private int defaultSourceConnections;
+    
+    private final Map<String, SchemaSyncRun> runs = new ConcurrentHashMap<>();
+    
+    // Connection budget per source database, across runs
+    private final Map<String, Semaphore> sourceBudgets = new ConcurrentHashMap<>();
+    
+    public SchemaSyncRun start(String tenantId, SchemaSyncRequest request) {
+        List<SourceTable> tables = discoverTables(request);
+        if (tables.isEmpty()) {
+            throw new IllegalArgumentException("No tables match the include/exclude patterns");
+        }
+        Map<SourceTable, String> targets = targetTableNames(tables, request.getSourceSchema() == null);
+        
+        int connections = request.getMaxSourceConnections() != null
+                ? Math.min(request.getMaxSourceConnections(), defaultSourceConnections) : defaultSourceConnections;
+        int concurrency = Math.min(tables.size(), Math.min(connections,
+                request.getMaxConcurrentTables() != null ? request.getMaxConcurrentTables() : defaultConcurrentTables));
+        int partitionsPerTable = Math.max(1, connections / concurrency);
+        
+        SchemaSyncRun run = new SchemaSyncRun();
+        run.setRunId("schema-sync-" + UUID.randomUUID().toString().substring(0, 8));
+        run.setTenantId(tenantId);
+        run.setSourceType(request.getSourceType().toLowerCase());
+        run.setSourceSchema(request.getSourceSchema());
+        run.setTargetDatabase(request.getTargetDatabase());
+        run.setConcurrency(concurrency);
+        run.setPartitionsPerTable(partitionsPerTable);
+        run.setStatus("RUNNING");
+        run.setStartedAt(LocalDateTime.now());
+        run.setTables(tables.stream().map(table -> {
+            TableProgress progress = new TableProgress();
+            progress.setSourceTable(table.qualifiedName());
+            progress.setTargetTable(targets.get(table));
+            progress.setEstimatedRows(table.estimatedRows());
+            progress.setEstimatedBytes(table.estimatedBytes());
+            progress.setStatus("PENDING");
+            return progress;
+        }).toList());
+        
+        registerRun(run);
+        log.info("Schema sync {} started: {} tables, {} at a time, {} partitions each",
+                run.getRunId(), tables.size(), concurrency, partitionsPerTable);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, run.getRunId() + "-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        // Submitted largest first; the fixed pool picks them up in that order
+        Semaphore budget = sourceBudgets.computeIfAbsent(sourceKey(request.getJdbcUrl()),
+                key -> new Semaphore(defaultSourceConnections, true));
+        CompletableFuture<?>[] futures = run.getTables().stream()
+                .map(table -> CompletableFuture.runAsync(() -> syncTable(run, table, request, budget), pool))
+                .toArray(CompletableFuture<?>[]::new);
+        
+        CompletableFuture.allOf(futures).whenComplete((ignored, error) -> {
+            pool.shutdown();
+            run.setFinishedAt(LocalDateTime.now());
+            run.setStatus(run.isCancelled() ? "CANCELLED"
+                    : run.getFailedTables().get() > 0 ? "COMPLETED_WITH_ERRORS" : "SUCCEEDED");
+            log.info("Schema sync {} finished: {} succeeded, {} failed",
+                    run.getRunId(), run.getCompletedTables().get(), run.getFailedTables().get());
+        });
+        
+        return run;
+    }
+    
+    public SchemaSyncRun getRun(String tenantId, String runId) {
+        SchemaSyncRun run = runs.get(runId);
+        if (run == null || !run.getTenantId().equals(tenantId)) {
+            throw new RuntimeException("Schema sync not found: " + runId);
+        }
+        return run;
+    }
+    
+    public List<SchemaSyncRun> listRuns(String tenantId) {
+        return runs.values().stream()
+                .filter(run -> run.getTenantId().equals(tenantId))
+                .sorted(Comparator.comparing(SchemaSyncRun::getStartedAt).reversed())
+                .toList();
+    }
+    
+    /**
+     * Stop scheduling further tables; tables already syncing run to completion
+     */
+    public SchemaSyncRun cancel(String tenantId, String runId) {
+        SchemaSyncRun run = getRun(tenantId, runId);
+        run.setCancelled(true);
+        log.info("Schema sync {} cancelled", runId);
+        return run;
+    }
+    
+    private void syncTable(SchemaSyncRun run, TableProgress table, SchemaSyncRequest request, Semaphore budget) {
+        if (run.isCancelled()) {
+            table.setStatus("SKIPPED");
+            return;
+        }
+        
+        // Waits while other runs hold the source's connections
+        try {
+            budget.acquire(run.getPartitionsPerTable());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            table.setStatus("SKIPPED");
+            return;
+        }
+        try {
+            if (run.isCancelled()) {
+                table.setStatus("SKIPPED");
+                return;
+            }
+            syncTable(run, table, request);
+        } finally {
+            budget.release(run.getPartitionsPerTable());
+        }
+    }
+    
+    private void syncTable(SchemaSyncRun run, TableProgress table, SchemaSyncRequest request) {
+        table.setStatus("RUNNING");
+        table.setStartedAt(LocalDateTime.now());
+        long start = System.nanoTime();
+        
+        try {
+            DataConnectorService.PushdownReport report = connectorService.syncDatabaseTableToDelta(
+                    request.getSourceType(), request.getJdbcUrl(), request.getUsername(),
+                    request.getPassword(), table.getSourceTable(), run.getTenantId(),
+                    request.getTargetDatabase(), table.getTargetTable(),
+                    null, run.getPartitionsPerTable(), null, null);
+            
+            long rows = report.getRowsRead() != null ? report.getRowsRead() : 0;
+            double seconds = Math.max((System.nanoTime() - start) / 1e9, 0.001);
+            table.setRowsRead(rows);
+            table.setRowsPerSecond(Math.round(rows / seconds));
+            table.setStatus("SUCCEEDED");
+            run.getCompletedTables().incrementAndGet();
+            
+        } catch (Exception e) {
+            log.error("Schema sync {}: table {} failed", run.getRunId(), table.getSourceTable(), e);
+            table.setStatus("FAILED");
+            table.setError(e.getMessage());
+            run.getFailedTables().incrementAndGet();
+            
+        } finally {
+            table.setDurationMs(Duration.ofNanos(System.nanoTime() - start).toMillis());
+            table.setFinishedAt(LocalDateTime.now());
+        }
+    }
+    
+    /**
+     * Tables from JDBC metadata, filtered by the patterns and sorted largest first
+     */
+    private List<SourceTable> discoverTables(SchemaSyncRequest request) {
+        List<Pattern> include = globs(request.getInclude());
+        List<Pattern> exclude = globs(request.getExclude());
+        
+        try (Connection connection = DriverManager.getConnection(
+                request.getJdbcUrl(), request.getUsername(), request.getPassword())) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            boolean mysql = metaData.getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+            
+            // MySQL exposes databases as catalogs, Postgres uses schemas
+            String catalog = mysql ? Optional.ofNullable(request.getSourceSchema()).orElse(connection.getCatalog()) : null;
+            String schema = mysql ? null : request.getSourceSchema();
+            
+            Map<String, long[]> statistics = tableStatistics(connection, mysql, catalog, schema);
+            
+            List<SourceTable> tables = new ArrayList<>();
+            try (ResultSet rs = metaData.getTables(catalog, schema, "%", new String[] {"TABLE"})) {
+                while (rs.next()) {
+                    String name = rs.getString("TABLE_NAME");
+                    String tableSchema = mysql ? null : rs.getString("TABLE_SCHEM");
+                    if (isSystemSchema(tableSchema) || !matches(name, include, true) || matches(name, exclude, false)) {
+                        continue;
+                    }
+                    
+                    String qualified = tableSchema != null ? tableSchema + "." + name
+                            : catalog != null ? catalog + "." + name : name;
+                    long[] stats = statistics.getOrDefault(qualified.toLowerCase(Locale.ROOT), new long[] {-1, -1});
+                    tables.add(new SourceTable(qualified, tableSchema, name, stats[0], stats[1]));
+                }
+            }
+            
+            tables.sort(Comparator.comparingLong(SourceTable::estimatedBytes)
+                    .thenComparingLong(SourceTable::estimatedRows)
+                    .reversed());
+            return tables;
+            
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to discover source tables: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Planner statistics for every table in one query: qualified name -> [rows, bytes]
+     */
+    private Map<String, long[]> tableStatistics(Connection connection, boolean mysql,
+                                                String catalog, String schema) {
+        String sql = mysql
+                ? "SELECT TABLE_SCHEMA, TABLE_NAME, TABLE_ROWS, DATA_LENGTH FROM information_schema.TABLES "
+                        + "WHERE TABLE_SCHEMA = ?"
+                : "SELECT n.nspname, c.relname, c.reltuples::bigint, pg_total_relation_size(c.oid) "
+                        + "FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+                        + "WHERE c.relkind IN ('r', 'p') AND (? IS NULL OR n.nspname = ?)";
+        
+        Map<String, long[]> statistics = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, mysql ? catalog : schema);
+            if (!mysql) {
+                statement.setString(2, schema);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    String key = (rs.getString(1) + "." + rs.getString(2)).toLowerCase(Locale.ROOT);
+                    statistics.put(key, new long[] {rs.getLong(3), rs.getLong(4)});
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Table statistics unavailable, syncing in discovery order", e);
+        }
+        return statistics;
+    }
+    
+    private boolean isSystemSchema(String schema) {
+        return schema != null && (schema.equals("information_schema") || schema.startsWith("pg_"));
+    }
+    
+    private boolean matches(String name, List<Pattern> patterns, boolean emptyMatches) {
+        if (patterns.isEmpty()) {
+            return emptyMatches;
+        }
+        return patterns.stream().anyMatch(pattern -> pattern.matcher(name).matches());
+    }
+    
+    private List<Pattern> globs(List<String> globs) {
+        if (globs == null) {
+            return List.of();
+        }
+        return globs.stream()
+                .map(glob -> Pattern.compile(
+                        ("\\Q" + glob + "\\E").replace("*", "\\E.*\\Q").replace("?", "\\E.\\Q"),
+                        Pattern.CASE_INSENSITIVE))
+                .toList();
+    }
+    
+    /**
+     * Delta table per source table: the table name, prefixed by its schema when
+     * the sync spans schemas. Names are folded to lower case, so a.orders and
+     * b.orders, or Orders and orders, could collide; those are rejected.
+     */
+    static Map<SourceTable, String> targetTableNames(List<SourceTable> tables, boolean spansSchemas) {
+        Map<SourceTable, String> targets = new LinkedHashMap<>();
+        Map<String, String> sources = new HashMap<>();
+        List<String> collisions = new ArrayList<>();
+        for (SourceTable table : tables) {
+            String name = spansSchemas && table.schema() != null ? table.schema() + "_" + table.name() : table.name();
+            String target = name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_]", "_");
+            String previous = sources.putIfAbsent(target, table.qualifiedName());
+            if (previous != null) {
+                collisions.add(previous + " and " + table.qualifiedName() + " -> " + target);
+            }
+            targets.put(table, target);
+        }
+        if (!collisions.isEmpty()) {
+            throw new IllegalArgumentException("Source tables map to the same target table, exclude one of each: "
+                    + String.join("; ", collisions));
+        }
+        return targets;
+    }
+    
+    // One budget per database, whatever the connection options
+    private static String sourceKey(String jdbcUrl) {
+        int options = jdbcUrl.indexOf('?');
+        return (options < 0 ? jdbcUrl : jdbcUrl.substring(0, options)).toLowerCase(Locale.ROOT);
+    }
+    
+    private void registerRun(SchemaSyncRun run) {
+        runs.put(run.getRunId(), run);
+        if (runs.size() > RETAINED_RUNS) {
+            runs.values().stream()
+                    .filter(old -> old.getFinishedAt() != null)
+                    .min(Comparator.comparing(SchemaSyncRun::getStartedAt))
+                    .ifPresent(old -> runs.remove(old.getRunId()));
+        }
+    }
+    
+    record SourceTable(String qualifiedName, String schema, String name, long estimatedRows, long estimatedBytes) {
+    }
+    
+    @Data
+    public static class SchemaSyncRun {
+        private String runId;
+        private String tenantId;
+        private String sourceType;
+        private String sourceSchema;
+        private String targetDatabase;
+        private int concurrency;
+        private int partitionsPerTable;
+        private volatile String status; // RUNNING, SUCCEEDED, COMPLETED_WITH_ERRORS, CANCELLED
+        private volatile boolean cancelled;
+        private final AtomicInteger completedTables = new AtomicInteger();
+        private final AtomicInteger failedTables = new AtomicInteger();
+        private LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private List<TableProgress> tables;
+        
+        public int getTotalTables() {
+            return tables.size();
+        }
+    }
+    
+    @Data
+    public static class TableProgress {
+        private String sourceTable;
+        private String targetTable;
+        private long estimatedRows;
+        private long estimatedBytes;
+        private volatile String status; // PENDING, RUNNING, SUCCEEDED, FAILED, SKIPPED
+        private volatile Long rowsRead;
+        private volatile Long rowsPerSecond;
+        private volatile Long durationMs;
+        private volatile String error;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+    }
+}
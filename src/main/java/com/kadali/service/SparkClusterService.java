@@ -1,19 +1,28 @@
 package com.kadali.service;
 
+import com.kadali.dto.ClusterResponse;
+import com.kadali.dto.PageResponse;
+import com.kadali.entity.ClusterOperation;
 import com.kadali.entity.SparkCluster;
 import com.kadali.entity.Tenant;
+import com.kadali.repository.ClusterOperationRepository;
+import com.kadali.repository.KeysetPageRequest;
+import com.kadali.repository.KeysetQueryRepository;
 import com.kadali.repository.SparkClusterRepository;
 import com.kadali.repository.TenantRepository;
+import com.kadali.spark.DriverShape;
 import com.kadali.spark.K8sSparkClusterManager;
+import com.kadali.spark.WarmDriverPool;
 import io.fabric8.kubernetes.api.model.Pod;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -21,18 +30,49 @@ import java.util.UUID;
 @Slf4j
 public class SparkClusterService {
     
+    private static final List<String> LIST_COLUMNS = List.of(
+            "clusterId", "name", "clusterType", "status",
+            "driverMemory", "driverCores", "executorMemory", "executorCores", "executorCount",
+            "minExecutors", "maxExecutors",
+            "sparkUiUrl", "createdAt", "startedAt", "lastActivityAt");
+    
     private final SparkClusterRepository clusterRepository;
     private final TenantRepository tenantRepository;
+    private final ClusterOperationRepository operationRepository;
     private final K8sSparkClusterManager k8sManager;
+    private final WarmDriverPool warmPool;
+    private final ClusterSessionRouter clusterRouter;
+    private final ClusterActivityTracker activityTracker;
+    private final KeysetQueryRepository keysetQueryRepository;
     
+    /**
+     * Record the cluster and queue its provisioning; returns at once with the
+     * CREATE operation to poll. A repeated idempotency key returns the
+     * operation of the first request instead of creating another cluster.
+     */
     @Transactional
-    public SparkCluster createCluster(String tenantId, String name, 
-                                      SparkCluster.ClusterType type,
-                                      String driverMemory, int driverCores,
-                                      String executorMemory, int executorCores, 
-                                      int executorCount) {
+    public ClusterOperation createCluster(String tenantId, String name, 
+                                          SparkCluster.ClusterType type,
+                                          String driverMemory, int driverCores,
+                                          String executorMemory, int executorCores, 
+                                          int executorCount, int minExecutors, int maxExecutors,
+                                          String idempotencyKey) {
         log.info("Creating Spark cluster for tenant: {}", tenantId);
         
+        if (idempotencyKey != null) {
+            Optional<ClusterOperation> previous =
+                    operationRepository.findByTenant_TenantIdAndIdempotencyKey(tenantId, idempotencyKey);
+            if (previous.isPresent()) {
+                log.info("Cluster request {} already accepted as {}", idempotencyKey, previous.get().getOperationId());
+                return previous.get();
+            }
+        }
+        
+        if (minExecutors > maxExecutors) {
+            throw new IllegalArgumentException("Min executors must not exceed max executors");
+        }
+        int initialExecutors = Math.max(minExecutors, Math.min(executorCount, maxExecutors));
+        
         Tenant tenant = tenantRepository.findByTenantId(tenantId)
                 .orElseThrow(() -> new RuntimeException("Tenant not found: " + tenantId));
         
@@ -49,111 +89,192 @@ public class SparkClusterService {
                 .driverCores(driverCores)
                 .executorMemory(executorMemory)
                 .executorCores(executorCores)
-                .executorCount(executorCount)
+                .executorCount(initialExecutors)
+                .minExecutors(minExecutors)
+                .maxExecutors(maxExecutors)
                 .namespace(namespace)
                 .build();
+        clusterRepository.save(cluster);
         
-        cluster = clusterRepository.save(cluster);
-        
-        try {
-            // Create Spark cluster on Kubernetes
-            Pod driverPod = k8sManager.createSparkDriverPod(
-                    clusterId, tenantId,
-                    driverMemory, driverCores,
-                    executorMemory, executorCores, executorCount
-            );
-            
-            cluster.setDriverPodName(driverPod.getMetadata().getName());
-            cluster.setStatus(SparkCluster.ClusterStatus.RUNNING);
-            cluster.setStartedAt(LocalDateTime.now());
-            
-            // Get Spark UI URL
-            String sparkUiUrl = k8sManager.getSparkUIUrl(clusterId, tenantId);
-            cluster.setSparkUiUrl(sparkUiUrl);
-            
-            log.info("Spark cluster created successfully: {}", clusterId);
-            
-        } catch (Exception e) {
-            log.error("Failed to create Spark cluster: {}", clusterId, e);
-            cluster.setStatus(SparkCluster.ClusterStatus.ERROR);
-            throw new RuntimeException("Failed to create Spark cluster", e);
-        }
-        
-        return clusterRepository.save(cluster);
+        return operationRepository.save(ClusterOperation.builder()
+                .operationId("op-" + UUID.randomUUID().toString().substring(0, 8))
+                .tenant(tenant)
+                .clusterId(clusterId)
+                .operationType(ClusterOperation.OperationType.CREATE)
+                .idempotencyKey(idempotencyKey)
+                .build());
+    }
+    
+    /**
+     * The operation accepted for the idempotency key, e.g. by a concurrent request
+     */
+    public Optional<ClusterOperation> findOperation(String tenantId, String idempotencyKey) {
+        return operationRepository.findByTenant_TenantIdAndIdempotencyKey(tenantId, idempotencyKey);
     }
     
+    /**
+     * Mark the cluster TERMINATING and queue its teardown; a termination
+     * already queued for it is returned instead of a second one. A CREATE
+     * still queued is cancelled.
+     */
     @Transactional
-    public void terminateCluster(String clusterId) {
+    public ClusterOperation terminateCluster(String clusterId) {
         log.info("Terminating Spark cluster: {}", clusterId);
         
         SparkCluster cluster = clusterRepository.findByClusterId(clusterId)
                 .orElseThrow(() -> new RuntimeException("Cluster not found: " + clusterId));
         
+        Optional<ClusterOperation> active =
+                operationRepository.findActive(clusterId, ClusterOperation.OperationType.TERMINATE);
+        if (active.isPresent()) {
+            return active.get();
+        }
+        if (cluster.getStatus() == SparkCluster.ClusterStatus.TERMINATED) {
+            throw new IllegalStateException("Cluster is already terminated: " + clusterId);
+        }
+        
         cluster.setStatus(SparkCluster.ClusterStatus.TERMINATING);
         clusterRepository.save(cluster);
+        operationRepository.cancelPending(clusterId, ClusterOperation.OperationType.CREATE, LocalDateTime.now());
         
-        try {
-            k8sManager.deleteSparkCluster(clusterId, cluster.getTenant().getTenantId());
-            
-            cluster.setStatus(SparkCluster.ClusterStatus.TERMINATED);
-            cluster.setTerminatedAt(LocalDateTime.now());
-            clusterRepository.save(cluster);
-            
-            log.info("Spark cluster terminated: {}", clusterId);
-            
-        } catch (Exception e) {
-            log.error("Failed to terminate Spark cluster: {}", clusterId, e);
-            cluster.setStatus(SparkCluster.ClusterStatus.ERROR);
-            clusterRepository.save(cluster);
-            throw new RuntimeException("Failed to terminate Spark cluster", e);
+        return operationRepository.save(ClusterOperation.builder()
+                .operationId("op-" + UUID.randomUUID().toString().substring(0, 8))
+                .tenant(cluster.getTenant())
+                .clusterId(clusterId)
+                .operationType(ClusterOperation.OperationType.TERMINATE)
+                .build());
+    }
+    
+    /**
+     * Queue termination of a cluster found idle, in its own transaction;
+     * null if it saw activity since (or stopped running) and is kept
+     */
+    @Transactional
+    public ClusterOperation terminateIdleCluster(String clusterId) {
+        if (clusterRepository.markIdleTerminating(clusterId, LocalDateTime.now()) == 0) {
+            return null;
         }
+        SparkCluster cluster = clusterRepository.findByClusterIdWithTenant(clusterId)
+                .orElseThrow(() -> new RuntimeException("Cluster not found: " + clusterId));
+        
+        log.info("Auto-terminating idle cluster: {}", clusterId);
+        return operationRepository.save(ClusterOperation.builder()
+                .operationId("op-" + UUID.randomUUID().toString().substring(0, 8))
+                .tenant(cluster.getTenant())
+                .clusterId(clusterId)
+                .operationType(ClusterOperation.OperationType.TERMINATE)
+                .build());
+    }
+    
+    /**
+     * Start the cluster's driver; run by a worker, outside any transaction.
+     * Safe to repeat: a driver that already exists is kept.
+     */
+    public void provisionCluster(String clusterId) {
+        SparkCluster cluster = clusterRepository.findByClusterIdWithTenant(clusterId)
+                .orElseThrow(() -> new RuntimeException("Cluster not found: " + clusterId));
+        if (cluster.getStatus() != SparkCluster.ClusterStatus.CREATING) {
+            log.info("Skipping provisioning of cluster {}: {}", clusterId, cluster.getStatus());
+            return;
+        }
+        String tenantId = cluster.getTenant().getTenantId();
+        
+        Pod driverPod = k8sManager.getDriverPod(clusterId, tenantId);
+        if (driverPod == null) {
+            // Claim a pre-started driver of this shape, or create one on Kubernetes
+            DriverShape shape = new DriverShape(cluster.getDriverMemory(), cluster.getDriverCores(),
+                    cluster.getExecutorMemory(), cluster.getExecutorCores(),
+                    cluster.getMinExecutors(), cluster.getMaxExecutors());
+            driverPod = warmPool.claim(shape, clusterId, tenantId)
+                    .orElseGet(() -> k8sManager.createSparkDriverPod(
+                            clusterId, tenantId, shape, cluster.getExecutorCount()));
+        }
+        
+        // A claimed warm pod runs with the executors it was pooled with, not the requested count
+        Integer executorCount = K8sSparkClusterManager.initialExecutors(driverPod);
+        if (executorCount == null) {
+            executorCount = cluster.getExecutorCount();
+        }
+        
+        // Stays CREATING; ClusterStatusReconciler moves it to RUNNING once the driver is ready
+        if (clusterRepository.recordDriver(clusterId, driverPod.getMetadata().getName(),
+                driverPod.getMetadata().getNamespace(), executorCount) == 0) {
+            // Terminated while the driver was starting; its teardown may have run before the pod existed
+            log.info("Cluster {} was terminated during provisioning, removing its driver", clusterId);
+            k8sManager.deleteSparkCluster(clusterId, tenantId);
+            return;
+        }
+        log.info("Spark cluster driver started: {}", clusterId);
+    }
+    
+    /**
+     * Remove the cluster's driver and executors; run by a worker, safe to repeat
+     */
+    public void deprovisionCluster(String clusterId) {
+        SparkCluster cluster = clusterRepository.findByClusterIdWithTenant(clusterId)
+                .orElseThrow(() -> new RuntimeException("Cluster not found: " + clusterId));
+        
+        clusterRouter.closeCluster(clusterId);
+        activityTracker.forget(clusterId);
+        k8sManager.deleteSparkCluster(clusterId, cluster.getTenant().getTenantId());
+        clusterRepository.markTerminated(clusterId, LocalDateTime.now());
+        log.info("Spark cluster terminated: {}", clusterId);
+    }
+    
+    public ClusterOperation getOperation(String operationId) {
+        return operationRepository.findByOperationId(operationId)
+                .orElseThrow(() -> new RuntimeException("Operation not found: " + operationId));
     }
     
     public List<SparkCluster> getClustersByTenant(String tenantId) {
         return clusterRepository.findByTenant_TenantId(tenantId);
     }
     
-    public SparkCluster getCluster(String clusterId) {
-        return clusterRepository.findByClusterId(clusterId)
-                .orElseThrow(() -> new RuntimeException("Cluster not found: " + clusterId));
+    public PageResponse<ClusterResponse> listClusterSummaries(String tenantId, KeysetPageRequest page) {
+        return keysetQueryRepository.findPage(SparkCluster.class, tenantId, Map.of(), page, LIST_COLUMNS,
+                tuple -> ClusterResponse.builder()
+                        .clusterId(tuple.get("clusterId", String.class))
+                        .name(tuple.get("name", String.class))
+                        .type(tuple.get("clusterType", SparkCluster.ClusterType.class).name())
+                        .status(tuple.get("status", SparkCluster.ClusterStatus.class).name())
+                        .driverMemory(tuple.get("driverMemory", String.class))
+                        .driverCores(tuple.get("driverCores", Integer.class))
+                        .executorMemory(tuple.get("executorMemory", String.class))
+                        .executorCores(tuple.get("executorCores", Integer.class))
+                        .executorCount(tuple.get("executorCount", Integer.class))
+                        .minExecutors(tuple.get("minExecutors", Integer.class))
+                        .maxExecutors(tuple.get("maxExecutors", Integer.class))
+                        .sparkUiUrl(tuple.get("sparkUiUrl", String.class))
+                        .createdAt(tuple.get("createdAt", LocalDateTime.class))
+                        .startedAt(tuple.get("startedAt", LocalDateTime.class))
+                        .lastActivityAt(tuple.get("lastActivityAt", LocalDateTime.class))
+                        .build());
     }
     
-    @Transactional
-    public void updateClusterActivity(String clusterId) {
-        SparkCluster cluster = clusterRepository.findByClusterId(clusterId)
+    public SparkCluster getCluster(String clusterId) {
+        return clusterRepository.findByClusterId(clusterId)
                 .orElseThrow(() -> new RuntimeException("Cluster not found: " + clusterId));
-        cluster.setLastActivityAt(LocalDateTime.now());
-        clusterRepository.save(cluster);
     }
     
     /**
-     * Auto-terminate idle clusters every 5 minutes
+     * Executors currently running for the cluster, or null when it is not running
      */
-    @Scheduled(fixedDelay = 300000) // 5 minutes
-    @Transactional
-    public void autoTerminateIdleClusters() {
-        log.debug("Checking for idle clusters to auto-terminate");
-        
-        LocalDateTime threshold = LocalDateTime.now().minusMinutes(60);
-        List<SparkCluster> idleClusters = clusterRepository.findIdleClusters(threshold);
-        
-        for (SparkCluster cluster : idleClusters) {
-            if (cluster.getAutoTerminateMinutes() != null && 
-                cluster.getAutoTerminateMinutes() > 0) {
-                
-                LocalDateTime idleThreshold = LocalDateTime.now()
-                        .minusMinutes(cluster.getAutoTerminateMinutes());
-                
-                if (cluster.getLastActivityAt().isBefore(idleThreshold)) {
-                    log.info("Auto-terminating idle cluster: {}", cluster.getClusterId());
-                    try {
-                        terminateCluster(cluster.getClusterId());
-                    } catch (Exception e) {
-                        log.error("Failed to auto-terminate cluster: {}", cluster.getClusterId(), e);
-                    }
-                }
-            }
+    public Integer getActiveExecutors(SparkCluster cluster) {
+        if (cluster.getStatus() != SparkCluster.ClusterStatus.RUNNING) {
+            return null;
+        }
+        try {
+            return k8sManager.countRunningExecutors(cluster.getClusterId(), cluster.getTenant().getTenantId());
+        } catch (Exception e) {
+            log.warn("Executor count unavailable for cluster {}", cluster.getClusterId(), e);
+            return null;
         }
     }
+    
+    public void updateClusterActivity(String clusterId) {
+        if (!clusterRepository.existsByClusterId(clusterId)) {
+            throw new RuntimeException("Cluster not found: " + clusterId);
+        }
+        activityTracker.touch(clusterId);
+    }
 }
-
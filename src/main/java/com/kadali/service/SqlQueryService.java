@@ -20,11 +20,19 @@ import java.util.concurrent.ConcurrentHashMap;
 public class SqlQueryService {
     
     private final SparkSession sparkSession;
+    private final ClusterSessionRouter clusterRouter;
     
     // In-memory query cache (in production, use Redis or similar)
     private final Map<String, QueryResult> queryCache = new ConcurrentHashMap<>();
     
     public QueryResult executeQuery(String queryId, String tenantId, String sql, int limit) {
+        return executeQuery(queryId, tenantId, null, sql, limit);
+    }
+    
+    /**
+     * Run on the given cluster when clusterId is set, otherwise in the embedded session
+     */
+    public QueryResult executeQuery(String queryId, String tenantId, String clusterId, String sql, int limit) {
         log.info("Executing query {} for tenant: {}", queryId, tenantId);
         
         QueryResult result = QueryResult.builder()
@@ -37,27 +45,34 @@ public class SqlQueryService {
         queryCache.put(queryId, result);
         
         try {
-            // Execute query
-            Dataset<Row> df = sparkSession.sql(sql);
-            
-            if (limit > 0) {
-                df = df.limit(limit);
-            }
-            
-            // Collect results
-            List<Row> rows = df.collectAsList();
-            String[] columns = df.columns();
-            
-            List<Map<String, Object>> data = new ArrayList<>();
-            for (Row row : rows) {
-                Map<String, Object> rowMap = new HashMap<>();
-                for (int i = 0; i < columns.length; i++) {
-                    rowMap.put(columns[i], row.get(i));
+            List<String> columns;
+            List<Map<String, Object>> data;
+            if (clusterId != null) {
+                ClusterSessionRouter.RemoteResult remote = clusterRouter.query(tenantId, clusterId, sql, limit);
+                columns = remote.columns();
+                data = remote.rows();
+            } else {
+                Dataset<Row> df = sparkSession.sql(sql);
+                
+                if (limit > 0) {
+                    df = df.limit(limit);
+                }
+                
+                // Collect results
+                List<Row> rows = df.collectAsList();
+                columns = Arrays.asList(df.columns());
+                
+                data = new ArrayList<>();
+                for (Row row : rows) {
+                    Map<String, Object> rowMap = new HashMap<>();
+                    for (int i = 0; i < columns.size(); i++) {
+                        rowMap.put(columns.get(i), row.get(i));
+                    }
+                    data.add(rowMap);
                 }
-                data.add(rowMap);
             }
             
-            result.setColumns(Arrays.asList(columns));
+            result.setColumns(columns);
             result.setData(data);
             result.setRowCount(data.size());
             result.setStatus("COMPLETED");
@@ -0,0 +1,297 @@
+package com.kadali.service;
+
+import com.kadali.dto.DatabaseSyncRequest;
+import com.kadali.entity.SyncJob;
+import com.kadali.entity.Tenant;
+import com.kadali.repository.SyncJobRepository;
+import com.kadali.repository.TenantRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Incremental database sync jobs.
+ *
+ * Each run reads only rows whose watermark column is above the persisted high
+ * watermark and MERGEs them into the Delta target on the job's key columns
+ * (or appends when no keys are configured).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncJobService {
+    
+    private final SyncJobRepository syncJobRepository;
+    private final TenantRepository tenantRepository;
+    private final DataConnectorService connectorService;
+    private final DeltaLakeService deltaLakeService;
+    
+    // Jobs running on this instance, whose leases it renews
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    
+    @Value("${kadali.connectors.sync-jobs.max-concurrent:2}")
+    private int maxConcurrent;
+    
+    @Value("${kadali.connectors.sync-jobs.lease-minutes:10}")
+    private long leaseMinutes;
+    
+    private ThreadPoolExecutor runners;
+    
+    @PostConstruct
+    public void init() {
+        runners = (ThreadPoolExecutor) Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "sync-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted runs are taken over once their lease expires
+        runners.shutdownNow();
+    }
+    
+    @Transactional
+    public SyncJob createJob(String tenantId, DatabaseSyncRequest request) {
+        if (request.getWatermarkColumn() == null || request.getWatermarkColumn().isBlank()) {
+            throw new IllegalArgumentException("Watermark column is required for a sync job");
+        }
+        
+        Tenant tenant = tenantRepository.findByTenantId(tenantId)
+                .orElseThrow(() -> new RuntimeException("Tenant not found: " + tenantId));
+        
+        String jobId = "sync-" + UUID.randomUUID().toString().substring(0, 8);
+        
+        SyncJob job = SyncJob.builder()
+                .jobId(jobId)
+                .tenant(tenant)
+                .sourceType(request.getSourceType().toLowerCase())
+                .jdbcUrl(request.getJdbcUrl())
+                .username(request.getUsername())
+                .password(request.getPassword())
+                .sourceTable(request.getSourceTable())
+                .partitionColumn(request.getPartitionColumn())
+                .maxPartitions(request.getMaxPartitions())
+                .columns(request.getColumns() == null ? null
+                        : String.join(",", request.getColumns()))
+                .sourceFilter(request.getFilter())
+                .targetDatabase(request.getTargetDatabase())
+                .targetTable(request.getTargetTable())
+                .watermarkColumn(request.getWatermarkColumn())
+                .keyColumns(request.getKeyColumns() == null ? null
+                        : String.join(",", request.getKeyColumns()))
+                .scheduleIntervalMinutes(request.getScheduleIntervalMinutes())
+                .nextRunAt(request.getScheduleIntervalMinutes() != null ? LocalDateTime.now() : null)
+                .build();
+        
+        job = syncJobRepository.save(job);
+        log.info("Sync job created: {} ({} -> {}.{})", jobId, request.getSourceTable(),
+                request.getTargetDatabase(), request.getTargetTable());
+        return job;
+    }
+    
+    public List<SyncJob> listJobs(String tenantId) {
+        return syncJobRepository.findByTenant_TenantId(tenantId);
+    }
+    
+    public SyncJob getJob(String tenantId, String jobId) {
+        return syncJobRepository.findByTenant_TenantIdAndJobId(tenantId, jobId)
+                .orElseThrow(() -> new RuntimeException("Sync job not found: " + jobId));
+    }
+    
+    @Transactional
+    public void deleteJob(String tenantId, String jobId) {
+        syncJobRepository.delete(getJob(tenantId, jobId));
+        log.info("Sync job deleted: {}", jobId);
+    }
+    
+    /**
+     * Start one incremental sync on the runner pool and return the job as
+     * RUNNING; poll the job for the outcome. Not transactional: the Spark work
+     * runs outside any database transaction and state is saved once at the end.
+     */
+    public SyncJob runJob(String tenantId, String jobId) {
+        getJob(tenantId, jobId);
+        LocalDateTime now = LocalDateTime.now();
+        if (syncJobRepository.claim(jobId, now, now.plusMinutes(leaseMinutes)) == 0) {
+            throw new IllegalStateException("Sync job is already running: " + jobId);
+        }
+        submit(jobId);
+        return getJob(tenantId, jobId);
+    }
+    
+    // Leased from the claim on, so a run still queued behind busy runners keeps its job
+    private void submit(String jobId) {
+        running.add(jobId);
+        runners.submit(() -> {
+            try {
+                execute(jobId);
+            } catch (Exception e) {
+                log.error("Sync job failed: {}", jobId, e);
+            }
+        });
+    }
+    
+    private SyncJob execute(String jobId) {
+        running.add(jobId);
+        try {
+            return sync(jobId);
+        } finally {
+            running.remove(jobId);
+        }
+    }
+    
+    private SyncJob sync(String jobId) {
+        SyncJob job = syncJobRepository.findWithTenantByJobId(jobId)
+                .orElseThrow(() -> new RuntimeException("Sync job not found: " + jobId));
+        String tenantId = job.getTenant().getTenantId();
+        
+        log.info("Running sync job {} from watermark {}", jobId, job.getHighWatermark());
+        
+        try {
+            String lowWatermark = job.getHighWatermark();
+            String highWatermark = connectorService.queryHighWatermark(
+                    job.getSourceType(), job.getJdbcUrl(), job.getUsername(), job.getPassword(),
+                    job.getSourceTable(), job.getWatermarkColumn(), lowWatermark);
+            
+            if (highWatermark == null) {
+                log.info("Sync job {}: no rows beyond watermark {}", jobId, lowWatermark);
+                job.setLastRowCount(0L);
+            } else {
+                Dataset<Row> changes = connectorService.loadIncrementalFromDatabase(
+                        job.getSourceType(), job.getJdbcUrl(), job.getUsername(), job.getPassword(),
+                        job.getSourceTable(), job.getPartitionColumn(), job.getMaxPartitions(),
+                        projection(job), job.getSourceFilter(),
+                        job.getWatermarkColumn(), lowWatermark, highWatermark);
+                log.info("Sync job {} source scan: {}", jobId, connectorService.describePushdown(changes));
+                
+                job.setLastRowCount(writeChanges(job, tenantId, changes));
+                job.setHighWatermark(highWatermark);
+            }
+            
+            job.setStatus(SyncJob.SyncStatus.SUCCEEDED);
+            job.setLastError(null);
+            log.info("Sync job {} completed: {} rows, watermark now {}",
+                    jobId, job.getLastRowCount(), job.getHighWatermark());
+                    
+        } catch (Exception e) {
+            log.error("Sync job {} failed", jobId, e);
+            job.setStatus(SyncJob.SyncStatus.FAILED);
+            job.setLastError(e.getMessage());
+        }
+        
+        if (job.getScheduleIntervalMinutes() != null) {
+            job.setNextRunAt(LocalDateTime.now().plusMinutes(job.getScheduleIntervalMinutes()));
+        }
+        job.setLockedUntil(null);
+        return syncJobRepository.save(job);
+    }
+    
+    private long writeChanges(SyncJob job, String tenantId, Dataset<Row> changes) {
+        String database = job.getTargetDatabase();
+        String table = job.getTargetTable();
+        
+        Map<String, String> metrics;
+        if (!deltaLakeService.deltaTableExists(tenantId, database, table)) {
+            deltaLakeService.createDeltaTable(tenantId, database, table, changes, null);
+            metrics = deltaLakeService.lastOperationMetrics(tenantId, database, table);
+            return Long.parseLong(metrics.getOrDefault("numOutputRows", "0"));
+        }
+        
+        List<String> keys = keyColumns(job);
+        if (keys.isEmpty()) {
+            deltaLakeService.appendToDeltaTable(tenantId, database, table, changes);
+            metrics = deltaLakeService.lastOperationMetrics(tenantId, database, table);
+            return Long.parseLong(metrics.getOrDefault("numOutputRows", "0"));
+        }
+        
+        deltaLakeService.mergeIntoDeltaTable(tenantId, database, table, changes, keys);
+        metrics = deltaLakeService.lastOperationMetrics(tenantId, database, table);
+        return Long.parseLong(metrics.getOrDefault("numSourceRows", "0"));
+    }
+    
+    private List<String> keyColumns(SyncJob job) {
+        return splitColumns(job.getKeyColumns());
+    }
+    
+    /**
+     * Configured columns plus the merge keys, or null to read every column
+     */
+    private List<String> projection(SyncJob job) {
+        List<String> columns = splitColumns(job.getColumns());
+        if (columns.isEmpty()) {
+            return null;
+        }
+        List<String> projection = new ArrayList<>(columns);
+        keyColumns(job).stream()
+                .filter(key -> projection.stream().noneMatch(key::equalsIgnoreCase))
+                .forEach(projection::add);
+        return projection;
+    }
+    
+    private List<String> splitColumns(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(column -> !column.isEmpty())
+                .toList();
+    }
+    
+    /**
+     * Start scheduled sync jobs that are due, as many as there are idle runners.
+     * Runs go to their own pool: a sync can take hours and must not hold the
+     * shared scheduler thread.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void runDueJobs() {
+        int idle = maxConcurrent - runners.getActiveCount() - runners.getQueue().size();
+        if (idle <= 0) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        for (SyncJob job : syncJobRepository.findDueJobs(now, PageRequest.of(0, idle))) {
+            if (syncJobRepository.claim(job.getJobId(), now, now.plusMinutes(leaseMinutes)) == 0) {
+                continue; // Claimed by another instance
+            }
+            submit(job.getJobId());
+        }
+    }
+    
+    /**
+     * Keep the leases of this instance's runs ahead of expiry
+     */
+    @Scheduled(fixedDelayString = "${kadali.connectors.sync-jobs.lease-renew-ms:60000}")
+    public void renewLeases() {
+        if (running.isEmpty()) {
+            return;
+        }
+        try {
+            syncJobRepository.renewLeases(List.copyOf(running), LocalDateTime.now().plusMinutes(leaseMinutes));
+        } catch (Exception e) {
+            log.warn("Failed to renew leases of {} running sync jobs", running.size(), e);
+        }
+    }
+}
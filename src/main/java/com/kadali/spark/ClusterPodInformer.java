@@ -0,0 +1,131 @@
+package com.kadali.spark;
+
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * Watched, in-memory view of every Spark driver and executor pod.
+ *
+ * One informer on the app=spark label replaces the per-request LIST calls:
+ * pods are indexed by cluster id (drivers) and owning driver uid (executors).
+ * Listeners get every driver pod change, including the periodic resync, and
+ * deletions as a null pod.
+ */
+@Service
+@ConditionalOnProperty(name = "kadali.kubernetes.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterPodInformer {
+    
+    private static final String BY_CLUSTER = "cluster-id";
+    private static final String BY_OWNER = "owner-uid";
+    
+    private final KubernetesClient kubernetesClient;
+    
+    private final List<BiConsumer<String, Pod>> driverListeners = new CopyOnWriteArrayList<>();
+    
+    @Value("${kadali.spark.informer.resync-seconds:300}")
+    private long resyncSeconds;
+    
+    private SharedIndexInformer<Pod> informer;
+    
+    @PostConstruct
+    public void start() {
+        informer = kubernetesClient.pods()
+                .inAnyNamespace()
+                .withLabel("app", "spark")
+                .runnableInformer(resyncSeconds * 1000);
+        informer.addIndexers(Map.of(
+                BY_CLUSTER, pod -> label(pod, "cluster-id"),
+                BY_OWNER, pod -> pod.getMetadata().getOwnerReferences().stream().map(OwnerReference::getUid).toList()));
+        informer.addEventHandler(new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(Pod pod) {
+                notifyDriver(pod, pod);
+            }
+            
+            @Override
+            public void onUpdate(Pod oldPod, Pod newPod) {
+                notifyDriver(newPod, newPod);
+            }
+            
+            @Override
+            public void onDelete(Pod pod, boolean deletedFinalStateUnknown) {
+                notifyDriver(pod, null);
+            }
+        });
+        informer.start();
+        log.info("Watching Spark pods (resync every {}s)", resyncSeconds);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (informer != null) {
+            informer.stop();
+        }
+    }
+    
+    /**
+     * Let listeners see driver pod changes: (clusterId, pod or null once deleted)
+     */
+    public void addDriverListener(BiConsumer<String, Pod> listener) {
+        driverListeners.add(listener);
+    }
+    
+    public boolean hasSynced() {
+        return informer != null && informer.hasSynced();
+    }
+    
+    public Pod getDriverPod(String clusterId) {
+        return informer.getIndexer().byIndex(BY_CLUSTER, clusterId).stream()
+                .filter(pod -> "driver".equals(pod.getMetadata().getLabels().get("component")))
+                .findFirst()
+                .orElse(null);
+    }
+    
+    public List<Pod> getWarmDriverPods() {
+        return informer.getIndexer().list().stream()
+                .filter(pod -> pod.getMetadata().getLabels().containsKey(K8sSparkClusterManager.WARM_POOL_LABEL))
+                .toList();
+    }
+    
+    public List<Pod> getExecutorPods(Pod driver) {
+        return informer.getIndexer().byIndex(BY_OWNER, driver.getMetadata().getUid()).stream()
+                .filter(pod -> "executor".equals(pod.getMetadata().getLabels().get("spark-role")))
+                .toList();
+    }
+    
+    private void notifyDriver(Pod pod, Pod current) {
+        String clusterId = pod.getMetadata().getLabels().get("cluster-id");
+        if (clusterId == null || !"driver".equals(pod.getMetadata().getLabels().get("component"))) {
+            return;
+        }
+        for (BiConsumer<String, Pod> listener : driverListeners) {
+            try {
+                listener.accept(clusterId, current);
+            } catch (Exception e) {
+                log.warn("Driver pod listener failed for cluster {}", clusterId, e);
+            }
+        }
+    }
+    
+    private static List<String> label(Pod pod, String name) {
+        String value = pod.getMetadata().getLabels().get(name);
+        return value != null ? List.of(value) : List.of();
+    }
+}
@@ -0,0 +1,31 @@
+package com.kadali.spark;
+
+/**
+ * Resources a cluster's driver is started with, executors bounded by dynamic
+ * allocation; warm driver pods are pooled per shape
+ */
+public record DriverShape(String driverMemory, int driverCores,
+                          String executorMemory, int executorCores,
+                          int minExecutors, int maxExecutors) {
+    
+    /**
+     * Parse "driverMemory/driverCores/executorMemory/executorCores/minExecutors/maxExecutors", e.g. 2g/1/2g/1/0/4
+     */
+    public static DriverShape parse(String value) {
+        String[] parts = value.trim().split("/");
+        if (parts.length != 6) {
+            throw new IllegalArgumentException("Invalid driver shape: " + value);
+        }
+        return new DriverShape(parts[0], Integer.parseInt(parts[1]),
+                parts[2], Integer.parseInt(parts[3]),
+                Integer.parseInt(parts[4]), Integer.parseInt(parts[5]));
+    }
+    
+    /**
+     * Label-safe form, used to find warm pods of this shape
+     */
+    public String key() {
+        return (driverMemory + "-" + driverCores + "-" + executorMemory + "-" + executorCores
+                + "-" + minExecutors + "-" + maxExecutors).toLowerCase();
+    }
+}
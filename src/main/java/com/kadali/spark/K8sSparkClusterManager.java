@@ -1,15 +1,22 @@
 package com.kadali.spark;
 
 import io.fabric8.kubernetes.api.model.*;
+import io.fabric8.kubernetes.api.model.networking.v1.NetworkPolicy;
+import io.fabric8.kubernetes.api.model.networking.v1.NetworkPolicyBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Manages Spark cluster lifecycle on Kubernetes
@@ -21,6 +28,18 @@ import java.util.Map;
 public class K8sSparkClusterManager {
     
     private final KubernetesClient kubernetesClient;
+    private final ClusterPodInformer podInformer;
+    
+    /** Spark Thrift Server (HiveServer2 protocol) on the driver */
+    public static final int SQL_PORT = 10000;
+    /** Spark Connect gRPC on the driver */
+    public static final int CONNECT_PORT = 15002;
+    
+    /** Marks unassigned warm driver pods; the value is the pod's {@link DriverShape#key()} */
+    public static final String WARM_POOL_LABEL = "warm-pool";
+    
+    /** Executors a driver pod was started with; a warm pod keeps its own when claimed */
+    public static final String INITIAL_EXECUTORS_ANNOTATION = "kadali.io/initial-executors";
     
     @Value("${kadali.spark.namespace}")
     private String sparkNamespace;
@@ -31,6 +50,48 @@ public class K8sSparkClusterManager {
     @Value("${kadali.spark.service-account}")
     private String serviceAccount;
     
+    @Value("${kadali.spark.dynamic-allocation.executor-idle-timeout:60s}")
+    private String executorIdleTimeout;
+    
+    @Value("${kadali.spark.dynamic-allocation.cached-executor-idle-timeout:30min}")
+    private String cachedExecutorIdleTimeout;
+    
+    @Value("${kadali.spark.dynamic-allocation.shuffle-tracking-timeout:30min}")
+    private String shuffleTrackingTimeout;
+    
+    @Value("${kadali.spark.dynamic-allocation.scheduler-backlog-timeout:1s}")
+    private String schedulerBacklogTimeout;
+    
+    // Namespace and app label of the platform API pods, the only clients of the drivers
+    @Value("${kadali.kubernetes.namespace}")
+    private String apiNamespace;
+    
+    @Value("${kadali.spark.network-policy.api-pod-label:kadali-api}")
+    private String apiPodLabel;
+    
+    @Value("${kadali.storage.lakehouse-path}")
+    private String lakehousePath;
+    
+    @Value("${kadali.metastore.uri}")
+    private String metastoreUri;
+    
+    /**
+     * Every pod of a tenant, warm or claimed, lives in the tenant's namespace,
+     * under its quotas, network policies and RBAC
+     */
+    public static String tenantNamespace(String tenantId) {
+        return "kadali-" + tenantId;
+    }
+    
+    /**
+     * Executors the driver pod was started with, or null for pods started before the annotation
+     */
+    public static Integer initialExecutors(Pod driverPod) {
+        Map<String, String> annotations = driverPod.getMetadata().getAnnotations();
+        String value = annotations == null ? null : annotations.get(INITIAL_EXECUTORS_ANNOTATION);
+        return value == null ? null : Integer.valueOf(value);
+    }
+    
     public void createNamespaceIfNotExists(String namespace) {
         try {
             Namespace ns = kubernetesClient.namespaces()
@@ -53,82 +114,18 @@ public class K8sSparkClusterManager {
         }
     }
     
-    public Pod createSparkDriverPod(String clusterId, String tenantId, 
-                                     String driverMemory, int driverCores,
-                                     String executorMemory, int executorCores, int executorCount) {
+    public Pod createSparkDriverPod(String clusterId, String tenantId, DriverShape shape, int initialExecutors) {
         try {
-            String namespace = "kadali-" + tenantId;
+            String namespace = tenantNamespace(tenantId);
             createNamespaceIfNotExists(namespace);
             
-            String podName = "spark-driver-" + clusterId;
-            
             Map<String, String> labels = new HashMap<>();
             labels.put("app", "spark");
             labels.put("component", "driver");
             labels.put("cluster-id", clusterId);
             labels.put("tenant-id", tenantId);
             
-            Map<String, String> sparkConf = new HashMap<>();
-            sparkConf.put("spark.master", "k8s://https://kubernetes.default.svc:443");
-            sparkConf.put("spark.kubernetes.container.image", sparkImage);
-            sparkConf.put("spark.kubernetes.namespace", namespace);
-            sparkConf.put("spark.executor.instances", String.valueOf(executorCount));
-            sparkConf.put("spark.executor.memory", executorMemory);
-            sparkConf.put("spark.executor.cores", String.valueOf(executorCores));
-            sparkConf.put("spark.driver.memory", driverMemory);
-            sparkConf.put("spark.driver.cores", String.valueOf(driverCores));
-            
-            Pod driverPod = new PodBuilder()
-                    .withNewMetadata()
-                        .withName(podName)
-                        .withNamespace(namespace)
-                        .withLabels(labels)
-                    .endMetadata()
-                    .withNewSpec()
-                        .withServiceAccount(serviceAccount)
-                        .withRestartPolicy("Never")
-                        .addNewContainer()
-                            .withName("spark-driver")
-                            .withImage(sparkImage)
-                            .withCommand("/opt/spark/bin/spark-submit")
-                            .withArgs(
-                                "--master", "k8s://https://kubernetes.default.svc:443",
-                                "--deploy-mode", "client",
-                                "--name", clusterId,
-                                "--conf", "spark.kubernetes.namespace=" + namespace,
-                                "--conf", "spark.executor.instances=" + executorCount,
-                                "--conf", "spark.executor.memory=" + executorMemory,
-                                "--conf", "spark.executor.cores=" + executorCores,
-                                "--conf", "spark.kubernetes.container.image=" + sparkImage,
-                                "--class", "org.apache.spark.repl.Main",
-                                "spark-shell"
-                            )
-                            .withNewResources()
-                                .withRequests(Map.of(
-                                    "memory", new Quantity(driverMemory),
-                                    "cpu", new Quantity(String.valueOf(driverCores))
-                                ))
-                                .withLimits(Map.of(
-                                    "memory", new Quantity(driverMemory),
-                                    "cpu", new Quantity(String.valueOf(driverCores))
-                                ))
-                            .endResources()
-                            .addNewPort()
-                                .withContainerPort(4040)
-                                .withName("spark-ui")
-                            .endPort()
-                        .endContainer()
-                    .endSpec()
-                    .build();
-            
-            log.info("Creating Spark driver pod: {} in namespace: {}", podName, namespace);
-            Pod createdPod = kubernetesClient.pods()
-                    .inNamespace(namespace)
-                    .resource(driverPod)
-                    .create();
-            
-            log.info("Spark driver pod created successfully: {}", createdPod.getMetadata().getName());
-            return createdPod;
+            return createDriverPod("spark-driver-" + clusterId, namespace, labels, shape, initialExecutors);
             
         } catch (Exception e) {
             log.error("Error creating Spark driver pod for cluster: {}", clusterId, e);
@@ -136,15 +133,248 @@ public class K8sSparkClusterManager {
         }
     }
     
+    /**
+     * Start an unassigned driver pod for the tenant, in its namespace, claimed
+     * later by one of its clusters through {@link #claimWarmDriverPod}
+     */
+    public Pod createWarmDriverPod(String tenantId, DriverShape shape) {
+        String namespace = tenantNamespace(tenantId);
+        createNamespaceIfNotExists(namespace);
+        
+        Map<String, String> labels = new HashMap<>();
+        labels.put("app", "spark");
+        labels.put("component", "driver");
+        labels.put("tenant-id", tenantId);
+        labels.put(WARM_POOL_LABEL, shape.key());
+        
+        // Idle in the pool with the minimum executors; scales up once claimed and used
+        String podName = "spark-driver-warm-" + UUID.randomUUID().toString().substring(0, 8);
+        return createDriverPod(podName, namespace, labels, shape, shape.minExecutors());
+    }
+    
+    /**
+     * Warm driver pods of every tenant
+     */
+    public List<Pod> listWarmDriverPods() {
+        if (podInformer.hasSynced()) {
+            return podInformer.getWarmDriverPods();
+        }
+        return kubernetesClient.pods()
+                .inAnyNamespace()
+                .withLabel(WARM_POOL_LABEL)
+                .list()
+                .getItems();
+    }
+    
+    /**
+     * Hand a warm pod to a cluster by relabeling it. The replace is guarded by the
+     * pod's resource version, so of two concurrent claims only one succeeds.
+     *
+     * @return the claimed pod, or null when another claim got there first
+     */
+    public Pod claimWarmDriverPod(Pod warmPod, String clusterId, String tenantId) {
+        if (!tenantId.equals(warmPod.getMetadata().getLabels().get("tenant-id"))
+                || !tenantNamespace(tenantId).equals(warmPod.getMetadata().getNamespace())) {
+            throw new IllegalArgumentException("Warm pod " + warmPod.getMetadata().getName()
+                    + " does not belong to tenant " + tenantId);
+        }
+        Pod claimed = new PodBuilder(warmPod)
+                .editMetadata()
+                    .removeFromLabels(WARM_POOL_LABEL)
+                    .addToLabels("cluster-id", clusterId)
+                .endMetadata()
+                .build();
+        try {
+            return kubernetesClient.pods()
+                    .inNamespace(warmPod.getMetadata().getNamespace())
+                    .resource(claimed)
+                    .lockResourceVersion(warmPod.getMetadata().getResourceVersion())
+                    .update();
+        } catch (KubernetesClientException e) {
+            if (e.getCode() == 409 || e.getCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+    
+    public void deleteWarmDriverPod(Pod warmPod) {
+        kubernetesClient.pods()
+                .inNamespace(warmPod.getMetadata().getNamespace())
+                .withName(warmPod.getMetadata().getName())
+                .delete();
+    }
+    
+    /**
+     * Admit only the platform API to the drivers' SQL, Spark Connect and UI
+     * ports; the Thrift server does not authenticate its clients. Pods of the
+     * tenant's own clusters (executors) still reach their drivers.
+     */
+    private void applyDriverNetworkPolicy(String namespace) {
+        NetworkPolicy policy = new NetworkPolicyBuilder()
+                .withNewMetadata()
+                    .withName("spark-driver-ingress")
+                    .withNamespace(namespace)
+                .endMetadata()
+                .withNewSpec()
+                    .withNewPodSelector()
+                        .addToMatchLabels("app", "spark")
+                        .addToMatchLabels("component", "driver")
+                    .endPodSelector()
+                    .withPolicyTypes("Ingress")
+                    .addNewIngress()
+                        .addNewFrom()
+                            .withNewPodSelector()
+                                .addToMatchLabels("app", "spark")
+                            .endPodSelector()
+                        .endFrom()
+                    .endIngress()
+                    .addNewIngress()
+                        .addNewFrom()
+                            .withNewNamespaceSelector()
+                                .addToMatchLabels("kubernetes.io/metadata.name", apiNamespace)
+                            .endNamespaceSelector()
+                            .withNewPodSelector()
+                                .addToMatchLabels("app", apiPodLabel)
+                            .endPodSelector()
+                        .endFrom()
+                        .addNewPort().withPort(new IntOrString(SQL_PORT)).endPort()
+                        .addNewPort().withPort(new IntOrString(CONNECT_PORT)).endPort()
+                        .addNewPort().withPort(new IntOrString(4040)).endPort()
+                    .endIngress()
+                .endSpec()
+                .build();
+        
+        kubernetesClient.network().v1().networkPolicies()
+                .inNamespace(namespace)
+                .resource(policy)
+                .serverSideApply();
+    }
+    
+    private Pod createDriverPod(String podName, String namespace, Map<String, String> labels,
+                                DriverShape shape, int initialExecutors) {
+        Map<String, String> sparkConf = new LinkedHashMap<>();
+        sparkConf.put("spark.kubernetes.container.image", sparkImage);
+        sparkConf.put("spark.kubernetes.namespace", namespace);
+        // Executors are owned by this pod and removed with it
+        sparkConf.put("spark.kubernetes.driver.pod.name", podName);
+        // Executors join the drivers in the pod informer
+        sparkConf.put("spark.kubernetes.executor.label.app", "spark");
+        // Executors come and go with load; shuffle tracking keeps those holding
+        // shuffle data (no external shuffle service on Kubernetes)
+        sparkConf.put("spark.dynamicAllocation.enabled", "true");
+        sparkConf.put("spark.dynamicAllocation.shuffleTracking.enabled", "true");
+        sparkConf.put("spark.dynamicAllocation.shuffleTracking.timeout", shuffleTrackingTimeout);
+        sparkConf.put("spark.dynamicAllocation.minExecutors", String.valueOf(shape.minExecutors()));
+        sparkConf.put("spark.dynamicAllocation.maxExecutors", String.valueOf(shape.maxExecutors()));
+        sparkConf.put("spark.dynamicAllocation.initialExecutors", String.valueOf(initialExecutors));
+        sparkConf.put("spark.dynamicAllocation.executorIdleTimeout", executorIdleTimeout);
+        sparkConf.put("spark.dynamicAllocation.cachedExecutorIdleTimeout", cachedExecutorIdleTimeout);
+        sparkConf.put("spark.dynamicAllocation.schedulerBacklogTimeout", schedulerBacklogTimeout);
+        sparkConf.put("spark.dynamicAllocation.sustainedSchedulerBacklogTimeout", schedulerBacklogTimeout);
+        sparkConf.put("spark.executor.memory", shape.executorMemory());
+        sparkConf.put("spark.executor.cores", String.valueOf(shape.executorCores()));
+        sparkConf.put("spark.driver.memory", shape.driverMemory());
+        sparkConf.put("spark.driver.cores", String.valueOf(shape.driverCores()));
+        // Client mode: executors connect back to the pod IP
+        sparkConf.put("spark.driver.host", "$(POD_IP)");
+        // User code runs here, not in the API process: SQL over the Thrift JDBC
+        // endpoint, Spark Connect clients over gRPC. Spark Connect and Delta are
+        // baked into the image (spark/Dockerfile), nothing is resolved at start.
+        sparkConf.put("spark.plugins", "org.apache.spark.sql.connect.SparkConnectPlugin");
+        sparkConf.put("spark.connect.grpc.binding.port", String.valueOf(CONNECT_PORT));
+        sparkConf.put("spark.hive.server2.thrift.port", String.valueOf(SQL_PORT));
+        sparkConf.put("spark.sql.extensions", "io.delta.sql.DeltaSparkSessionExtension");
+        sparkConf.put("spark.sql.catalog.spark_catalog", "org.apache.spark.sql.delta.catalog.DeltaCatalog");
+        sparkConf.put("spark.sql.warehouse.dir", lakehousePath);
+        sparkConf.put("spark.hadoop.hive.metastore.uris", metastoreUri);
+        
+        List<String> args = new ArrayList<>(List.of(
+                "--master", "k8s://https://kubernetes.default.svc:443",
+                "--deploy-mode", "client",
+                "--name", podName,
+                "--class", "org.apache.spark.sql.hive.thriftserver.HiveThriftServer2"));
+        sparkConf.forEach((key, value) -> {
+            args.add("--conf");
+            args.add(key + "=" + value);
+        });
+        args.add("spark-internal");
+        
+        Pod driverPod = new PodBuilder()
+                .withNewMetadata()
+                    .withName(podName)
+                    .withNamespace(namespace)
+                    .withLabels(labels)
+                    .addToAnnotations(INITIAL_EXECUTORS_ANNOTATION, String.valueOf(initialExecutors))
+                .endMetadata()
+                .withNewSpec()
+                    .withServiceAccount(serviceAccount)
+                    .withRestartPolicy("Never")
+                    .addNewContainer()
+                        .withName("spark-driver")
+                        .withImage(sparkImage)
+                        .withCommand("/opt/spark/bin/spark-submit")
+                        .withArgs(args)
+                        .addNewEnv()
+                            .withName("POD_IP")
+                            .withNewValueFrom()
+                                .withNewFieldRef()
+                                    .withFieldPath("status.podIP")
+                                .endFieldRef()
+                            .endValueFrom()
+                        .endEnv()
+                        .withNewResources()
+                            .withRequests(Map.of(
+                                "memory", new Quantity(shape.driverMemory()),
+                                "cpu", new Quantity(String.valueOf(shape.driverCores()))
+                            ))
+                            .withLimits(Map.of(
+                                "memory", new Quantity(shape.driverMemory()),
+                                "cpu", new Quantity(String.valueOf(shape.driverCores()))
+                            ))
+                        .endResources()
+                        .addNewPort()
+                            .withContainerPort(4040)
+                            .withName("spark-ui")
+                        .endPort()
+                        .addNewPort()
+                            .withContainerPort(SQL_PORT)
+                            .withName("spark-sql")
+                        .endPort()
+                        .addNewPort()
+                            .withContainerPort(CONNECT_PORT)
+                            .withName("spark-connect")
+                        .endPort()
+                        // Ready once the SQL endpoint accepts connections
+                        .withNewReadinessProbe()
+                            .withNewTcpSocket()
+                                .withNewPort(SQL_PORT)
+                            .endTcpSocket()
+                            .withPeriodSeconds(5)
+                        .endReadinessProbe()
+                    .endContainer()
+                .endSpec()
+                .build();
+        
+        applyDriverNetworkPolicy(namespace);
+        
+        log.info("Creating Spark driver pod: {} in namespace: {}", podName, namespace);
+        Pod createdPod = kubernetesClient.pods()
+                .inNamespace(namespace)
+                .resource(driverPod)
+                .create();
+        
+        log.info("Spark driver pod created successfully: {}", createdPod.getMetadata().getName());
+        return createdPod;
+    }
+    
     public void deleteSparkCluster(String clusterId, String tenantId) {
         try {
-            String namespace = "kadali-" + tenantId;
+            log.info("Deleting Spark cluster: {} of tenant: {}", clusterId, tenantId);
             
-            log.info("Deleting Spark cluster: {} in namespace: {}", clusterId, namespace);
-            
-            // Delete driver pod
+            // Delete driver pod; its executors are owned by it and follow
             kubernetesClient.pods()
-                    .inNamespace(namespace)
+                    .inNamespace(tenantNamespace(tenantId))
                     .withLabel("cluster-id", clusterId)
                     .delete();
             
@@ -157,10 +387,15 @@ public class K8sSparkClusterManager {
     }
     
     public Pod getDriverPod(String clusterId, String tenantId) {
-        String namespace = "kadali-" + tenantId;
+        if (podInformer.hasSynced()) {
+            Pod pod = podInformer.getDriverPod(clusterId);
+            return pod != null && tenantNamespace(tenantId).equals(pod.getMetadata().getNamespace())
+                    && tenantId.equals(pod.getMetadata().getLabels().get("tenant-id")) ? pod : null;
+        }
         return kubernetesClient.pods()
-                .inNamespace(namespace)
+                .inNamespace(tenantNamespace(tenantId))
                 .withLabel("cluster-id", clusterId)
+                .withLabel("tenant-id", tenantId)
                 .withLabel("component", "driver")
                 .list()
                 .getItems()
@@ -176,5 +411,26 @@ public class K8sSparkClusterManager {
         }
         return null;
     }
+    
+    /**
+     * Running executor pods of the cluster (owned by its driver pod)
+     */
+    public int countRunningExecutors(String clusterId, String tenantId) {
+        Pod driver = getDriverPod(clusterId, tenantId);
+        if (driver == null) {
+            return 0;
+        }
+        return (int) podInformer.getExecutorPods(driver).stream()
+                .filter(pod -> pod.getStatus() != null && "Running".equals(pod.getStatus().getPhase()))
+                .count();
+    }
+    
+    /**
+     * Pod IP of the cluster's driver, or null while it has none
+     */
+    public String getDriverHost(String clusterId, String tenantId) {
+        Pod pod = getDriverPod(clusterId, tenantId);
+        return pod != null && pod.getStatus() != null ? pod.getStatus().getPodIP() : null;
+    }
 }
 
@@ -0,0 +1,294 @@
+package com.kadali.spark;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pre-started, unassigned Spark driver pods, kept per tenant and {@link DriverShape}.
+ *
+ * Warm pods start in the tenant's own namespace, so a claimed driver and its
+ * executors stay under that tenant's quotas, network policies and RBAC; pods
+ * are never shared between tenants. A new cluster claims a warm pod of its
+ * shape by relabeling it, skipping image pull, JVM start and executor
+ * allocation; the pool is refilled in the background. The target size of each
+ * pool follows recent demand: the number of clusters of that shape expected
+ * while a replacement warms up, within [min, max]. Tenants that created a
+ * cluster within the rate window keep at least min-size pods of each
+ * configured shape; other pools exist only while they are being requested.
+ *
+ * Demand is read from spark_clusters, so every API replica sees the same
+ * numbers, and only the replica holding the warm-driver-pool lease in
+ * scheduler_leases reconciles; max-pods bounds the whole deployment.
+ */
+@Service
+@ConditionalOnProperty(name = "kadali.kubernetes.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class WarmDriverPool {
+    
+    private static final String LEASE = "warm-driver-pool";
+    
+    private static final String DEMAND_SQL = "SELECT t.tenant_id, c.driver_memory, c.driver_cores, " +
+            "c.executor_memory, c.executor_cores, c.min_executors, c.max_executors, COUNT(*) " +
+            "FROM spark_clusters c JOIN tenants t ON t.id = c.tenant_id " +
+            "WHERE c.created_at >= ? AND c.driver_memory IS NOT NULL AND c.driver_cores IS NOT NULL " +
+            "AND c.executor_memory IS NOT NULL AND c.executor_cores IS NOT NULL " +
+            "AND c.min_executors IS NOT NULL AND c.max_executors IS NOT NULL " +
+            "GROUP BY t.tenant_id, c.driver_memory, c.driver_cores, c.executor_memory, " +
+            "c.executor_cores, c.min_executors, c.max_executors";
+    
+    // Taken when free or expired, kept by renewing it on every reconcile
+    private static final String LEASE_SQL = "INSERT INTO scheduler_leases (name, holder, locked_until) " +
+            "VALUES (?, ?, ?) ON CONFLICT (name) DO UPDATE " +
+            "SET holder = EXCLUDED.holder, locked_until = EXCLUDED.locked_until " +
+            "WHERE scheduler_leases.holder = EXCLUDED.holder OR scheduler_leases.locked_until < ?";
+    
+    private final K8sSparkClusterManager k8sManager;
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final String holder = UUID.randomUUID().toString();
+    
+    @Value("${kadali.spark.warm-pool.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${kadali.spark.warm-pool.shapes:}")
+    private List<String> configuredShapes;
+    
+    @Value("${kadali.spark.warm-pool.min-size:1}")
+    private int minSize;
+    
+    @Value("${kadali.spark.warm-pool.max-size:5}")
+    private int maxSize;
+    
+    @Value("${kadali.spark.warm-pool.max-pods:10}")
+    private int maxPods;
+    
+    @Value("${kadali.spark.warm-pool.rate-window-minutes:60}")
+    private long rateWindowMinutes;
+    
+    // About how long a new driver pod takes to become ready
+    @Value("${kadali.spark.warm-pool.warmup-minutes:3}")
+    private long warmupMinutes;
+    
+    // A few reconcile intervals: another replica takes over once the holder stops renewing
+    @Value("${kadali.spark.warm-pool.lease-seconds:90}")
+    private long leaseSeconds;
+    
+    private ExecutorService replenisher;
+    
+    @PostConstruct
+    public void init() {
+        replenisher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "warm-driver-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        replenisher.shutdownNow();
+    }
+    
+    /**
+     * Claim one of the tenant's warm driver pods of the shape for a new cluster.
+     * Ready pods are preferred; a still-starting one beats starting from scratch.
+     */
+    public Optional<Pod> claim(DriverShape shape, String clusterId, String tenantId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        PoolKey poolKey = new PoolKey(tenantId, shape);
+        
+        try {
+            List<Pod> candidates = k8sManager.listWarmDriverPods().stream()
+                    .filter(poolKey::matches)
+                    .filter(pod -> !isFinished(pod))
+                    .sorted(Comparator.comparing((Pod pod) -> !isReady(pod))
+                            .thenComparing(pod -> pod.getMetadata().getCreationTimestamp()))
+                    .toList();
+            
+            for (Pod pod : candidates) {
+                Pod claimed = k8sManager.claimWarmDriverPod(pod, clusterId, tenantId);
+                if (claimed != null) {
+                    log.info("Cluster {} claimed warm driver pod {} ({})", clusterId,
+                            claimed.getMetadata().getName(), isReady(pod) ? "ready" : "starting");
+                    return Optional.of(claimed);
+                }
+            }
+            log.info("No warm driver pod of shape {} for cluster {} of tenant {}", shape.key(), clusterId, tenantId);
+            return Optional.empty();
+            
+        } catch (Exception e) {
+            log.warn("Warm pool unavailable for cluster {}, starting a new driver", clusterId, e);
+            return Optional.empty();
+        } finally {
+            replenisher.submit(this::reconcile);
+        }
+    }
+    
+    /**
+     * Bring each pool to its target: remove finished pods, start missing ones,
+     * trim surplus. Only on the replica holding the lease.
+     */
+    @Scheduled(fixedDelayString = "${kadali.spark.warm-pool.reconcile-interval-ms:30000}")
+    public synchronized void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!holdLease()) {
+                return;
+            }
+            
+            Map<String, List<Pod>> podsByPool = new HashMap<>();
+            for (Pod pod : k8sManager.listWarmDriverPods()) {
+                if (isFinished(pod)) {
+                    log.info("Removing finished warm driver pod {}", pod.getMetadata().getName());
+                    k8sManager.deleteWarmDriverPod(pod);
+                    continue;
+                }
+                podsByPool.computeIfAbsent(PoolKey.labelOf(pod), key -> new ArrayList<>()).add(pod);
+            }
+            
+            Map<PoolKey, Integer> targets = targets(recentDemand(), configuredShapes(),
+                    minSize, maxSize, warmupMinutes, rateWindowMinutes);
+            Set<String> targetKeys = new HashSet<>();
+            int total = 0;
+            for (Map.Entry<PoolKey, Integer> entry : targets.entrySet()) {
+                PoolKey poolKey = entry.getKey();
+                targetKeys.add(poolKey.label());
+                List<Pod> pods = podsByPool.getOrDefault(poolKey.label(), List.of());
+                
+                int target = Math.min(entry.getValue(), maxPods - total);
+                total += Math.max(target, 0);
+                for (int i = pods.size(); i < target; i++) {
+                    k8sManager.createWarmDriverPod(poolKey.tenantId(), poolKey.shape());
+                }
+                trim(pods, target);
+            }
+            
+            // Pools no longer wanted, and pods of no tenant
+            podsByPool.forEach((key, pods) -> {
+                if (!targetKeys.contains(key)) {
+                    trim(pods, 0);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Warm driver pool reconcile failed", e);
+        }
+    }
+    
+    private boolean holdLease() {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.update(LEASE_SQL, LEASE, holder,
+                Timestamp.valueOf(now.plusSeconds(leaseSeconds)), Timestamp.valueOf(now)) > 0;
+    }
+    
+    // Clusters created per pool within the rate window, by any replica
+    private Map<PoolKey, Integer> recentDemand() {
+        Timestamp windowStart = Timestamp.valueOf(LocalDateTime.now().minusMinutes(rateWindowMinutes));
+        Map<PoolKey, Integer> recent = new HashMap<>();
+        jdbcTemplate.query(DEMAND_SQL, rs -> {
+            DriverShape shape = new DriverShape(rs.getString(2), rs.getInt(3),
+                    rs.getString(4), rs.getInt(5), rs.getInt(6), rs.getInt(7));
+            recent.merge(new PoolKey(rs.getString(1), shape), rs.getInt(8), Integer::sum);
+        }, windowStart);
+        return recent;
+    }
+    
+    private Set<DriverShape> configuredShapes() {
+        Set<DriverShape> configured = new HashSet<>();
+        for (String value : configuredShapes) {
+            if (!value.isBlank()) {
+                configured.add(DriverShape.parse(value));
+            }
+        }
+        return configured;
+    }
+    
+    /**
+     * Pods to keep per pool: expected creations during one warm-up, from the
+     * recent creation rate; busiest pools first, so max-pods cuts the rarest.
+     * Tenants with recent demand also get the configured shapes, at least min-size.
+     */
+    static Map<PoolKey, Integer> targets(Map<PoolKey, Integer> recent, Set<DriverShape> configured,
+                                         int minSize, int maxSize, long warmupMinutes, long rateWindowMinutes) {
+        Map<PoolKey, Integer> pools = new HashMap<>(recent);
+        for (String tenantId : recent.keySet().stream().map(PoolKey::tenantId).toList()) {
+            configured.forEach(shape -> pools.putIfAbsent(new PoolKey(tenantId, shape), 0));
+        }
+        
+        Map<PoolKey, Integer> targets = new LinkedHashMap<>();
+        pools.entrySet().stream()
+                .sorted(Map.Entry.<PoolKey, Integer>comparingByValue().reversed())
+                .forEach(entry -> {
+                    int expected = (int) Math.ceil((double) entry.getValue() * warmupMinutes / rateWindowMinutes);
+                    int floor = configured.contains(entry.getKey().shape()) ? minSize : 0;
+                    targets.put(entry.getKey(), Math.min(maxSize, Math.max(floor, expected)));
+                });
+        return targets;
+    }
+    
+    // Surplus goes newest first: older pods are the ones most likely ready
+    private void trim(List<Pod> pods, int target) {
+        if (pods.size() <= target) {
+            return;
+        }
+        List<Pod> surplus = new ArrayList<>(pods);
+        surplus.sort(Comparator.comparing((Pod pod) -> pod.getMetadata().getCreationTimestamp()).reversed());
+        for (Pod pod : surplus.subList(0, pods.size() - Math.max(target, 0))) {
+            log.info("Removing surplus warm driver pod {}", pod.getMetadata().getName());
+            k8sManager.deleteWarmDriverPod(pod);
+        }
+    }
+    
+    /**
+     * One tenant's warm pods of one shape
+     */
+    record PoolKey(String tenantId, DriverShape shape) {
+        
+        // Pool of a warm pod, from its labels; pods outside their tenant namespace match no pool
+        static String labelOf(Pod pod) {
+            Map<String, String> labels = pod.getMetadata().getLabels();
+            String tenantId = labels.get("tenant-id");
+            if (tenantId == null || !K8sSparkClusterManager.tenantNamespace(tenantId).equals(pod.getMetadata().getNamespace())) {
+                return "";
+            }
+            return tenantId + "/" + labels.get(K8sSparkClusterManager.WARM_POOL_LABEL);
+        }
+        
+        String label() {
+            return tenantId + "/" + shape.key();
+        }
+        
+        boolean matches(Pod pod) {
+            return label().equals(labelOf(pod));
+        }
+    }
+    
+    private static boolean isReady(Pod pod) {
+        return pod.getStatus() != null && pod.getStatus().getContainerStatuses() != null
+                && !pod.getStatus().getContainerStatuses().isEmpty()
+                && pod.getStatus().getContainerStatuses().stream().allMatch(status -> Boolean.TRUE.equals(status.getReady()));
+    }
+    
+    private static boolean isFinished(Pod pod) {
+        String phase = pod.getStatus() != null ? pod.getStatus().getPhase() : null;
+        return "Succeeded".equals(phase) || "Failed".equals(phase) || pod.getMetadata().getDeletionTimestamp() != null;
+    }
+}
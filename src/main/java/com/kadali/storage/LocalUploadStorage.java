@@ -0,0 +1,154 @@
+package com.kadali.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Upload staging on a local or shared filesystem, for development without MinIO
+ */
+@Service
+@ConditionalOnProperty(name = "kadali.storage.type", havingValue = "local")
+@Slf4j
+public class LocalUploadStorage implements UploadStorage {
+    
+    private static final String PART_PREFIX = "part-";
+    private static final String MANIFEST = "_upload.json";
+    
+    @Value("${kadali.storage.local-path:${java.io.tmpdir}/kadali-uploads}")
+    private String basePath;
+    
+    @Override
+    public void putPart(String uploadId, int partNumber, InputStream data, long size) {
+        Path part = uploadDir(uploadId).resolve(partName(partNumber));
+        Path temp = part.resolveSibling(part.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(part.getParent());
+            long written = Files.copy(data, temp, StandardCopyOption.REPLACE_EXISTING);
+            if (size >= 0 && written != size) {
+                throw new IOException(String.format("Expected %d bytes but received %d", size, written));
+            }
+            // Publish atomically so a retried or interrupted part is never half-visible
+            Files.move(temp, part, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new RuntimeException("Failed to store upload part " + partNumber, e);
+        }
+    }
+    
+    @Override
+    public Map<Integer, Long> listParts(String uploadId) {
+        Map<Integer, Long> parts = new HashMap<>();
+        Path dir = uploadDir(uploadId);
+        if (!Files.isDirectory(dir)) {
+            return parts;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> file.getFileName().toString().startsWith(PART_PREFIX))
+                    .filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+                    .forEach(file -> parts.put(partNumber(file.getFileName().toString()), file.toFile().length()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list upload parts: " + uploadId, e);
+        }
+        return parts;
+    }
+    
+    @Override
+    public InputStream openPart(String uploadId, int partNumber) {
+        try {
+            return Files.newInputStream(uploadDir(uploadId).resolve(partName(partNumber)));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read upload part " + partNumber, e);
+        }
+    }
+    
+    @Override
+    public String assemble(String uploadId, String fileName, int partCount) {
+        Path dir = uploadDir(uploadId);
+        Path target = dir.resolve("data").resolve(fileName);
+        try {
+            Files.createDirectories(target.getParent());
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (int i = 1; i <= partCount; i++) {
+                    Path part = dir.resolve(partName(i));
+                    try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                        long position = 0;
+                        long size = in.size();
+                        while (position < size) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
+                    Files.delete(part);
+                }
+            }
+            return target.toUri().toString();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to assemble upload: " + uploadId, e);
+        }
+    }
+    
+    @Override
+    public long minPartSize() {
+        return 1;
+    }
+    
+    @Override
+    public void putManifest(String uploadId, byte[] manifest) {
+        try {
+            Files.createDirectories(uploadDir(uploadId));
+            Files.write(uploadDir(uploadId).resolve(MANIFEST), manifest);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write upload manifest: " + uploadId, e);
+        }
+    }
+    
+    @Override
+    public byte[] getManifest(String uploadId) {
+        Path manifest = uploadDir(uploadId).resolve(MANIFEST);
+        try {
+            return Files.exists(manifest) ? Files.readAllBytes(manifest) : null;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read upload manifest: " + uploadId, e);
+        }
+    }
+    
+    @Override
+    public void delete(String uploadId) {
+        try {
+            FileSystemUtils.deleteRecursively(uploadDir(uploadId));
+        } catch (IOException e) {
+            log.warn("Failed to delete upload directory: {}", uploadId, e);
+        }
+    }
+    
+    private Path uploadDir(String uploadId) {
+        return Path.of(basePath, uploadId);
+    }
+    
+    private static String partName(int partNumber) {
+        return String.format("%s%05d", PART_PREFIX, partNumber);
+    }
+    
+    private static int partNumber(String fileName) {
+        return Integer.parseInt(fileName.substring(PART_PREFIX.length()));
+    }
+    
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // best effort
+        }
+    }
+}
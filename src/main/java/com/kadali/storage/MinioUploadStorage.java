@@ -0,0 +1,183 @@
+package com.kadali.storage;
+
+import io.minio.*;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upload staging in MinIO / S3. Parts are separate objects, assembled with a
+ * server-side compose so the bytes never pass through this JVM again.
+ */
+@Service
+@ConditionalOnProperty(name = "kadali.storage.type", havingValue = "minio", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class MinioUploadStorage implements UploadStorage {
+    
+    // S3 multipart rule: every part but the last must be at least 5 MiB
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    
+    private static final String PART_PREFIX = "part-";
+    private static final String MANIFEST = "_upload.json";
+    
+    private final MinioClient minioClient;
+    
+    @Value("${kadali.storage.upload-bucket:kadali-uploads}")
+    private String bucket;
+    
+    @PostConstruct
+    public void ensureBucket() {
+        try {
+            if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build())) {
+                log.info("Creating upload bucket: {}", bucket);
+                minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
+            }
+        } catch (Exception e) {
+            // Storage may come up after the API; uploads will fail until it does
+            log.warn("Could not verify upload bucket: {}", bucket, e);
+        }
+    }
+    
+    @Override
+    public void putPart(String uploadId, int partNumber, InputStream data, long size) {
+        try {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(partObject(uploadId, partNumber))
+                    .stream(data, size, size >= 0 ? -1 : MIN_PART_SIZE)
+                    .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to store upload part " + partNumber, e);
+        }
+    }
+    
+    @Override
+    public Map<Integer, Long> listParts(String uploadId) {
+        Map<Integer, Long> parts = new HashMap<>();
+        String prefix = uploadId + "/" + PART_PREFIX;
+        try {
+            for (Result<Item> result : minioClient.listObjects(ListObjectsArgs.builder()
+                    .bucket(bucket).prefix(prefix).build())) {
+                Item item = result.get();
+                parts.put(Integer.parseInt(item.objectName().substring(prefix.length())), item.size());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to list upload parts: " + uploadId, e);
+        }
+        return parts;
+    }
+    
+    @Override
+    public InputStream openPart(String uploadId, int partNumber) {
+        try {
+            return minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(bucket).object(partObject(uploadId, partNumber)).build());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to read upload part " + partNumber, e);
+        }
+    }
+    
+    @Override
+    public String assemble(String uploadId, String fileName, int partCount) {
+        String target = uploadId + "/data/" + fileName;
+        try {
+            List<ComposeSource> sources = new ArrayList<>();
+            for (int i = 1; i <= partCount; i++) {
+                sources.add(ComposeSource.builder().bucket(bucket).object(partObject(uploadId, i)).build());
+            }
+            minioClient.composeObject(ComposeObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(target)
+                    .sources(sources)
+                    .build());
+            
+            List<DeleteObject> parts = new ArrayList<>();
+            for (int i = 1; i <= partCount; i++) {
+                parts.add(new DeleteObject(partObject(uploadId, i)));
+            }
+            removeAll(parts);
+            
+            return "s3a://" + bucket + "/" + target;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to assemble upload: " + uploadId, e);
+        }
+    }
+    
+    @Override
+    public long minPartSize() {
+        return MIN_PART_SIZE;
+    }
+    
+    @Override
+    public void putManifest(String uploadId, byte[] manifest) {
+        try {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(uploadId + "/" + MANIFEST)
+                    .stream(new ByteArrayInputStream(manifest), manifest.length, -1)
+                    .contentType("application/json")
+                    .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to write upload manifest: " + uploadId, e);
+        }
+    }
+    
+    @Override
+    public byte[] getManifest(String uploadId) {
+        try (InputStream in = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(bucket).object(uploadId + "/" + MANIFEST).build())) {
+            return in.readAllBytes();
+        } catch (io.minio.errors.ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return null;
+            }
+            throw new RuntimeException("Failed to read upload manifest: " + uploadId, e);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to read upload manifest: " + uploadId, e);
+        }
+    }
+    
+    @Override
+    public void delete(String uploadId) {
+        try {
+            List<DeleteObject> objects = new ArrayList<>();
+            for (Result<Item> result : minioClient.listObjects(ListObjectsArgs.builder()
+                    .bucket(bucket).prefix(uploadId + "/").recursive(true).build())) {
+                objects.add(new DeleteObject(result.get().objectName()));
+            }
+            removeAll(objects);
+        } catch (Exception e) {
+            log.warn("Failed to delete upload objects: {}", uploadId, e);
+        }
+    }
+    
+    private void removeAll(List<DeleteObject> objects) throws Exception {
+        if (objects.isEmpty()) {
+            return;
+        }
+        // removeObjects is lazy: errors are only reported (and deletes only issued) while iterating
+        for (Result<DeleteError> result : minioClient.removeObjects(RemoveObjectsArgs.builder()
+                .bucket(bucket).objects(objects).build())) {
+            DeleteError error = result.get();
+            log.warn("Failed to delete {}: {}", error.objectName(), error.message());
+        }
+    }
+    
+    private static String partObject(String uploadId, int partNumber) {
+        return String.format("%s/%s%05d", uploadId, PART_PREFIX, partNumber);
+    }
+}
@@ -0,0 +1,42 @@
+package com.kadali.storage;
+
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Staging area for chunked uploads. Parts are stored as independent objects so
+ * clients can send them in parallel and resume after a failure; completion
+ * stitches them into one object that Spark can read.
+ */
+public interface UploadStorage {
+    
+    void putPart(String uploadId, int partNumber, InputStream data, long size);
+    
+    /**
+     * Part number to size in bytes for every part received so far
+     */
+    Map<Integer, Long> listParts(String uploadId);
+    
+    /**
+     * Read back a received part; the caller closes the stream
+     */
+    InputStream openPart(String uploadId, int partNumber);
+    
+    /**
+     * Concatenate parts 1..partCount into a single object
+     *
+     * @return path of the assembled file, readable by Spark
+     */
+    String assemble(String uploadId, String fileName, int partCount);
+    
+    /**
+     * Smallest size allowed for every part except the last
+     */
+    long minPartSize();
+    
+    void putManifest(String uploadId, byte[] manifest);
+    
+    byte[] getManifest(String uploadId);
+    
+    void delete(String uploadId);
+}
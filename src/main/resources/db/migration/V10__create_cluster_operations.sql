@@ -0,0 +1,25 @@
+-- Cluster provisioning and termination, queued and executed by background workers
+CREATE TABLE IF NOT EXISTS cluster_operations (
+    id BIGSERIAL PRIMARY KEY,
+    operation_id VARCHAR(100) UNIQUE NOT NULL,
+    tenant_id BIGINT NOT NULL REFERENCES tenants(id) ON DELETE CASCADE,
+    cluster_id VARCHAR(100) NOT NULL,
+    operation_type VARCHAR(20) NOT NULL, -- CREATE, TERMINATE
+    idempotency_key VARCHAR(200),
+    
+    -- Execution
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING', -- PENDING, RUNNING, SUCCEEDED, FAILED
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_until TIMESTAMP, -- lease of the worker running it; expired leases are picked up again
+    last_error TEXT,
+    completed_at TIMESTAMP,
+    
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    
+    UNIQUE(tenant_id, idempotency_key)
+);
+
+CREATE INDEX idx_cluster_operations_cluster_id ON cluster_operations(cluster_id);
+CREATE INDEX idx_cluster_operations_due ON cluster_operations(next_attempt_at) WHERE status IN ('PENDING', 'RUNNING');
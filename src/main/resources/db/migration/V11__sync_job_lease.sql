@@ -0,0 +1,2 @@
+-- Lease on a running sync job; a run whose lease expired (crashed instance) is picked up again
+ALTER TABLE sync_jobs ADD COLUMN IF NOT EXISTS locked_until TIMESTAMP;
@@ -0,0 +1,7 @@
+-- Claim on completing a chunked upload: one load at a time, and a load whose
+-- lease expired (crashed instance) can be completed again
+CREATE TABLE IF NOT EXISTS upload_loads (
+    upload_id VARCHAR(200) PRIMARY KEY,
+    locked_until TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP
+);
@@ -0,0 +1,26 @@
+-- V2 drops the single-column tenant indexes of datasets, notebooks and
+-- spark_clusters by their V1 names; databases baselined from an older schema
+-- may carry them under other names. Drop any left: the (tenant_id, id)
+-- composites cover them.
+DO $$
+DECLARE
+    leftover RECORD;
+BEGIN
+    FOR leftover IN
+        SELECT ns.nspname AS schema_name, idx.relname AS index_name
+        FROM pg_index i
+        JOIN pg_class idx ON idx.oid = i.indexrelid
+        JOIN pg_class tbl ON tbl.oid = i.indrelid
+        JOIN pg_namespace ns ON ns.oid = tbl.relnamespace
+        JOIN pg_attribute att ON att.attrelid = tbl.oid AND att.attnum = i.indkey[0]
+        WHERE tbl.relname IN ('datasets', 'notebooks', 'spark_clusters')
+          AND ns.nspname = current_schema()
+          AND i.indnatts = 1
+          AND att.attname = 'tenant_id'
+          AND NOT i.indisunique
+          AND i.indpred IS NULL
+          AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid)
+    LOOP
+        EXECUTE format('DROP INDEX IF EXISTS %I.%I', leftover.schema_name, leftover.index_name);
+    END LOOP;
+END $$;
@@ -0,0 +1,6 @@
+-- Named leases for background work that one API replica at a time should do
+CREATE TABLE IF NOT EXISTS scheduler_leases (
+    name VARCHAR(100) PRIMARY KEY,
+    holder VARCHAR(200) NOT NULL,
+    locked_until TIMESTAMP NOT NULL
+);
@@ -0,0 +1,17 @@
+-- Keyset pagination for list endpoints: every list seeks on (tenant_id, id),
+-- or (tenant_id, <name>, id) when sorted by name.
+
+CREATE INDEX IF NOT EXISTS idx_datasets_tenant_id_id ON datasets(tenant_id, id);
+CREATE INDEX IF NOT EXISTS idx_datasets_tenant_table_name_id ON datasets(tenant_id, table_name, id);
+CREATE INDEX IF NOT EXISTS idx_datasets_tenant_database_id ON datasets(tenant_id, database_name, id);
+
+CREATE INDEX IF NOT EXISTS idx_notebooks_tenant_id_id ON notebooks(tenant_id, id);
+CREATE INDEX IF NOT EXISTS idx_notebooks_tenant_name_id ON notebooks(tenant_id, name, id);
+
+CREATE INDEX IF NOT EXISTS idx_clusters_tenant_id_id ON spark_clusters(tenant_id, id);
+CREATE INDEX IF NOT EXISTS idx_clusters_tenant_name_id ON spark_clusters(tenant_id, name, id);
+
+-- Single-column tenant indexes are covered by the composite ones above
+DROP INDEX IF EXISTS idx_datasets_tenant_id;
+DROP INDEX IF EXISTS idx_notebooks_tenant_id;
+DROP INDEX IF EXISTS idx_clusters_tenant_id;
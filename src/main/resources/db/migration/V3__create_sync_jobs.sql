@@ -0,0 +1,43 @@
+-- Incremental database sync jobs (watermark-based MERGE into Delta)
+CREATE TABLE IF NOT EXISTS sync_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    job_id VARCHAR(100) UNIQUE NOT NULL,
+    tenant_id BIGINT NOT NULL REFERENCES tenants(id) ON DELETE CASCADE,
+    
+    -- Source
+    source_type VARCHAR(20) NOT NULL, -- postgres, mysql
+    jdbc_url VARCHAR(1000) NOT NULL,
+    username VARCHAR(200) NOT NULL,
+    password VARCHAR(500) NOT NULL,
+    source_table VARCHAR(300) NOT NULL,
+    partition_column VARCHAR(200),
+    max_partitions INTEGER,
+    
+    -- Target
+    target_database VARCHAR(100) NOT NULL,
+    target_table VARCHAR(200) NOT NULL,
+    
+    -- Incremental state
+    watermark_column VARCHAR(200) NOT NULL,
+    key_columns VARCHAR(1000),
+    high_watermark VARCHAR(100),
+    
+    -- Scheduling
+    schedule_interval_minutes INTEGER,
+    enabled BOOLEAN NOT NULL DEFAULT TRUE,
+    next_run_at TIMESTAMP,
+    
+    -- Last run
+    status VARCHAR(20) NOT NULL DEFAULT 'IDLE', -- IDLE, RUNNING, SUCCEEDED, FAILED
+    last_run_at TIMESTAMP,
+    last_row_count BIGINT,
+    last_error TEXT,
+    
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    
+    UNIQUE(tenant_id, target_database, target_table)
+);
+
+CREATE INDEX idx_sync_jobs_tenant_id ON sync_jobs(tenant_id);
+CREATE INDEX idx_sync_jobs_next_run ON sync_jobs(next_run_at) WHERE enabled = TRUE;
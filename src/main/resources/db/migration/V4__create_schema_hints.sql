@@ -0,0 +1,13 @@
+-- Schema hints: known schemas for recurring file loads, keyed by file name pattern
+CREATE TABLE IF NOT EXISTS schema_hints (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL REFERENCES tenants(id) ON DELETE CASCADE,
+    source_pattern VARCHAR(500) NOT NULL, -- glob on the file name, e.g. sales_*.csv
+    format VARCHAR(20) NOT NULL, -- csv, json
+    schema_json TEXT NOT NULL,
+    inferred BOOLEAN NOT NULL DEFAULT TRUE, -- false once a user has corrected it
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    
+    UNIQUE(tenant_id, format, source_pattern)
+);
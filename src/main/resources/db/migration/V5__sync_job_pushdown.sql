@@ -0,0 +1,3 @@
+-- Column projection and row filter pushed down to the sync source
+ALTER TABLE sync_jobs ADD COLUMN columns VARCHAR(2000);
+ALTER TABLE sync_jobs ADD COLUMN source_filter TEXT;
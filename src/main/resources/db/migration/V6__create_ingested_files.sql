@@ -0,0 +1,18 @@
+-- Content-hash manifest of ingested files, used to skip byte-identical re-deliveries
+CREATE TABLE IF NOT EXISTS ingested_files (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL REFERENCES tenants(id) ON DELETE CASCADE,
+    content_hash CHAR(64) NOT NULL, -- SHA-256, hex
+    file_name VARCHAR(500) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    database_name VARCHAR(100) NOT NULL,
+    table_name VARCHAR(200) NOT NULL,
+    format VARCHAR(20) NOT NULL,
+    ingest_count INTEGER NOT NULL DEFAULT 1,
+    first_ingested_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_ingested_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    
+    UNIQUE(tenant_id, content_hash, database_name, table_name)
+);
+
+CREATE INDEX idx_ingested_files_tenant_time ON ingested_files(tenant_id, last_ingested_at DESC);
@@ -0,0 +1,2 @@
+-- Column statistics observed during ingest (row count, nulls, min/max, approx distinct)
+ALTER TABLE datasets ADD COLUMN IF NOT EXISTS profile_json TEXT;
@@ -0,0 +1,38 @@
+-- Notebook cells as rows, so saves rewrite only the cells that changed
+CREATE TABLE IF NOT EXISTS notebook_cells (
+    id BIGSERIAL PRIMARY KEY,
+    notebook_id BIGINT NOT NULL REFERENCES notebooks(id) ON DELETE CASCADE,
+    cell_id VARCHAR(100) NOT NULL,
+    position INTEGER NOT NULL,
+    cell_type VARCHAR(20) NOT NULL DEFAULT 'code',
+    source TEXT,
+    metadata TEXT, -- JSON format
+    outputs BYTEA, -- JSON, gzip-compressed when outputs_compressed
+    outputs_compressed BOOLEAN NOT NULL DEFAULT FALSE,
+    execution_count INTEGER,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (notebook_id, cell_id)
+);
+
+CREATE INDEX idx_notebook_cells_position ON notebook_cells(notebook_id, position);
+
+-- Move cells out of existing documents; notebooks.content keeps the document metadata
+INSERT INTO notebook_cells (notebook_id, cell_id, position, cell_type, source, metadata, outputs, execution_count)
+SELECT n.id,
+       COALESCE(c.cell->>'id', 'cell-' || (c.idx - 1)),
+       c.idx - 1,
+       COALESCE(c.cell->>'cell_type', 'code'),
+       CASE jsonb_typeof(c.cell->'source')
+           WHEN 'array' THEN (SELECT string_agg(line, '') FROM jsonb_array_elements_text(c.cell->'source') AS line)
+           ELSE c.cell->>'source'
+       END,
+       (c.cell->'metadata')::text,
+       convert_to((c.cell->'outputs')::text, 'UTF8'),
+       (c.cell->>'execution_count')::int
+FROM notebooks n
+CROSS JOIN LATERAL jsonb_array_elements(n.content::jsonb->'cells') WITH ORDINALITY AS c(cell, idx)
+WHERE n.content IS NOT NULL AND jsonb_typeof(n.content::jsonb->'cells') = 'array'
+ON CONFLICT (notebook_id, cell_id) DO NOTHING;
+
+UPDATE notebooks SET content = (content::jsonb - 'cells')::text
+WHERE content IS NOT NULL AND content::jsonb ? 'cells';
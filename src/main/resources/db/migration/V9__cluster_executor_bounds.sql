@@ -0,0 +1,6 @@
+-- Dynamic allocation bounds; executor_count is now the initial number of executors
+ALTER TABLE spark_clusters ADD COLUMN IF NOT EXISTS min_executors INTEGER;
+ALTER TABLE spark_clusters ADD COLUMN IF NOT EXISTS max_executors INTEGER;
+
+UPDATE spark_clusters SET min_executors = 0, max_executors = COALESCE(executor_count, 2)
+WHERE min_executors IS NULL;
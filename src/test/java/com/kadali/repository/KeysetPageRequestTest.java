@@ -0,0 +1,61 @@
+package com.kadali.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetPageRequestTest {
+
+	private static String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void cursorRoundTripsTheLastRow() {
+		KeysetPageRequest first = KeysetPageRequest.of(null, 20, "name", "desc", "tableName");
+		assertTrue(first.isFirstPage());
+
+		// Sort values may hold the separator
+		String cursor = first.nextCursor(42L, "sales|2024");
+		KeysetPageRequest next = KeysetPageRequest.of(cursor, 20, "name", "desc", "tableName");
+		assertFalse(next.isFirstPage());
+		assertEquals(42L, next.getLastId());
+		assertEquals("sales|2024", next.getLastSortValue());
+		assertEquals("tableName", next.getSortAttribute());
+		assertFalse(next.isAscending());
+	}
+
+	@Test
+	void limitIsClamped() {
+		assertEquals(1, KeysetPageRequest.of(null, 0, "created", "asc", "name").getLimit());
+		assertEquals(KeysetPageRequest.MAX_LIMIT, KeysetPageRequest.of(null, 10_000, "created", "asc", "name").getLimit());
+	}
+
+	@Test
+	void cursorOfAnotherSortIsRejected() {
+		String cursor = KeysetPageRequest.of(null, 20, "name", "asc", "name").nextCursor(7L, "orders");
+		assertThrows(IllegalArgumentException.class, () -> KeysetPageRequest.of(cursor, 20, "name", "desc", "name"));
+		assertThrows(IllegalArgumentException.class, () -> KeysetPageRequest.of(cursor, 20, "created", "asc", "name"));
+	}
+
+	@Test
+	void tamperedCursorsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> KeysetPageRequest.of("not base64!", 20, "created", "asc", "name"));
+		assertThrows(IllegalArgumentException.class, () -> KeysetPageRequest.of(encode("created:asc|x1|"), 20, "created", "asc", "name"));
+		assertThrows(IllegalArgumentException.class, () -> KeysetPageRequest.of(encode("created:asc|5"), 20, "created", "asc", "name"));
+		assertThrows(IllegalArgumentException.class, () -> KeysetPageRequest.of(encode("created:desc|5|"), 20, "created", "asc", "name"));
+	}
+
+	@Test
+	void unknownSortOrOrderIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> KeysetPageRequest.of(null, 20, "size", "asc", "name"));
+		assertThrows(IllegalArgumentException.class, () -> KeysetPageRequest.of(null, 20, "name", "up", "name"));
+	}
+
+}
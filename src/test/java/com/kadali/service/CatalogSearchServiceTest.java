@@ -0,0 +1,84 @@
+package com.kadali.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kadali.entity.Dataset;
+import com.kadali.service.CatalogSearchService.SearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogSearchServiceTest {
+
+	private static final String SCHEMA = "{\"type\":\"struct\",\"fields\":[{\"name\":\"customerId\",\"type\":\"long\"},"
+			+ "{\"name\":\"address\",\"type\":{\"type\":\"struct\",\"fields\":[{\"name\":\"zip_code\",\"type\":\"string\"}]}}]}";
+
+	private static CatalogSearchService index(Dataset... datasets) {
+		CatalogSearchService search = new CatalogSearchService(null, new ObjectMapper());
+		for (Dataset dataset : datasets) {
+			search.onDatasetSaved(new CatalogSearchService.DatasetSaved("t1", dataset));
+		}
+		return search;
+	}
+
+	private static Dataset dataset(String id, String database, String table, String schemaJson) {
+		return Dataset.builder().datasetId(id).databaseName(database).tableName(table).schemaJson(schemaJson).build();
+	}
+
+	private static List<String> tables(List<SearchResult> results) {
+		return results.stream().map(SearchResult::getTableName).toList();
+	}
+
+	@Test
+	void tokenizeSplitsPunctuationUnderscoresAndCamelCase() {
+		assertEquals(List.of("customer", "id", "zip", "code", "v2"), CatalogSearchService.tokenize("customerId zip_code-V2"));
+		assertEquals(List.of("order", "items"), CatalogSearchService.tokenize("  Order.Items "));
+		assertEquals(List.of(), CatalogSearchService.tokenize(" _- "));
+		assertEquals(List.of(), CatalogSearchService.tokenize(null));
+	}
+
+	@Test
+	void termsMatchByPrefixAndAllMustMatch() {
+		CatalogSearchService search = index(
+				dataset("ds-1", "sales", "customers", SCHEMA),
+				dataset("ds-2", "sales", "orders", null),
+				dataset("ds-3", "hr", "customer_notes", null));
+
+		assertEquals(List.of("customer_notes", "customers"), tables(search.search("t1", "cust", 10)).stream().sorted().toList());
+		assertEquals(List.of("customers"), tables(search.search("t1", "cust sales", 10)));
+		assertEquals(List.of("customers"), tables(search.search("t1", "zip", 10)));
+		assertEquals(List.of(), search.search("t1", "cust payroll", 10));
+		assertEquals(List.of(), search.search("t2", "cust", 10));
+	}
+
+	@Test
+	void exactTableNameAndWholeTermsRankFirst() {
+		CatalogSearchService search = index(
+				dataset("ds-1", "sales", "order_archive", null),
+				dataset("ds-2", "sales", "orders", null),
+				dataset("ds-3", "ops", "sales_order", null));
+
+		List<SearchResult> results = search.search("t1", "orders", 10);
+		assertEquals("orders", results.get(0).getTableName());
+
+		// "order" is a whole term of two tables but only a prefix of "orders"
+		results = search.search("t1", "order", 10);
+		assertEquals(3, results.size());
+		assertTrue(results.get(2).getScore() < results.get(1).getScore());
+		assertEquals("orders", results.get(2).getTableName());
+	}
+
+	@Test
+	void limitKeepsTheBestMatches() {
+		CatalogSearchService search = index(
+				dataset("ds-1", "a", "events", null),
+				dataset("ds-2", "b", "events_daily", null),
+				dataset("ds-3", "c", "event_log", null));
+
+		assertEquals(List.of("events"), tables(search.search("t1", "events", 1)));
+		assertEquals(1, search.search("t1", "event", 0).size());
+	}
+
+}
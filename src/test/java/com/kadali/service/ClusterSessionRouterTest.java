@@ -0,0 +1,176 @@
+package com.kadali.service;
+
+import com.kadali.entity.SparkCluster;
+import com.kadali.entity.Tenant;
+import com.kadali.repository.SparkClusterRepository;
+import org.apache.hive.service.auth.PlainSaslHelper;
+import org.apache.hive.service.rpc.thrift.*;
+import org.apache.thrift.server.TServer;
+import org.apache.thrift.server.TThreadPoolServer;
+import org.apache.thrift.transport.TServerSocket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the router against a local HiveServer2-protocol server, the protocol
+ * of the Spark Thrift server on cluster drivers
+ */
+class ClusterSessionRouterTest {
+
+	private static final TStatus OK = new TStatus(TStatusCode.SUCCESS_STATUS);
+
+	private final SparkClusterRepository clusterRepository = mock(SparkClusterRepository.class);
+	private final List<String> statements = new CopyOnWriteArrayList<>();
+	private final Set<TOperationHandle> fetched = ConcurrentHashMap.newKeySet();
+
+	private TServer server;
+	private ClusterSessionRouter router;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void startServer() throws Exception {
+		TServerSocket socket = new TServerSocket(0);
+		server = new TThreadPoolServer(new TThreadPoolServer.Args(socket)
+				.processor(new TCLIService.Processor<>(thriftService()))
+				.transportFactory(PlainSaslHelper.getPlainTransportFactory("NONE")));
+		Thread serving = new Thread(server::serve, "local-thrift-server");
+		serving.setDaemon(true);
+		serving.start();
+
+		router = new ClusterSessionRouter(clusterRepository, mock(ObjectProvider.class),
+				new ClusterActivityTracker(null));
+		ReflectionTestUtils.setField(router, "hostOverride", "localhost");
+		ReflectionTestUtils.setField(router, "sqlPort", socket.getServerSocket().getLocalPort());
+		ReflectionTestUtils.setField(router, "poolSize", 2);
+		ReflectionTestUtils.setField(router, "idleTimeoutMinutes", 60L);
+	}
+
+	@AfterEach
+	void stopServer() {
+		router.shutdown();
+		server.stop();
+	}
+
+	@Test
+	void notebookQueriesRunOnTheAttachedCluster() {
+		when(clusterRepository.findWithTenant(10L)).thenReturn(Optional.of(cluster(10L, "c-1", 1L)));
+
+		ClusterSessionRouter.RemoteResult result = router.queryForNotebook("nb-1", 1L, 10L, "SELECT n FROM t", 100);
+
+		assertEquals(List.of("n"), result.columns());
+		assertEquals(List.of(Map.of("n", 1), Map.of("n", 2)), result.rows());
+		assertEquals(List.of("SELECT n FROM t"), statements);
+	}
+
+	@Test
+	void notebookCannotQueryAnotherTenantsCluster() {
+		when(clusterRepository.findWithTenant(10L)).thenReturn(Optional.of(cluster(10L, "c-1", 2L)));
+
+		assertThrows(RuntimeException.class, () -> router.queryForNotebook("nb-1", 1L, 10L, "SELECT n FROM t", 100));
+		assertTrue(statements.isEmpty());
+	}
+
+	@Test
+	void adHocQueriesAreScopedToTheTenant() {
+		SparkCluster cluster = cluster(10L, "c-1", 1L);
+		when(clusterRepository.findByClusterIdWithTenant("c-1")).thenReturn(Optional.of(cluster));
+
+		assertEquals(2, router.query("tenant-1", "c-1", "SELECT n FROM t", 100).rows().size());
+		assertThrows(RuntimeException.class, () -> router.query("tenant-2", "c-1", "SELECT n FROM t", 100));
+		assertEquals(1, statements.size());
+	}
+
+	private static SparkCluster cluster(Long id, String clusterId, Long tenantKey) {
+		return SparkCluster.builder()
+				.id(id)
+				.clusterId(clusterId)
+				.tenant(Tenant.builder().id(tenantKey).tenantId("tenant-" + tenantKey).build())
+				.status(SparkCluster.ClusterStatus.RUNNING)
+				.build();
+	}
+
+	// Answers every statement with one INT column n = 1, 2
+	private TCLIService.Iface thriftService() {
+		return (TCLIService.Iface) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{TCLIService.Iface.class}, (proxy, method, args) -> switch (method.getName()) {
+					case "OpenSession" -> openSession();
+					case "ExecuteStatement" -> execute((TExecuteStatementReq) args[0]);
+					case "GetOperationStatus" -> operationStatus();
+					case "GetResultSetMetadata" -> resultSetMetadata();
+					case "FetchResults" -> fetchResults((TFetchResultsReq) args[0]);
+					case "CloseOperation" -> new TCloseOperationResp(OK);
+					case "CloseSession" -> new TCloseSessionResp(OK);
+					case "CancelOperation" -> new TCancelOperationResp(OK);
+					case "hashCode" -> System.identityHashCode(proxy);
+					case "equals" -> proxy == args[0];
+					case "toString" -> "local-thrift-server";
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private static TOpenSessionResp openSession() {
+		TOpenSessionResp response = new TOpenSessionResp(OK, TProtocolVersion.HIVE_CLI_SERVICE_PROTOCOL_V10);
+		response.setSessionHandle(new TSessionHandle(handle()));
+		response.setConfiguration(Map.of());
+		return response;
+	}
+
+	private TExecuteStatementResp execute(TExecuteStatementReq request) {
+		statements.add(request.getStatement());
+		TExecuteStatementResp response = new TExecuteStatementResp(OK);
+		response.setOperationHandle(new TOperationHandle(handle(), TOperationType.EXECUTE_STATEMENT, true));
+		return response;
+	}
+
+	private static TGetOperationStatusResp operationStatus() {
+		TGetOperationStatusResp response = new TGetOperationStatusResp(OK);
+		response.setOperationState(TOperationState.FINISHED_STATE);
+		response.setHasResultSet(true);
+		return response;
+	}
+
+	private static TGetResultSetMetadataResp resultSetMetadata() {
+		TTypeDesc type = new TTypeDesc(List.of(TTypeEntry.primitiveEntry(new TPrimitiveTypeEntry(TTypeId.INT_TYPE))));
+		TGetResultSetMetadataResp response = new TGetResultSetMetadataResp(OK);
+		response.setSchema(new TTableSchema(List.of(new TColumnDesc("n", type, 1))));
+		return response;
+	}
+
+	// All rows on the first fetch of an operation, none after
+	private TFetchResultsResp fetchResults(TFetchResultsReq request) {
+		boolean first = fetched.add(request.getOperationHandle());
+		TRowSet rows = new TRowSet(0, List.of());
+		rows.addToColumns(TColumn.i32Val(new TI32Column(first ? List.of(1, 2) : List.of(), ByteBuffer.wrap(new byte[1]))));
+		TFetchResultsResp response = new TFetchResultsResp(OK);
+		response.setResults(rows);
+		response.setHasMoreRows(false);
+		return response;
+	}
+
+	private static THandleIdentifier handle() {
+		UUID id = UUID.randomUUID();
+		ByteBuffer guid = ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+		guid.flip();
+		return new THandleIdentifier(guid, ByteBuffer.wrap(new byte[16]));
+	}
+
+}
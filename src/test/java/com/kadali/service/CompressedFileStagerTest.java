@@ -0,0 +1,124 @@
+package com.kadali.service;
+
+import com.kadali.service.CompressedFileStager.Compression;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompressedFileStagerTest {
+
+	@TempDir
+	Path dir;
+
+	private static CompressedFileStager stager(long chunkBytes) {
+		CompressedFileStager stager = new CompressedFileStager();
+		ReflectionTestUtils.setField(stager, "chunkBytes", chunkBytes);
+		ReflectionTestUtils.setField(stager, "gzipRechunkMinBytes", 0L);
+		ReflectionTestUtils.setField(stager, "maxExpandedBytes", 1L << 30);
+		ReflectionTestUtils.setField(stager, "maxCompressionRatio", 200L);
+		ReflectionTestUtils.setField(stager, "maxZipEntries", 10);
+		return stager;
+	}
+
+	private Path write(String name, byte[] bytes) throws IOException {
+		return Files.write(dir.resolve(name), bytes);
+	}
+
+	private static byte[] gzip(String text) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(bytes)) {
+			out.write(text.getBytes(StandardCharsets.UTF_8));
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] zip(int entries, byte[] content) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+			for (int i = 0; i < entries; i++) {
+				out.putNextEntry(new ZipEntry("part-" + i + ".csv"));
+				out.write(content);
+				out.closeEntry();
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static String gunzip(Path file) throws IOException {
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	void compressionIsDetectedFromMagicBytes() throws IOException {
+		CompressedFileStager stager = stager(1024);
+		assertEquals(Compression.GZIP, stager.detect(write("a", gzip("x")), "upload.csv"));
+		assertEquals(Compression.BZIP2, stager.detect(write("b", "BZh91AY".getBytes(StandardCharsets.US_ASCII)), null));
+		assertEquals(Compression.ZSTD, stager.detect(write("c", new byte[]{0x28, (byte) 0xb5, 0x2f, (byte) 0xfd, 0}), null));
+		assertEquals(Compression.ZIP, stager.detect(write("d", zip(1, new byte[]{1})), "data.csv"));
+		assertEquals(Compression.NONE, stager.detect(write("e", "id,name\n".getBytes(StandardCharsets.UTF_8)), "data.csv"));
+	}
+
+	@Test
+	void extensionDecidesWhenMagicBytesDoNot() throws IOException {
+		CompressedFileStager stager = stager(1024);
+		Path tiny = write("tiny", new byte[]{1});
+		assertEquals(Compression.GZIP, stager.detect(tiny, "DATA.CSV.GZ"));
+		assertEquals(Compression.ZSTD, stager.detect(tiny, "data.zst"));
+		assertEquals(Compression.NONE, stager.detect(tiny, null));
+	}
+
+	@Test
+	void gzipIsResplitOnRecordBoundariesWithTheHeaderRepeated() throws IOException {
+		String csv = "id,note\n1,\"multi\nline\"\n2,b\n3,c\n";
+		Path work = Files.createDirectory(dir.resolve("work"));
+		String staged = stager(4).stage(write("up.gz", gzip(csv)), "up.csv.gz", "csv", work);
+
+		assertEquals(work.toString(), staged);
+		try (var files = Files.list(work)) {
+			List<Path> chunks = files.sorted().toList();
+			assertEquals(3, chunks.size());
+			assertEquals("id,note\n1,\"multi\nline\"\n", gunzip(chunks.get(0)));
+			assertEquals("id,note\n2,b\n", gunzip(chunks.get(1)));
+			assertEquals("id,note\n3,c\n", gunzip(chunks.get(2)));
+		}
+	}
+
+	@Test
+	void zipBombsAreRejected() throws IOException {
+		Path work = Files.createDirectory(dir.resolve("work"));
+		CompressedFileStager stager = stager(1 << 20);
+
+		// Highly repetitive data expands far beyond the ratio limit
+		Path bomb = write("bomb.zip", zip(1, new byte[16 << 20]));
+		assertThrows(IllegalArgumentException.class, () -> stager.stage(bomb, "bomb.zip", "csv", work));
+
+		Path crowded = write("crowded.zip", zip(11, "a\n".getBytes(StandardCharsets.UTF_8)));
+		assertThrows(IllegalArgumentException.class, () -> stager.stage(crowded, "crowded.zip", "csv", work));
+	}
+
+	@Test
+	void compressedParquetOutsideZipIsRejected() throws IOException {
+		Path upload = write("p.gz", gzip("PAR1"));
+		Path work = Files.createDirectory(dir.resolve("work"));
+		assertThrows(IllegalArgumentException.class, () -> stager(1024).stage(upload, "p.parquet.gz", "parquet", work));
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.kadali.service;
+
+import com.kadali.service.CsvPreviewService.CsvPreview;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvPreviewServiceTest {
+
+	private static CsvPreview preview(String csv, int previewBytes) throws IOException {
+		CsvPreviewService service = new CsvPreviewService();
+		ReflectionTestUtils.setField(service, "previewBytes", previewBytes);
+		byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+		return service.preview(new ByteArrayInputStream(bytes), bytes.length, null);
+	}
+
+	private static CsvPreview preview(String csv) throws IOException {
+		return preview(csv, 1 << 16);
+	}
+
+	@Test
+	void delimiterIsTheOneSplittingLinesConsistently() throws IOException {
+		assertEquals(";", preview("id;name;price\n1;a,b;1,5\n2;c;2\n").getDelimiter());
+		assertEquals("\t", preview("id\tname\n1\tx\n2\ty\n").getDelimiter());
+		assertEquals("|", preview("a|b|c\n1|2|3\n").getDelimiter());
+		// Delimiters inside quotes do not count
+		assertEquals(",", preview("id,note\n1,\"x;y;z\"\n2,\"p;q;r\"\n").getDelimiter());
+	}
+
+	@Test
+	void singleQuotesAreDetectedAtFieldBoundaries() throws IOException {
+		CsvPreview preview = preview("id,note\n1,'a,b'\n2,'c,d'\n");
+		assertEquals("'", preview.getQuote());
+		assertEquals(List.of("1", "a,b"), preview.getSampleRows().get(0));
+	}
+
+	@Test
+	void headerIsDetectedFromNamesAndTypes() throws IOException {
+		// A leading byte order mark is not part of the first name
+		CsvPreview named = preview("\uFEFFid,created,active\n1,2024-01-01,true\n2,2024-01-02,false\n");
+		assertTrue(named.isHeader());
+		assertEquals(List.of("id", "created", "active"), named.getColumns());
+		assertEquals(List.of("int", "date", "boolean"), named.getTypes());
+		assertEquals(2, named.getRowCount());
+		assertFalse(named.isRowCountEstimated());
+
+		// A numeric first row is data
+		CsvPreview unnamed = preview("1,alpha\n2,beta\n");
+		assertFalse(unnamed.isHeader());
+		assertEquals(List.of("_c0", "_c1"), unnamed.getColumns());
+
+		// Repeated or blank names are not a header
+		assertFalse(preview("x,x\na,b\n").isHeader());
+		assertFalse(preview("x,\na,b\n").isHeader());
+	}
+
+	@Test
+	void rowCountIsEstimatedBeyondTheSample() throws IOException {
+		StringBuilder csv = new StringBuilder("id,value\n");
+		for (int i = 0; i < 1000; i++) {
+			csv.append(i % 10).append(",abcdef\n");
+		}
+		CsvPreview preview = preview(csv.toString(), 512);
+		assertTrue(preview.isRowCountEstimated());
+		assertTrue(Math.abs(preview.getRowCount() - 1000) < 50, "estimate was " + preview.getRowCount());
+	}
+
+	@Test
+	void sampleWithoutACompleteRowIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> preview("a,b,c,d,e,f,g,h", 4));
+	}
+
+}
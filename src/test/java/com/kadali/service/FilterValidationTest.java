@@ -0,0 +1,26 @@
+package com.kadali.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FilterValidationTest {
+
+	@Test
+	void quotedTextMayHoldAnyCharacter() {
+		assertDoesNotThrow(() -> DataConnectorService.validateFilter("name = ')' AND note <> 'a;b -- c'"));
+		assertDoesNotThrow(() -> DataConnectorService.validateFilter("\"odd)col\" = 'it''s (here'"));
+		assertDoesNotThrow(() -> DataConnectorService.validateFilter("(`x` > 1) OR (y IN ('(', ')'))"));
+	}
+
+	@Test
+	void statementsAndCommentsOutsideQuotesAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> DataConnectorService.validateFilter("1=1; DROP TABLE t"));
+		assertThrows(IllegalArgumentException.class, () -> DataConnectorService.validateFilter("1=1 -- x"));
+		assertThrows(IllegalArgumentException.class, () -> DataConnectorService.validateFilter("1=1 /* x */"));
+		assertThrows(IllegalArgumentException.class, () -> DataConnectorService.validateFilter("a = 1) OR (1=1"));
+		assertThrows(IllegalArgumentException.class, () -> DataConnectorService.validateFilter("a = ')"));
+	}
+
+}
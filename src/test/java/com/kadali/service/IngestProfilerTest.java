@@ -0,0 +1,60 @@
+package com.kadali.service;
+
+import com.kadali.service.IngestProfiler.ColumnProfile;
+import com.kadali.service.IngestProfiler.DatasetProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IngestProfilerTest {
+
+	private static ColumnProfile column(String name, String type, long nulls, String min, String max, long distinct) {
+		return ColumnProfile.builder().name(name).type(type).nullCount(nulls)
+				.min(min).max(max).approxDistinct(distinct).build();
+	}
+
+	private static DatasetProfile profile(long rows, ColumnProfile... columns) {
+		return DatasetProfile.builder().rowCount(rows).columns(List.of(columns)).build();
+	}
+
+	@Test
+	void appendedBatchAddsCountsAndWidensBounds() {
+		DatasetProfile merged = IngestProfiler.merge(
+				profile(100, column("id", "bigint", 0, "9", "100", 100), column("day", "date", 5, "2024-01-02", "2024-03-01", 60)),
+				profile(10, column("id", "bigint", 1, "101", "110", 10), column("day", "date", 0, "2023-12-31", "2024-01-05", 5)));
+
+		assertEquals(110, merged.getRowCount());
+		ColumnProfile id = merged.getColumns().get(0);
+		assertEquals(1, id.getNullCount());
+		assertEquals("9", id.getMin()); // by value, not as text
+		assertEquals("110", id.getMax());
+		assertEquals(100, id.getApproxDistinct());
+		ColumnProfile day = merged.getColumns().get(1);
+		assertEquals(5, day.getNullCount());
+		assertEquals("2023-12-31", day.getMin());
+		assertEquals("2024-03-01", day.getMax());
+	}
+
+	@Test
+	void columnsOnOneSideAreNullInTheOthersRows() {
+		DatasetProfile merged = IngestProfiler.merge(
+				profile(100, column("old", "string", 0, "a", "z", 26)),
+				profile(10, column("new", "string", 2, "b", "c", 2)));
+
+		assertEquals("old", merged.getColumns().get(0).getName());
+		assertEquals(10, merged.getColumns().get(0).getNullCount());
+		assertEquals("new", merged.getColumns().get(1).getName());
+		assertEquals(102, merged.getColumns().get(1).getNullCount());
+	}
+
+	@Test
+	void unknownSideCannotBeMerged() {
+		assertNull(IngestProfiler.merge(null, profile(10)));
+		assertNull(IngestProfiler.merge(profile(10), null));
+		assertNull(IngestProfiler.merge(DatasetProfile.builder().columns(List.of()).build(), profile(10)));
+	}
+
+}
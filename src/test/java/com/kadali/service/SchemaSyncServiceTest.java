@@ -0,0 +1,39 @@
+package com.kadali.service;
+
+import com.kadali.service.SchemaSyncService.SourceTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SchemaSyncServiceTest {
+
+	private static SourceTable table(String schema, String name) {
+		return new SourceTable(schema + "." + name, schema, name, -1, -1);
+	}
+
+	@Test
+	void schemaPrefixesTargetsWhenTheSyncSpansSchemas() {
+		SourceTable a = table("a", "orders");
+		SourceTable b = table("b", "orders");
+		assertEquals(Map.of(a, "a_orders", b, "b_orders"),
+				SchemaSyncService.targetTableNames(List.of(a, b), true));
+	}
+
+	@Test
+	void singleSchemaTargetsAreTheTableNames() {
+		SourceTable orders = table("sales", "Order-Items");
+		assertEquals(Map.of(orders, "order_items"),
+				SchemaSyncService.targetTableNames(List.of(orders), false));
+	}
+
+	@Test
+	void collidingTargetsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> SchemaSyncService.targetTableNames(
+				List.of(table("sales", "Orders"), table("sales", "orders")), false));
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.kadali.spark;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DriverShapeTest {
+
+	@Test
+	void parse() {
+		assertEquals(new DriverShape("2g", 1, "4g", 2, 0, 4), DriverShape.parse(" 2g/1/4g/2/0/4 "));
+	}
+
+	@Test
+	void parseRejectsMalformedShapes() {
+		assertThrows(IllegalArgumentException.class, () -> DriverShape.parse("2g/1/4g/2/0"));
+		assertThrows(IllegalArgumentException.class, () -> DriverShape.parse("2g/one/4g/2/0/4"));
+	}
+
+	@Test
+	void keyIsLabelSafe() {
+		assertEquals("2g-1-4g-2-0-4", new DriverShape("2G", 1, "4G", 2, 0, 4).key());
+	}
+
+}
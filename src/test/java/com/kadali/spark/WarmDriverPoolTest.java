@@ -0,0 +1,62 @@
+package com.kadali.spark;
+
+import com.kadali.spark.WarmDriverPool.PoolKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WarmDriverPoolTest {
+
+	private static final DriverShape SMALL = DriverShape.parse("2g/1/2g/1/0/4");
+	private static final DriverShape LARGE = DriverShape.parse("8g/4/8g/4/2/16");
+
+	@Test
+	void targetFollowsDemandDuringWarmup() {
+		// 40 creations an hour, 3 minute warm-up: 2 expected meanwhile
+		Map<PoolKey, Integer> targets = WarmDriverPool.targets(
+				Map.of(new PoolKey("acme", LARGE), 40), Set.of(), 1, 5, 3, 60);
+		assertEquals(Map.of(new PoolKey("acme", LARGE), 2), targets);
+	}
+
+	@Test
+	void targetIsBoundedByMaxSize() {
+		Map<PoolKey, Integer> targets = WarmDriverPool.targets(
+				Map.of(new PoolKey("acme", LARGE), 1000), Set.of(), 1, 5, 3, 60);
+		assertEquals(5, targets.get(new PoolKey("acme", LARGE)));
+	}
+
+	@Test
+	void configuredShapesAreKeptForActiveTenantsOnly() {
+		Map<PoolKey, Integer> targets = WarmDriverPool.targets(
+				Map.of(new PoolKey("acme", LARGE), 1), Set.of(SMALL), 1, 5, 3, 60);
+		assertEquals(Map.of(new PoolKey("acme", LARGE), 1, new PoolKey("acme", SMALL), 1), targets);
+		assertEquals(Map.of(), WarmDriverPool.targets(Map.of(), Set.of(SMALL), 1, 5, 3, 60));
+	}
+
+	@Test
+	void anyRecentDemandKeepsOnePod() {
+		Map<PoolKey, Integer> targets = WarmDriverPool.targets(
+				Map.of(new PoolKey("acme", LARGE), 1), Set.of(), 0, 5, 3, 60);
+		assertEquals(1, targets.get(new PoolKey("acme", LARGE)));
+	}
+
+	@Test
+	void busiestPoolsComeFirst() {
+		Map<PoolKey, Integer> targets = WarmDriverPool.targets(
+				Map.of(new PoolKey("acme", SMALL), 2, new PoolKey("globex", SMALL), 50), Set.of(), 0, 5, 3, 60);
+		assertEquals(List.of(new PoolKey("globex", SMALL), new PoolKey("acme", SMALL)),
+				List.copyOf(targets.keySet()));
+	}
+
+	@Test
+	void poolsAreSeparatePerTenant() {
+		assertEquals("acme/2g-1-2g-1-0-4", new PoolKey("acme", SMALL).label());
+		assertEquals(2, WarmDriverPool.targets(
+				Map.of(new PoolKey("acme", SMALL), 1, new PoolKey("globex", SMALL), 1), Set.of(), 0, 5, 3, 60).size());
+	}
+
+}